@@ -0,0 +1,72 @@
+package com.example.demo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.service.impl.EquationServiceImpl;
+import com.example.demo.util.EquationParser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    @Param({"shallow", "deep", "wide"})
+    private String shape;
+
+    private ExpressionTree parsedTree;
+    private CompiledExpression compiled;
+    private Map<String, Double> variables;
+    private double[] slots;
+
+    @Setup
+    public void setUp() {
+        String formula = Formulas.byShape(shape);
+        parsedTree = EquationParser.parseEquation(formula);
+
+        EquationServiceImpl service = new EquationServiceImpl();
+        Equation equation = service.getEquationById(service.storeEquation(formula));
+        compiled = equation.getCompiledExpression();
+
+        variables = Formulas.variables();
+        slots = compiled.bind(variables);
+    }
+
+    @Benchmark
+    public double treeEvaluate() {
+        return parsedTree.evaluate(variables);
+    }
+
+    @Benchmark
+    public double compiledEvaluateMap() {
+        return compiled.evaluate(variables);
+    }
+
+    @Benchmark
+    public double compiledEvaluateSlots() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    public String toInfixNotation() {
+        return parsedTree.toInfixNotation();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.model.StorageLayout;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+/**
+ * Retained heap per stored equation for each {@link StorageLayout}. Not a JMH benchmark:
+ * it stores the same equations into a fresh service per layout and measures live heap
+ * after full GCs. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec@footprint -Dfootprint.equations=1000000}.
+ */
+public final class FootprintReport {
+
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) {
+        int equations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf(Locale.ROOT, "%-8s %12s %16s %14s %18s%n",
+                "layout", "equations", "retained bytes", "bytes/equation", "estimated/equation");
+        for (StorageLayout layout : StorageLayout.values()) {
+            long before = liveHeap();
+            InMemoryEquationRepository repository = new InMemoryEquationRepository();
+            EquationMetrics metrics = new EquationMetrics(repository);
+            EquationServiceImpl service = EquationServiceImpl.builder()
+                    .repository(repository)
+                    .metrics(metrics)
+                    .tieredCompiler(new TieredCompiler(false, 0))
+                    .storageLayout(layout)
+                    .build();
+            for (int i = 0; i < equations; i++) {
+                service.storeEquation(formula(i));
+            }
+            long retained = liveHeap() - before;
+            double estimated = metrics.getEstimatedBytesPerEquation();
+
+            System.out.printf(Locale.ROOT, "%-8s %12d %16d %14.1f %18.1f%n", layout, equations, retained,
+                    (double) retained / equations, estimated);
+            // Keep the service reachable until it has been measured
+            if (service.getAllEquations().size() != equations) {
+                throw new IllegalStateException("Lost equations");
+            }
+        }
+    }
+
+    /**
+     * A mix of distinct formulas of typical size: constants vary so nothing is deduplicated,
+     * while common pieces such as {@code 2 * y} can still be shared by the TREE layout.
+     */
+    static String formula(int i) {
+        switch (i % 4) {
+            case 0: return i + " * x + 2y - z";
+            case 1: return "(x + " + i + ") * (x + " + i + ") - y / " + (i % 97 + 1);
+            case 2: return "x ^ 2 + " + i + " * x * y - (z - " + i + ") / 3";
+            default: return "3x + 2y - z * " + i + " + (x - y) ^ 3";
+        }
+    }
+
+    private static long liveHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // Repeat until a GC no longer frees anything, so only live objects are counted
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
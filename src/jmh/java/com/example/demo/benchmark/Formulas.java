@@ -0,0 +1,57 @@
+package com.example.demo.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class Formulas {
+
+    private Formulas() {
+    }
+
+    static String shallow() {
+        return "3x + 2y - z";
+    }
+
+    /**
+     * Nested chain {@code ((x * y + 1) * y + 2) ...} of the given depth.
+     */
+    static String deep(int depth) {
+        String formula = "x";
+        for (int i = 1; i <= depth; i++) {
+            formula = "(" + formula + " * y + " + i + ")";
+        }
+        return formula;
+    }
+
+    /**
+     * Flat sum of {@code terms} products over x, y and z.
+     */
+    static String wide(int terms) {
+        String[] variables = {"x", "y", "z"};
+        StringBuilder formula = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                formula.append(i % 2 == 0 ? " + " : " - ");
+            }
+            formula.append(i + 1).append(" * ").append(variables[i % 3]).append("^").append(i % 4 + 1);
+        }
+        return formula.toString();
+    }
+
+    static String byShape(String shape) {
+        switch (shape) {
+            case "shallow": return shallow();
+            case "deep": return deep(200);
+            case "wide": return wide(1000);
+            default: throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    static Map<String, Double> variables() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.25);
+        variables.put("y", 0.75);
+        variables.put("z", 2.5);
+        return variables;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.EquationSolverApplication;
+import com.example.demo.metrics.InFlightRequestFilter;
+
+/**
+ * Load comparison of Tomcat's fixed platform-thread pool against virtual threads. Slow clients
+ * trickle NDJSON rows into {@code /evaluate/stream}, each holding a request thread for the whole
+ * run, while fast clients measure {@code /evaluate/vector} latency. With more slow clients than
+ * pool threads the fixed pool queues the fast requests; virtual threads should not.
+ *
+ * <p>Needs a JDK 21 for the virtual-thread run:
+ * {@code mvn -Pbenchmark,java21 test-compile exec:exec@load -Dload.args="400 50 20"}
+ * (slow clients, fast clients, seconds per mode). Client and server share one JVM, so compare
+ * the two modes with each other rather than reading the numbers as absolute.
+ */
+public final class LoadComparison {
+
+    private static final int POOL_THREADS = 200;
+    private static final long SLOW_ROW_INTERVAL_MS = 50;
+
+    private LoadComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int slowClients = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int fastClients = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format(Locale.ROOT, "%-9s %9s %10s %10s %10s %13s",
+                "threads", "requests", "req/s", "p50 ms", "p99 ms", "max in-flight"));
+        for (boolean virtual : new boolean[] {false, true}) {
+            report.add(run(virtual, slowClients, fastClients, seconds));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtual, int slowClients, int fastClients, int seconds) throws Exception {
+        ConfigurableApplicationContext context = SpringApplication.run(EquationSolverApplication.class,
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + POOL_THREADS,
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        ExecutorService clients = Executors.newCachedThreadPool();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/equations";
+            HttpClient http = HttpClient.newBuilder().executor(clients).build();
+
+            String stored = http.send(HttpRequest.newBuilder(URI.create(base + "/store"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"equation\": \"3x + 2y - z\"}"))
+                            .build(), HttpResponse.BodyHandlers.ofString()).body();
+            String equationId = stored.replaceAll(".*\"equationId\":\"([^\"]+)\".*", "$1");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            List<Future<?>> slow = new ArrayList<>();
+            for (int i = 0; i < slowClients; i++) {
+                slow.add(clients.submit(() -> http.send(HttpRequest.newBuilder(URI.create(base + "/" + equationId + "/evaluate/stream"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new SlowRows(deadline)))
+                        .build(), HttpResponse.BodyHandlers.discarding())));
+            }
+            // Let the slow clients occupy the pool before measuring
+            Thread.sleep(1000);
+            context.getBean(InFlightRequestFilter.class).resetMaxInFlight();
+
+            HttpRequest evaluate = HttpRequest.newBuilder(URI.create(base + "/" + equationId + "/evaluate/vector"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"values\": [1, 2, 3]}"))
+                    .build();
+            long measureStart = System.nanoTime();
+            List<Future<long[]>> fast = new ArrayList<>();
+            for (int i = 0; i < fastClients; i++) {
+                fast.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        http.send(evaluate, HttpResponse.BodyHandlers.discarding());
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> future : fast) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            double elapsedSeconds = (System.nanoTime() - measureStart) / 1e9;
+            int maxInFlight = context.getBean(InFlightRequestFilter.class).getMaxInFlight();
+            for (Future<?> future : slow) {
+                future.get();
+            }
+
+            Arrays.sort(all);
+            return String.format(Locale.ROOT, "%-9s %9d %10.0f %10.2f %10.2f %13d",
+                    virtual ? "virtual" : "platform", all.length, all.length / elapsedSeconds,
+                    percentile(all, 0.50), percentile(all, 0.99), maxInFlight);
+        } finally {
+            clients.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * Request body that produces one NDJSON row every {@value #SLOW_ROW_INTERVAL_MS} ms until the deadline.
+     */
+    private static final class SlowRows extends InputStream {
+        private static final byte[] ROW = "{\"x\": 1, \"y\": 2, \"z\": 3}\n".getBytes(StandardCharsets.UTF_8);
+
+        private final long deadline;
+        private int position = ROW.length;
+
+        private SlowRows(long deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position == ROW.length) {
+                if (System.nanoTime() >= deadline) {
+                    return -1;
+                }
+                try {
+                    Thread.sleep(SLOW_ROW_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+                position = 0;
+            }
+            int count = Math.min(length, ROW.length - position);
+            System.arraycopy(ROW, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.persistence.FileEquationPersistence;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+/**
+ * Restart time against store size: recovering from a compacted snapshot versus replaying the
+ * write-ahead log alone, compared with re-storing (re-parsing) every equation from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RestartBenchmark {
+
+    @Param({"10000", "100000"})
+    public int equations;
+
+    @Param({"snapshot", "log"})
+    public String source;
+
+    private Path directory;
+    private String[] formulas;
+    private FileEquationPersistence persistence;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        directory = Files.createTempDirectory("equation-restart");
+        formulas = new String[equations];
+        EquationServiceImpl service = start(0, 0);
+        for (int i = 0; i < equations; i++) {
+            formulas[i] = i + " * x + 2y - (z + " + i + ") / (w + " + (i % 97 + 1) + ")";
+            service.storeEquation(formulas[i]);
+        }
+        if (source.equals("snapshot")) {
+            service.snapshot();
+        }
+        persistence.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLog() {
+        persistence.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int recover() {
+        return start(1, 0).getAllEquations().size();
+    }
+
+    @Benchmark
+    public int reparse() {
+        EquationServiceImpl service = new EquationServiceImpl();
+        for (String formula : formulas) {
+            service.storeEquation(formula);
+        }
+        return service.getAllEquations().size();
+    }
+
+    private EquationServiceImpl start(int fsyncBatchSize, long fsyncIntervalMs) {
+        persistence = new FileEquationPersistence(directory.toString(), fsyncBatchSize, fsyncIntervalMs);
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .tieredCompiler(new TieredCompiler(false, 0))
+                .persistence(persistence)
+                .build();
+        service.recover();
+        return service;
+    }
+}
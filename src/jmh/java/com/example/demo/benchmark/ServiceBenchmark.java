@@ -0,0 +1,74 @@
+package com.example.demo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.service.EquationService;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+/**
+ * Service-layer throughput with several threads storing and evaluating at the same time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int PRELOADED = 1_000;
+
+    private EquationService service;
+    private String[] ids;
+    private Map<String, Double> variables;
+
+    @Setup
+    public void setUp() {
+        service = new EquationServiceImpl();
+        ids = new String[PRELOADED];
+        for (int i = 0; i < PRELOADED; i++) {
+            ids[i] = service.storeEquation(i + " * x + 2y - z / " + (i + 1));
+        }
+        variables = Formulas.variables();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double evaluateOnly() {
+        return service.evaluateEquation(randomId(), variables);
+    }
+
+    @Benchmark
+    @Group("storeAndEvaluate")
+    @GroupThreads(1)
+    public String store() {
+        return service.storeEquation("3x + 2y - z * " + ThreadLocalRandom.current().nextInt(1_000_000));
+    }
+
+    @Benchmark
+    @Group("storeAndEvaluate")
+    @GroupThreads(3)
+    public double evaluate() {
+        return service.evaluateEquation(randomId(), variables);
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
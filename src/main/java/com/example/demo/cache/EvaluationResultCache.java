@@ -0,0 +1,127 @@
+package com.example.demo.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Optional memoization of single evaluations, keyed by equation ID and the bit patterns of
+ * the slot-ordered variable values (so map ordering and unused variables do not matter).
+ * Backed by Caffeine, whose W-TinyLFU policy keeps frequently polled entries over one-off
+ * ones. A division by zero is cached as an outcome and rethrown on every hit.
+ */
+@Component
+public class EvaluationResultCache {
+
+    public static final String CACHE_NAME = "equation.results";
+
+    private final Cache<Key, Outcome> cache;
+
+    private EvaluationResultCache() {
+        this.cache = null;
+    }
+
+    @Autowired
+    public EvaluationResultCache(MeterRegistry registry,
+                                 @Value("${equation.cache.enabled:false}") boolean enabled,
+                                 @Value("${equation.cache.maximum-size:100000}") long maximumSize,
+                                 @Value("${equation.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public static EvaluationResultCache disabled() {
+        return new EvaluationResultCache();
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the cached result for {@code slots}, computing it with {@code evaluator} on a miss.
+     */
+    public double get(String equationId, double[] slots, ToDoubleFunction<double[]> evaluator) {
+        if (cache == null) {
+            return evaluator.applyAsDouble(slots);
+        }
+        // Copied so a caller reusing its array cannot alter a stored key
+        Key key = new Key(equationId, slots.clone());
+        Outcome outcome = cache.get(key, k -> {
+            try {
+                return new Outcome(evaluator.applyAsDouble(k.slots), null);
+            } catch (ArithmeticException e) {
+                return new Outcome(Double.NaN, e.getMessage());
+            }
+        });
+        if (outcome.error != null) {
+            throw new ArithmeticException(outcome.error);
+        }
+        return outcome.result;
+    }
+
+    public void invalidate(String equationId) {
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(key -> key.equationId.equals(equationId));
+        }
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    private static final class Key {
+        private final String equationId;
+        private final double[] slots;
+        private final int hash;
+
+        private Key(String equationId, double[] slots) {
+            this.equationId = equationId;
+            this.slots = slots;
+            this.hash = 31 * equationId.hashCode() + Arrays.hashCode(slots);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            // Arrays.equals compares doubleToLongBits, so NaN matches NaN and 0.0 differs from -0.0
+            return hash == key.hash && equationId.equals(key.equationId) && Arrays.equals(slots, key.slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Outcome {
+        private final double result;
+        private final String error;
+
+        private Outcome(double result, String error) {
+            this.result = result;
+            this.error = error;
+        }
+    }
+}
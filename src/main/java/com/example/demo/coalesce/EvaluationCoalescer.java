@@ -0,0 +1,310 @@
+package com.example.demo.coalesce;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Optional micro-batching of concurrent single evaluations of the same equation. The first
+ * caller to arrive for an equation becomes the leader of a new batch and waits up to the
+ * window for others to join; the batch closes early once it reaches the maximum size. The
+ * leader then evaluates every row in one batch pass on its own thread and wakes the others,
+ * so no extra threads are involved and each caller gets its own result or error.
+ *
+ * <p>A batch also closes as soon as it holds every caller in flight for its equation that
+ * could still join it, that is, every caller not already part of an earlier batch that has
+ * yet to finish. In particular a lone caller does not wait at all, and a fixed set of clients
+ * looping over one equation does not leave the CPU idle for the rest of the window. Locks are
+ * {@link ReentrantLock}s, not monitors, so waiting callers do not pin virtual threads.
+ */
+@Component
+public class EvaluationCoalescer {
+
+    public static final int MAX_BATCH_SIZE = 65_536;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private final Timer queueTime;
+
+    private EvaluationCoalescer() {
+        this.enabled = false;
+        this.windowNanos = 0;
+        this.maxBatchSize = 1;
+        this.batchSizes = null;
+        this.queueTime = null;
+    }
+
+    @Autowired
+    public EvaluationCoalescer(MeterRegistry registry,
+                               @Value("${equation.coalesce.enabled:false}") boolean enabled,
+                               @Value("${equation.coalesce.window-micros:200}") long windowMicros,
+                               @Value("${equation.coalesce.max-batch-size:256}") int maxBatchSize) {
+        if (windowMicros < 0) {
+            throw new IllegalArgumentException("equation.coalesce.window-micros cannot be negative");
+        }
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("equation.coalesce.max-batch-size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("equation.coalesce.batch.size")
+                .description("Single evaluations combined into one batch pass")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.queueTime = Timer.builder("equation.coalesce.queue")
+                .description("Time a coalesced evaluation waited for its batch to start")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public static EvaluationCoalescer disabled() {
+        return new EvaluationCoalescer();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Evaluates {@code slots} alone with {@code single} when nothing joins it, or as one row of
+     * a batch run with {@code batch}. All callers passing the same {@code equationId} must pass
+     * equivalent functions, since only the leader's are used.
+     */
+    public double evaluate(String equationId, double[] slots, ToDoubleFunction<double[]> single,
+            BatchFunction batch) {
+        if (!enabled) {
+            return single.applyAsDouble(slots);
+        }
+        Lane lane = lanes.computeIfAbsent(equationId, id -> new Lane());
+        lane.inFlight.incrementAndGet();
+        try {
+            return lane.evaluate(slots, single, batch);
+        } finally {
+            lane.inFlight.decrementAndGet();
+        }
+    }
+
+    public void invalidate(String equationId) {
+        lanes.remove(equationId);
+    }
+
+    /**
+     * Evaluates {@code rows} rows given as one column per variable slot.
+     */
+    @FunctionalInterface
+    public interface BatchFunction {
+        BatchEvaluation evaluate(double[][] slotColumns, int rows);
+    }
+
+    /**
+     * Per-equation state. At most one batch is open at a time; it is closed by its leader when
+     * the window ends or by the caller that fills it.
+     */
+    private final class Lane {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition filled = lock.newCondition();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Callers in closed batches that have not finished; they cannot join the open one
+        private final AtomicInteger settling = new AtomicInteger();
+        private Batch open;
+
+        private double evaluate(double[] slots, ToDoubleFunction<double[]> single, BatchFunction batchFunction) {
+            Batch batch;
+            int row;
+            boolean leader;
+            lock.lock();
+            try {
+                leader = open == null;
+                if (leader && joinable() == 1) {
+                    // Alone: nothing to wait for
+                    batch = null;
+                    row = 0;
+                } else {
+                    if (leader) {
+                        open = new Batch(maxBatchSize);
+                    }
+                    batch = open;
+                    row = batch.add(slots);
+                    // Close early once full or once every caller that could join has: nobody
+                    // else is coming until an earlier batch finishes
+                    if (batch.size == maxBatchSize || batch.size >= joinable()) {
+                        close(batch);
+                        filled.signalAll();
+                    }
+                    if (leader) {
+                        awaitWindow(batch);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (batch == null) {
+                batchSizes.record(1);
+                queueTime.record(0, TimeUnit.NANOSECONDS);
+                return single.applyAsDouble(slots);
+            }
+            if (leader) {
+                try {
+                    batch.run(single, batchFunction);
+                } finally {
+                    settling.addAndGet(-batch.size);
+                }
+            } else {
+                batch.await();
+            }
+            return batch.result(row);
+        }
+
+        /**
+         * Callers in flight that are not committed to an earlier batch, the current caller
+         * included.
+         */
+        private int joinable() {
+            return inFlight.get() - settling.get();
+        }
+
+        /**
+         * Stops {@code batch} taking callers. Must be called with the lock held.
+         */
+        private void close(Batch batch) {
+            open = null;
+            settling.addAndGet(batch.size);
+        }
+
+        /**
+         * Waits, with the lock held, until the window has passed or another caller fills the batch.
+         */
+        private void awaitWindow(Batch batch) {
+            long remaining = windowNanos;
+            boolean interrupted = false;
+            while (open == batch && remaining > 0) {
+                try {
+                    remaining = filled.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // Run the batch now; the others depend on it
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (open == batch) {
+                close(batch);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class Batch {
+        private double[][] rows;
+        private long[] enqueuedAt;
+        private int size;
+        private final CountDownLatch done = new CountDownLatch(1);
+        // Written by the leader before done is counted down
+        private double[] results;
+        private byte[] errors;
+        private RuntimeException failure;
+
+        private Batch(int maxBatchSize) {
+            int capacity = Math.min(maxBatchSize, 16);
+            this.rows = new double[capacity][];
+            this.enqueuedAt = new long[capacity];
+        }
+
+        private int add(double[] slots) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, Math.min(maxBatchSize, size * 2));
+                enqueuedAt = Arrays.copyOf(enqueuedAt, rows.length);
+            }
+            rows[size] = slots;
+            enqueuedAt[size] = System.nanoTime();
+            return size++;
+        }
+
+        private void run(ToDoubleFunction<double[]> single, BatchFunction batchFunction) {
+            long start = System.nanoTime();
+            batchSizes.record(size);
+            for (int i = 0; i < size; i++) {
+                queueTime.record(start - enqueuedAt[i], TimeUnit.NANOSECONDS);
+            }
+            try {
+                if (size == 1) {
+                    runSingle(single);
+                } else {
+                    int width = rows[0].length;
+                    double[][] columns = new double[width][size];
+                    for (int i = 0; i < size; i++) {
+                        for (int slot = 0; slot < width; slot++) {
+                            columns[slot][i] = rows[i][slot];
+                        }
+                    }
+                    BatchEvaluation evaluation = batchFunction.evaluate(columns, size);
+                    results = evaluation.getResults();
+                    errors = evaluation.getErrors();
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void runSingle(ToDoubleFunction<double[]> single) {
+            results = new double[1];
+            errors = new byte[1];
+            try {
+                results[0] = single.applyAsDouble(rows[0]);
+            } catch (ArithmeticException e) {
+                errors[0] = CompiledExpression.ROW_DIVISION_BY_ZERO;
+            }
+        }
+
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // The leader is already running this row; wait for it regardless
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private double result(int row) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (errors[row] == CompiledExpression.ROW_DIVISION_BY_ZERO) {
+                throw new ArithmeticException("Division by zero");
+            }
+            return results[row];
+        }
+    }
+}
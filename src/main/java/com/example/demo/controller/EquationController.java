@@ -1,9 +1,17 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,19 +19,60 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.dto.BoundsRequest;
+import com.example.demo.dto.BoundsResponse;
 import com.example.demo.dto.EquationListResponse;
 import com.example.demo.dto.EquationListResponse.EquationDto;
+import com.example.demo.dto.EquationStatsResponse;
+import com.example.demo.dto.EquationVariablesResponse;
+import com.example.demo.dto.EvaluateBatchRequest;
+import com.example.demo.dto.EvaluateBatchResponse;
 import com.example.demo.dto.EvaluateEquationRequest;
 import com.example.demo.dto.EvaluateEquationResponse;
+import com.example.demo.dto.EvaluateManyRequest;
+import com.example.demo.dto.EvaluateManyResponse;
+import com.example.demo.dto.EvaluateVectorRequest;
+import com.example.demo.dto.EvaluateVectorResponse;
+import com.example.demo.dto.GradientRequest;
+import com.example.demo.dto.GradientResponse;
+import com.example.demo.dto.SolveBatchRequest;
+import com.example.demo.dto.SolveBatchResponse;
+import com.example.demo.dto.SolveBatchResponse.SolveResult;
+import com.example.demo.dto.SolveRequest;
+import com.example.demo.dto.SolveResponse;
 import com.example.demo.dto.StoreEquationRequest;
 import com.example.demo.dto.StoreEquationResponse;
+import com.example.demo.dto.SweepRequest;
+import com.example.demo.dto.ThresholdRequest;
+import com.example.demo.dto.ThresholdResponse;
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
 import com.example.demo.model.Equation;
+import com.example.demo.model.EquationStats;
+import com.example.demo.model.GradientEvaluation;
+import com.example.demo.model.Interval;
+import com.example.demo.model.MultiEvaluation;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.RootSolution;
+import com.example.demo.model.SolveBatch;
+import com.example.demo.model.SolveParameters;
+import com.example.demo.model.SweepAxis;
+import com.example.demo.model.SweepFormat;
+import com.example.demo.model.ThresholdSearch;
 import com.example.demo.service.EquationService;
+import com.example.demo.util.IntervalSearch;
+import com.example.demo.util.ParameterSweep;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/equations")
 public class EquationController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String SWEEP_SHAPE_HEADER = "X-Sweep-Shape";
+    
     private final EquationService equationService;
     
     public EquationController(EquationService equationService) {
@@ -32,7 +81,9 @@ public class EquationController {
     
     @PostMapping("/store")
     public ResponseEntity<StoreEquationResponse> storeEquation(@RequestBody StoreEquationRequest request) {
-        String equationId = equationService.storeEquation(request.getEquation());
+        String equationId = Boolean.TRUE.equals(request.getDeduplicate())
+                ? equationService.storeEquation(request.getEquation(), true)
+                : equationService.storeEquation(request.getEquation());
         StoreEquationResponse response = new StoreEquationResponse("Equation stored successfully", equationId);
         return ResponseEntity.ok(response);
     }
@@ -53,7 +104,7 @@ public class EquationController {
             @PathVariable String equationId,
             @RequestBody EvaluateEquationRequest request) {
         Equation equation = equationService.getEquationById(equationId);
-        double result = equationService.evaluateEquation(equationId, request.getVariables());
+        double result = equationService.evaluateEquation(equation, request.getVariables());
         
         EvaluateEquationResponse response = new EvaluateEquationResponse(
                 equationId,
@@ -64,4 +115,290 @@ public class EquationController {
         
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Evaluates the listed equations, or all stored equations when no IDs are given, against
+     * one set of variable values. Per-equation failures are returned in {@code errors}.
+     */
+    @PostMapping("/evaluate")
+    public ResponseEntity<EvaluateManyResponse> evaluateEquations(@RequestBody EvaluateManyRequest request) {
+        MultiEvaluation evaluation = equationService.evaluateEquations(request.getEquationIds(), request.getVariables());
+        
+        Map<String, Double> results = new LinkedHashMap<>();
+        Map<String, String> errors = evaluation.getErrorCount() > 0 ? new LinkedHashMap<>() : null;
+        for (int i = 0; i < evaluation.getCount(); i++) {
+            String equationId = evaluation.getEquationIds()[i];
+            String error = evaluation.getErrors()[i];
+            if (error == null) {
+                results.put(equationId, evaluation.getResults()[i]);
+            } else {
+                errors.put(String.valueOf(equationId), error);
+            }
+        }
+        
+        return ResponseEntity.ok(new EvaluateManyResponse(evaluation.getCount(), results, evaluation.getErrorCount(), errors));
+    }
+    
+    @DeleteMapping("/{equationId}")
+    public ResponseEntity<Void> deleteEquation(@PathVariable String equationId) {
+        equationService.deleteEquation(equationId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/{equationId}/variables")
+    public ResponseEntity<EquationVariablesResponse> getVariables(@PathVariable String equationId) {
+        Equation equation = equationService.getEquationById(equationId);
+        return ResponseEntity.ok(new EquationVariablesResponse(equationId, equation.getVariables()));
+    }
+    
+    @GetMapping("/{equationId}/stats")
+    public ResponseEntity<EquationStatsResponse> getStats(@PathVariable String equationId) {
+        Equation equation = equationService.getEquationById(equationId);
+        EquationStats stats = equation.getStats() != null ? equation.getStats() : new EquationStats();
+        CompiledExpression compiled = equation.getCompiledExpression();
+        
+        EquationStatsResponse response = new EquationStatsResponse(
+                equationId,
+                stats.getParsedNodeCount(),
+                stats.getOptimizedNodeCount(),
+                stats.getDagNodeCount(),
+                stats.getEliminatedNodeCount(),
+                compiled != null ? compiled.getTempCount() : 0,
+                compiled != null ? compiled.getInstructionCount() : 0,
+                equation.getJitEvaluator() != null ? "compiled" : "interpreted"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/{equationId}/evaluate/vector")
+    public ResponseEntity<EvaluateVectorResponse> evaluateVector(
+            @PathVariable String equationId,
+            @RequestBody EvaluateVectorRequest request) {
+        double result = equationService.evaluateEquation(equationId, request.getValues());
+        return ResponseEntity.ok(new EvaluateVectorResponse(equationId, result));
+    }
+    
+    @PostMapping("/{equationId}/gradient")
+    public ResponseEntity<GradientResponse> evaluateGradient(
+            @PathVariable String equationId,
+            @RequestBody GradientRequest request) {
+        GradientEvaluation evaluation = equationService.evaluateGradient(
+                equationId, request.getVariables(), request.getWithRespectTo());
+        
+        Map<String, Double> gradient = new LinkedHashMap<>();
+        for (int i = 0; i < evaluation.getVariables().length; i++) {
+            gradient.put(evaluation.getVariables()[i], evaluation.getGradient()[i]);
+        }
+        
+        return ResponseEntity.ok(new GradientResponse(equationId, evaluation.getValue(), gradient));
+    }
+    
+    @PostMapping("/{equationId}/solve")
+    public ResponseEntity<SolveResponse> solve(
+            @PathVariable String equationId,
+            @RequestBody SolveRequest request) {
+        SolveParameters parameters = solveParameters(request.getVariable(), request.getTarget(),
+                request.getInitialGuess(), request.getLower(), request.getUpper(),
+                request.getTolerance(), request.getMaxIterations());
+        RootSolution solution = equationService.solve(equationId, parameters, request.getVariables());
+        
+        SolveResponse response = new SolveResponse(
+                equationId,
+                request.getVariable(),
+                solution.getRoot(),
+                solution.getResidual(),
+                solution.getIterations(),
+                solution.isConverged(),
+                solution.getMethod()
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/{equationId}/solve/batch")
+    public ResponseEntity<SolveBatchResponse> solveBatch(
+            @PathVariable String equationId,
+            @RequestBody SolveBatchRequest request) {
+        SolveParameters parameters = solveParameters(request.getVariable(), request.getTarget(),
+                request.getInitialGuess(), request.getLower(), request.getUpper(),
+                request.getTolerance(), request.getMaxIterations());
+        SolveBatch batch = equationService.solveBatch(equationId, parameters, request.getParameterSets());
+        
+        List<SolveResult> results = new ArrayList<>(batch.getSolutions().length);
+        for (int i = 0; i < batch.getSolutions().length; i++) {
+            RootSolution solution = batch.getSolutions()[i];
+            results.add(solution == null
+                    ? new SolveResult(null, null, null, null, null, batch.getErrors()[i])
+                    : new SolveResult(solution.getRoot(), solution.getResidual(), solution.getIterations(),
+                            solution.isConverged(), solution.getMethod(), null));
+        }
+        
+        SolveBatchResponse response = new SolveBatchResponse(
+                equationId,
+                request.getVariable(),
+                results.size(),
+                batch.getErrorCount(),
+                results
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    private static SolveParameters solveParameters(String variable, Double target, Double initialGuess,
+            Double lower, Double upper, Double tolerance, Integer maxIterations) {
+        return new SolveParameters(
+                variable,
+                target != null ? target : 0.0,
+                initialGuess,
+                lower,
+                upper,
+                tolerance != null ? tolerance : SolveParameters.DEFAULT_TOLERANCE,
+                maxIterations != null ? maxIterations : SolveParameters.DEFAULT_MAX_ITERATIONS
+        );
+    }
+    
+    /**
+     * Encloses the minimum and maximum of the equation over a box of variable ranges.
+     */
+    @PostMapping("/{equationId}/bounds")
+    public ResponseEntity<BoundsResponse> bounds(
+            @PathVariable String equationId,
+            @RequestBody BoundsRequest request) {
+        RangeBounds bounds = equationService.findRange(equationId, box(request.getBox()), request.getVariables(),
+                request.getTolerance() != null ? request.getTolerance() : IntervalSearch.DEFAULT_TOLERANCE,
+                request.getMaxBoxes() != null ? request.getMaxBoxes() : IntervalSearch.DEFAULT_MAX_BOXES);
+        
+        BoundsResponse response = new BoundsResponse(
+                equationId,
+                new double[] {bounds.getMinimum().getLower(), bounds.getMinimum().getUpper()},
+                new double[] {bounds.getMaximum().getLower(), bounds.getMaximum().getUpper()},
+                bounds.getMinimumAt(),
+                bounds.getMaximumAt(),
+                bounds.getBoxesEvaluated(),
+                bounds.isConverged()
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Searches a box of variable ranges for a point where the equation is above (or below) a
+     * threshold, or proves there is none.
+     */
+    @PostMapping("/{equationId}/threshold")
+    public ResponseEntity<ThresholdResponse> threshold(
+            @PathVariable String equationId,
+            @RequestBody ThresholdRequest request) {
+        if (request.getThreshold() == null) {
+            throw new IllegalArgumentException("Threshold is required");
+        }
+        String direction = request.getDirection() == null ? "above" : request.getDirection().toLowerCase(Locale.ROOT);
+        if (!direction.equals("above") && !direction.equals("below")) {
+            throw new IllegalArgumentException("Unknown direction: " + request.getDirection() + " (expected above or below)");
+        }
+        ThresholdSearch search = equationService.searchThreshold(equationId, box(request.getBox()),
+                request.getVariables(), request.getThreshold(), direction.equals("above"),
+                request.getMaxBoxes() != null ? request.getMaxBoxes() : IntervalSearch.DEFAULT_MAX_BOXES);
+        
+        ThresholdResponse response = new ThresholdResponse(
+                equationId,
+                search.getOutcome().name().toLowerCase(Locale.ROOT),
+                search.getWitness(),
+                search.getValue(),
+                search.getBound(),
+                search.getBoxesEvaluated()
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    private static Map<String, Interval> box(Map<String, double[]> ranges) {
+        if (ranges == null) {
+            return null;
+        }
+        Map<String, Interval> box = new LinkedHashMap<>();
+        for (Map.Entry<String, double[]> range : ranges.entrySet()) {
+            if (range.getValue() == null || range.getValue().length != 2) {
+                throw new IllegalArgumentException("Range of " + range.getKey() + " must be [lower, upper]");
+            }
+            box.put(range.getKey(), new Interval(range.getValue()[0], range.getValue()[1]));
+        }
+        return box;
+    }
+    
+    @PostMapping("/{equationId}/evaluate/batch")
+    public ResponseEntity<EvaluateBatchResponse> evaluateBatch(
+            @PathVariable String equationId,
+            @RequestBody EvaluateBatchRequest request) {
+        BatchEvaluation batch = equationService.evaluateBatch(equationId, request.getVariables());
+        
+        int[] errorCodes = null;
+        if (batch.getErrorCount() > 0) {
+            errorCodes = new int[batch.getRows()];
+            for (int i = 0; i < errorCodes.length; i++) {
+                errorCodes[i] = batch.getErrors()[i];
+            }
+        }
+        
+        EvaluateBatchResponse response = new EvaluateBatchResponse(
+                equationId,
+                batch.getRows(),
+                batch.getResults(),
+                batch.getErrorCount(),
+                errorCodes
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Evaluates newline-delimited JSON rows from the request body and streams NDJSON results
+     * back as they are computed, without buffering either side.
+     */
+    @PostMapping("/{equationId}/evaluate/stream")
+    public void evaluateStream(
+            @PathVariable String equationId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        // Fails with 400 before any output is committed if the equation does not exist
+        equationService.getEquationById(equationId);
+        response.setContentType(NDJSON);
+        equationService.evaluateStream(equationId, request.getInputStream(), response.getOutputStream());
+    }
+    
+    /**
+     * Evaluates the equation over a server-generated grid and streams the results. The grid
+     * dimensions are returned in the {@code X-Sweep-Shape} header, outermost axis first.
+     */
+    @PostMapping("/{equationId}/sweep")
+    public void sweep(
+            @PathVariable String equationId,
+            @RequestBody SweepRequest request,
+            HttpServletResponse response) throws IOException {
+        SweepFormat format = sweepFormat(request.getFormat());
+        List<SweepAxis> axes = request.getAxes() == null ? null : request.getAxes().stream()
+                .map(axis -> axis == null ? null
+                        : new SweepAxis(axis.getVariable(), axis.getFrom(), axis.getTo(), axis.getSteps()))
+                .collect(Collectors.toList());
+        // Validated before anything is written, so errors still get a 400 response
+        ParameterSweep sweep = equationService.prepareSweep(equationId, axes, request.getVariables());
+        
+        response.setContentType(format == SweepFormat.BINARY ? MediaType.APPLICATION_OCTET_STREAM_VALUE : NDJSON);
+        response.setHeader(SWEEP_SHAPE_HEADER, Arrays.stream(sweep.getShape())
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",")));
+        sweep.write(format, response.getOutputStream());
+    }
+    
+    private static SweepFormat sweepFormat(String format) {
+        if (format == null) {
+            return SweepFormat.NDJSON;
+        }
+        try {
+            return SweepFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sweep format: " + format + " (expected ndjson or binary)");
+        }
+    }
+}
\ No newline at end of file
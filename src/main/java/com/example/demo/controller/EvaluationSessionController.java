@@ -0,0 +1,69 @@
+package com.example.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.dto.EvaluateEquationRequest;
+import com.example.demo.dto.SessionResponse;
+import com.example.demo.session.EvaluationSessionStore;
+import com.example.demo.session.SessionState;
+
+/**
+ * What-if sessions: open a session with full bindings, then send only the variables that
+ * changed. Each update recomputes just the part of the equation that depends on them.
+ */
+@RestController
+@RequestMapping("/api/equations")
+public class EvaluationSessionController {
+    
+    private final EvaluationSessionStore sessionStore;
+    
+    public EvaluationSessionController(EvaluationSessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+    
+    @PostMapping("/{equationId}/sessions")
+    public ResponseEntity<SessionResponse> openSession(
+            @PathVariable String equationId,
+            @RequestBody EvaluateEquationRequest request) {
+        return ResponseEntity.ok(toResponse(sessionStore.open(equationId, request.getVariables())));
+    }
+    
+    @PatchMapping("/sessions/{sessionId}")
+    public ResponseEntity<SessionResponse> updateSession(
+            @PathVariable String sessionId,
+            @RequestBody Map<String, Double> changes) {
+        return ResponseEntity.ok(toResponse(sessionStore.update(sessionId, changes)));
+    }
+    
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<SessionResponse> getSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok(toResponse(sessionStore.current(sessionId)));
+    }
+    
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        sessionStore.close(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    private static SessionResponse toResponse(SessionState state) {
+        return new SessionResponse(
+                state.getSessionId(),
+                state.getEquationId(),
+                state.getVariables(),
+                state.isDivisionByZero() ? null : state.getResult(),
+                state.isDivisionByZero() ? "Arithmetic error: Division by zero" : null,
+                state.getRecomputedNodes()
+        );
+    }
+}
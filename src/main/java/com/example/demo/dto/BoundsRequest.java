@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoundsRequest {
+    // Range of each searched variable as [lower, upper]
+    private Map<String, double[]> box;
+    // Values of the variables that are not searched
+    private Map<String, Double> variables;
+    private Double tolerance;
+    private Integer maxBoxes;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BoundsResponse {
+    private String equationId;
+    // Enclosures [lower, upper] of the minimum and maximum
+    private double[] minimum;
+    private double[] maximum;
+    private Map<String, Double> minimumAt;
+    private Map<String, Double> maximumAt;
+    private int boxesEvaluated;
+    private boolean converged;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquationStatsResponse {
+    private String equationId;
+    private int parsedNodeCount;
+    private int optimizedNodeCount;
+    private int dagNodeCount;
+    private int eliminatedNodeCount;
+    private int sharedSubexpressionCount;
+    private int instructionCount;
+    private String executionTier;
+}
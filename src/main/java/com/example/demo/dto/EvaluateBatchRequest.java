@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluateBatchRequest {
+    private Map<String, double[]> variables;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EvaluateBatchResponse {
+    private String equationId;
+    private int rows;
+    private double[] results;
+    private int errorCount;
+    private int[] errorCodes;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluateManyRequest {
+    // Null evaluates every stored equation
+    private List<String> equationIds;
+    private Map<String, Double> variables;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EvaluateManyResponse {
+    private int evaluated;
+    private Map<String, Double> results;
+    private int errorCount;
+    private Map<String, String> errors;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradientRequest {
+    private Map<String, Double> variables;
+    // Variables to differentiate with respect to; null means all of the equation's variables
+    private List<String> withRespectTo;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradientResponse {
+    private String equationId;
+    private double value;
+    private Map<String, Double> gradient;
+}
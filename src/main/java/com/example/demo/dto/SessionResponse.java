@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionResponse {
+    private String sessionId;
+    private String equationId;
+    private Map<String, Double> variables;
+    // Null when the current bindings fail to evaluate; error explains why
+    private Double result;
+    private String error;
+    private int recomputedNodes;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveBatchRequest {
+    private String variable;
+    // One solve per entry, each with its own values of the remaining variables
+    private List<Map<String, Double>> parameterSets;
+    private Double target;
+    private Double initialGuess;
+    private Double lower;
+    private Double upper;
+    private Double tolerance;
+    private Integer maxIterations;
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveBatchResponse {
+    private String equationId;
+    private String variable;
+    private int count;
+    private int errorCount;
+    private List<SolveResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class SolveResult {
+        private Double root;
+        private Double residual;
+        private Integer iterations;
+        private Boolean converged;
+        private String method;
+        private String error;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveRequest {
+    // The unknown to solve for
+    private String variable;
+    // Values of the remaining variables
+    private Map<String, Double> variables;
+    // Defaults to 0
+    private Double target;
+    private Double initialGuess;
+    private Double lower;
+    private Double upper;
+    private Double tolerance;
+    private Integer maxIterations;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveResponse {
+    private String equationId;
+    private String variable;
+    private double root;
+    private double residual;
+    private int iterations;
+    private boolean converged;
+    private String method;
+}
@@ -9,4 +9,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class StoreEquationRequest {
     private String equation;
+    private Boolean deduplicate;
+    
+    public StoreEquationRequest(String equation) {
+        this.equation = equation;
+    }
 } 
\ No newline at end of file
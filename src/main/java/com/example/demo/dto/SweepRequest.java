@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepRequest {
+    // Outermost first; the last axis changes fastest
+    private List<Axis> axes;
+    // Values of the variables that are not swept
+    private Map<String, Double> variables;
+    // "ndjson" (default) or "binary"
+    private String format;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Axis {
+        private String variable;
+        private double from;
+        private double to;
+        private int steps;
+    }
+}
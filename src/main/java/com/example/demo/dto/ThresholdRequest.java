@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThresholdRequest {
+    // Range of each searched variable as [lower, upper]
+    private Map<String, double[]> box;
+    // Values of the variables that are not searched
+    private Map<String, Double> variables;
+    private Double threshold;
+    // "above" (default) or "below"
+    private String direction;
+    private Integer maxBoxes;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ThresholdResponse {
+    private String equationId;
+    // "found", "none" or "unknown"
+    private String outcome;
+    private Map<String, Double> witness;
+    private Double value;
+    private Double bound;
+    private int boxesEvaluated;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.exception;
+
+public class EquationParseException extends IllegalArgumentException {
+
+    private final int position;
+
+    public EquationParseException(String message, int position) {
+        super(message);
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
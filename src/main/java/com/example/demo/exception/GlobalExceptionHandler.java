@@ -8,11 +8,29 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.example.demo.metrics.EquationMetrics;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final EquationMetrics equationMetrics;
+
+    public GlobalExceptionHandler(EquationMetrics equationMetrics) {
+        this.equationMetrics = equationMetrics;
+    }
+
+    @ExceptionHandler(EquationParseException.class)
+    public ResponseEntity<Map<String, Object>> handleEquationParseException(EquationParseException e) {
+        equationMetrics.recordIllegalArgument();
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", e.getMessage());
+        errorResponse.put("position", e.getPosition());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        equationMetrics.recordIllegalArgument();
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", e.getMessage());
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
@@ -20,6 +38,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ArithmeticException.class)
     public ResponseEntity<Map<String, String>> handleArithmeticException(ArithmeticException e) {
+        equationMetrics.recordArithmeticError();
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", "Arithmetic error: " + e.getMessage());
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
@@ -27,6 +46,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        equationMetrics.recordUnexpectedError();
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", "An unexpected error occurred: " + e.getMessage());
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,137 @@
+package com.example.demo.jit;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.ExpressionEvaluator;
+
+/**
+ * Translates a {@link CompiledExpression} program into the bytecode of a class implementing
+ * {@link ExpressionEvaluator}. The generated method is straight-line code: operand stack
+ * instructions map one-to-one onto JVM stack instructions and temps onto local variables.
+ */
+final class EvaluatorClassGenerator {
+
+    static final String CLASS_NAME = "com/example/demo/jit/GeneratedEvaluator";
+
+    /**
+     * HotSpot does not JIT methods above 8000 bytes of bytecode (-XX:-DontCompileHugeMethods),
+     * and an interpreted generated method is slower than the array interpreter.
+     */
+    static final int MAX_BYTECODE_SIZE = 8000;
+
+    private static final String RUNTIME = Type.getInternalName(JitRuntime.class);
+
+    private EvaluatorClassGenerator() {
+    }
+
+    static boolean canCompile(CompiledExpression program) {
+        return estimateBytecodeSize(program) <= MAX_BYTECODE_SIZE;
+    }
+
+    static int estimateBytecodeSize(CompiledExpression program) {
+        int size = 1;
+        for (int pc = 0; pc < program.getInstructionCount(); pc++) {
+            switch (program.opcodeAt(pc)) {
+                case CompiledExpression.CONST: size += 3; break;
+                case CompiledExpression.LOAD: size += 5; break;
+                case CompiledExpression.DIV:
+                case CompiledExpression.POW: size += 3; break;
+                case CompiledExpression.STORE_TEMP: size += 3; break;
+                case CompiledExpression.LOAD_TEMP: size += 2; break;
+                default: size += 1; break;
+            }
+        }
+        return size;
+    }
+
+    static byte[] generate(CompiledExpression program) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null,
+                "java/lang/Object", new String[] {Type.getInternalName(ExpressionEvaluator.class)});
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, "evaluate", "([D)D", null, null);
+        method.visitCode();
+        for (int pc = 0; pc < program.getInstructionCount(); pc++) {
+            int operand = program.operandAt(pc);
+            switch (program.opcodeAt(pc)) {
+                case CompiledExpression.CONST:
+                    pushConstant(method, program.constantAt(operand));
+                    break;
+                case CompiledExpression.LOAD:
+                    method.visitVarInsn(Opcodes.ALOAD, 1);
+                    pushInt(method, operand);
+                    method.visitInsn(Opcodes.DALOAD);
+                    break;
+                case CompiledExpression.ADD:
+                    method.visitInsn(Opcodes.DADD);
+                    break;
+                case CompiledExpression.SUB:
+                    method.visitInsn(Opcodes.DSUB);
+                    break;
+                case CompiledExpression.MUL:
+                    method.visitInsn(Opcodes.DMUL);
+                    break;
+                case CompiledExpression.DIV:
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, RUNTIME, "divide", "(DD)D", false);
+                    break;
+                case CompiledExpression.POW:
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", false);
+                    break;
+                case CompiledExpression.STORE_TEMP:
+                    method.visitInsn(Opcodes.DUP2);
+                    method.visitVarInsn(Opcodes.DSTORE, tempLocal(operand));
+                    break;
+                case CompiledExpression.LOAD_TEMP:
+                    method.visitVarInsn(Opcodes.DLOAD, tempLocal(operand));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + program.opcodeAt(pc));
+            }
+        }
+        method.visitInsn(Opcodes.DRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static int tempLocal(int temp) {
+        // Slot 0 is this, slot 1 the slots array; doubles take two local slots each
+        return 2 + 2 * temp;
+    }
+
+    private static void pushConstant(MethodVisitor method, double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            method.visitInsn(Opcodes.DCONST_0);
+        } else if (value == 1.0) {
+            method.visitInsn(Opcodes.DCONST_1);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    private static void pushInt(MethodVisitor method, int value) {
+        if (value <= 5) {
+            method.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.jit;
+
+/**
+ * Helpers called from generated evaluator classes. Kept tiny so the JIT inlines them.
+ */
+public final class JitRuntime {
+
+    private JitRuntime() {
+    }
+
+    public static double divide(double dividend, double divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return dividend / divisor;
+    }
+}
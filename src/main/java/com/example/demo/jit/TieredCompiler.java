@@ -0,0 +1,114 @@
+package com.example.demo.jit;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.model.ExpressionEvaluator;
+
+/**
+ * Second execution tier. Equations start on the {@link CompiledExpression} interpreter; once
+ * one has been evaluated {@code equation.jit.threshold} times it is translated to bytecode on
+ * a background thread and loaded as a hidden class, which HotSpot can then inline and compile
+ * like hand-written arithmetic. The generated evaluator is published through the equation's
+ * volatile {@code jitEvaluator} field, so callers switch over atomically.
+ *
+ * <p>Hidden classes are defined without {@code STRONG}, so a generated class is unloaded as
+ * soon as the equation that references it is removed and collected.
+ */
+@Component
+public class TieredCompiler {
+
+    public static final long DEFAULT_THRESHOLD = 10_000;
+
+    private final boolean enabled;
+    private final long threshold;
+    private final ExecutorService executor;
+
+    public TieredCompiler() {
+        this(true, DEFAULT_THRESHOLD);
+    }
+
+    @Autowired
+    public TieredCompiler(@Value("${equation.jit.enabled:true}") boolean enabled,
+                          @Value("${equation.jit.threshold:10000}") long threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "equation-jit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Called after each interpreted evaluation; queues the equation for compilation once it
+     * crosses the threshold. Cheap on the hot path: the counter is only summed until queued.
+     */
+    public void recordEvaluation(Equation equation) {
+        if (!enabled || equation.getJitQueued().get() || equation.getCompiledExpression() == null) {
+            return;
+        }
+        if (equation.getEvaluationCount().sum() < threshold || !equation.getJitQueued().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> compileInto(equation));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; stay on the interpreter
+        }
+    }
+
+    /**
+     * Compiles {@code equation} on the calling thread. Returns false if the program is too
+     * large for the JIT to be worthwhile.
+     */
+    public boolean compileInto(Equation equation) {
+        try {
+            ExpressionEvaluator evaluator = compile(equation.getCompiledExpression());
+            if (evaluator == null) {
+                return false;
+            }
+            equation.setJitEvaluator(evaluator);
+            return true;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // The interpreter remains correct; a failed compile only costs speed
+            return false;
+        }
+    }
+
+    /**
+     * Generates and loads an evaluator for {@code program}, or returns null if it exceeds
+     * {@link EvaluatorClassGenerator#MAX_BYTECODE_SIZE}.
+     */
+    public static ExpressionEvaluator compile(CompiledExpression program) throws ReflectiveOperationException {
+        if (!EvaluatorClassGenerator.canCompile(program)) {
+            return null;
+        }
+        byte[] bytecode = EvaluatorClassGenerator.generate(program);
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+        return (ExpressionEvaluator) lookup.lookupClass().getDeclaredConstructor().newInstance();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.model.EquationStats;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.RootSolution;
+import com.example.demo.repository.EquationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Micrometer instrumentation for the parse, store, evaluate and solve paths. Per-equation
+ * evaluation counts are kept on each {@link Equation} and only the top
+ * {@value #TOP_EQUATIONS} are published, so tag cardinality stays bounded.
+ */
+@Component
+public class EquationMetrics {
+
+    public static final int TOP_EQUATIONS = 10;
+
+    private final MeterRegistry registry;
+    private final EquationRepository equationRepository;
+    private final Timer parseTimer;
+    private final Timer storeTimer;
+    private final Timer evaluateTimer;
+    private final Timer batchEvaluateTimer;
+    private final Timer convergedSolveTimer;
+    private final Timer unconvergedSolveTimer;
+    private final Timer failedSolveTimer;
+    private final DistributionSummary solveIterations;
+    private final Counter illegalArgumentErrors;
+    private final Counter arithmeticErrors;
+    private final Counter unexpectedErrors;
+    private final LongAdder estimatedHeapBytes = new LongAdder();
+    private final MultiGauge topEvaluations;
+    private final AtomicLong recoveredEquations = new AtomicLong();
+    private final AtomicLong recoveryNanos = new AtomicLong();
+
+    public EquationMetrics(EquationRepository equationRepository) {
+        this(new SimpleMeterRegistry(), equationRepository);
+    }
+
+    @Autowired
+    public EquationMetrics(MeterRegistry registry, EquationRepository equationRepository) {
+        this.registry = registry;
+        this.equationRepository = equationRepository;
+
+        this.parseTimer = timer("equation.parse", "Time to parse an equation into an expression tree", "single");
+        this.storeTimer = timer("equation.store", "Time to parse, optimize, compile and store an equation", "single");
+        this.evaluateTimer = timer("equation.evaluate", "Time to evaluate a stored equation", "single");
+        this.batchEvaluateTimer = timer("equation.evaluate", "Time to evaluate a stored equation", "batch");
+        this.convergedSolveTimer = solveTimer("converged");
+        this.unconvergedSolveTimer = solveTimer("not_converged");
+        this.failedSolveTimer = solveTimer("failed");
+        this.solveIterations = DistributionSummary.builder("equation.solve.iterations")
+                .description("Iterations taken by one root-finding solve")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        this.illegalArgumentErrors = errorCounter("illegal_argument");
+        this.arithmeticErrors = errorCounter("arithmetic");
+        this.unexpectedErrors = errorCounter("unexpected");
+
+        Gauge.builder("equation.stored", equationRepository, EquationRepository::count)
+                .description("Number of stored equations")
+                .register(registry);
+        Gauge.builder("equation.heap.estimated.bytes", estimatedHeapBytes, LongAdder::sum)
+                .description("Estimated heap retained by stored equations")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("equation.heap.estimated.bytes.per.equation", this, EquationMetrics::getEstimatedBytesPerEquation)
+                .description("Estimated heap retained per stored equation")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("equation.recovery.equations", recoveredEquations, AtomicLong::get)
+                .description("Equations reloaded from disk at startup")
+                .register(registry);
+        TimeGauge.builder("equation.recovery.duration", recoveryNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .description("Time to reload persisted equations at startup")
+                .register(registry);
+        this.topEvaluations = MultiGauge.builder("equation.evaluations.top")
+                .description("Evaluation counts of the most evaluated equations")
+                .register(registry);
+    }
+
+    private Timer timer(String name, String description, String mode) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer solveTimer(String outcome) {
+        return Timer.builder("equation.solve")
+                .description("Time to solve a stored equation for one variable")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter errorCounter(String type) {
+        return Counter.builder("equation.errors")
+                .description("Request errors by exception type")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    public Timer getParseTimer() {
+        return parseTimer;
+    }
+
+    public Timer getStoreTimer() {
+        return storeTimer;
+    }
+
+    public void recordStored(Equation equation) {
+        estimatedHeapBytes.add(estimateHeapBytes(equation));
+    }
+
+    /**
+     * Undoes {@link #recordStored(Equation)} for an equation removed from the repository.
+     */
+    public void recordDeleted(Equation equation) {
+        estimatedHeapBytes.add(-estimateHeapBytes(equation));
+    }
+
+    public void recordEvaluation(Equation equation, long elapsedNanos) {
+        equation.getEvaluationCount().increment();
+        evaluateTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatchEvaluation(Equation equation, int rows, long elapsedNanos) {
+        equation.getEvaluationCount().add(rows);
+        batchEvaluateTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a finished solve. Its iterations count as evaluations of the equation, but not
+     * toward the {@code equation.evaluate} timers.
+     */
+    public void recordSolve(Equation equation, RootSolution solution, long elapsedNanos) {
+        equation.getEvaluationCount().add(solution.getIterations());
+        solveIterations.record(solution.getIterations());
+        (solution.isConverged() ? convergedSolveTimer : unconvergedSolveTimer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a solve that threw, such as one whose bracket has no sign change.
+     */
+    public void recordFailedSolve(long elapsedNanos) {
+        failedSolveTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRecovery(int equations, long elapsedNanos) {
+        recoveredEquations.set(equations);
+        recoveryNanos.set(elapsedNanos);
+    }
+
+    public void recordIllegalArgument() {
+        illegalArgumentErrors.increment();
+    }
+
+    public void recordArithmeticError() {
+        arithmeticErrors.increment();
+    }
+
+    public void recordUnexpectedError() {
+        unexpectedErrors.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${equation.metrics.top-refresh-ms:15000}")
+    public void refreshTopEvaluations() {
+        List<Equation> equations = new ArrayList<>(equationRepository.findAll());
+        equations.sort(Comparator.comparingLong((Equation equation) -> equation.getEvaluationCount().sum()).reversed());
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (Equation equation : equations.subList(0, Math.min(TOP_EQUATIONS, equations.size()))) {
+            long count = equation.getEvaluationCount().sum();
+            if (count == 0) {
+                break;
+            }
+            rows.add(MultiGauge.Row.of(Tags.of("equationId", equation.getEquationId()), count));
+        }
+        topEvaluations.register(rows, true);
+    }
+
+    public double getEstimatedBytesPerEquation() {
+        int count = equationRepository.count();
+        return count == 0 ? 0 : (double) estimatedHeapBytes.sum() / count;
+    }
+
+    /**
+     * Rough upper bound on the heap retained by one equation, assuming compressed oops.
+     * Tree nodes are counted as if none were shared with other equations.
+     */
+    public static long estimateHeapBytes(Equation equation) {
+        long bytes = 24 + 24 + 40;
+        if (equation.getEquation() != null) {
+            bytes += 40 + equation.getEquation().length();
+        }
+        PackedExpressionTree packedTree = equation.getPackedTree();
+        EquationStats stats = equation.getStats();
+        if (packedTree != null) {
+            // Opcode, left and right arrays, constant pool and variable name references
+            bytes += 24 + 3 * 16 + 9L * packedTree.getNodeCount();
+            bytes += 16 + 8L * packedTree.getConstantCount() + 16 + 4L * packedTree.getVariables().size();
+        } else if (stats != null) {
+            // TreeNode plus its hash-consing key and map entry
+            bytes += 32 + 88L * stats.getDagNodeCount();
+        }
+        CompiledExpression compiled = equation.getCompiledExpression();
+        if (compiled != null) {
+            bytes += 40 + 2 * (16 + 4L * compiled.getInstructionCount());
+            bytes += 16 + 8L * compiled.getInstructionCount();
+            bytes += 16 + 4L * compiled.getVariableCount();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEvaluation {
+    private double[] results;
+    private byte[] errors;
+    private int errorCount;
+
+    public int getRows() {
+        return results == null ? 0 : results.length;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.demo.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flat postfix program compiled from an {@link ExpressionTree}.
+ * Instructions are stored as parallel opcode/operand arrays, numeric literals are
+ * pre-parsed into a constant pool and variables are resolved to slot indices, so
+ * evaluation needs no string handling and runs on a primitive operand stack.
+ * Subexpressions shared in the tree (a DAG after hash-consing) are computed once per
+ * evaluation: the first occurrence stores its value in a temp register and later
+ * occurrences load it.
+ */
+public final class CompiledExpression implements ExpressionEvaluator {
+
+    public static final int CONST = 0;
+    public static final int LOAD = 1;
+    public static final int ADD = 2;
+    public static final int SUB = 3;
+    public static final int MUL = 4;
+    public static final int DIV = 5;
+    public static final int POW = 6;
+    public static final int STORE_TEMP = 7;
+    public static final int LOAD_TEMP = 8;
+
+    public static final byte ROW_OK = 0;
+    public static final byte ROW_DIVISION_BY_ZERO = 1;
+
+    public static final int BATCH_BLOCK_SIZE = 256;
+
+    private final int[] opcodes;
+    private final int[] operands;
+    private final double[] constants;
+    private final String[] variables;
+    private final int maxStackDepth;
+    private final int tempCount;
+
+    public CompiledExpression(int[] opcodes, int[] operands, double[] constants, String[] variables,
+            int maxStackDepth, int tempCount) {
+        this.opcodes = opcodes;
+        this.operands = operands;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStackDepth = maxStackDepth;
+        this.tempCount = tempCount;
+    }
+
+    public double evaluate(Map<String, Double> variableValues) {
+        return evaluate(bind(variableValues));
+    }
+
+    @Override
+    public double evaluate(double[] slots) {
+        final int[] opcodes = this.opcodes;
+        final int[] operands = this.operands;
+        final double[] stack = new double[maxStackDepth];
+        final double[] temps = tempCount == 0 ? stack : new double[tempCount];
+        int sp = -1;
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            switch (opcodes[pc]) {
+                case CONST:
+                    stack[++sp] = constants[operands[pc]];
+                    break;
+                case LOAD:
+                    stack[++sp] = slots[operands[pc]];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp] = stack[sp] + stack[sp + 1];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp] = stack[sp] - stack[sp + 1];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp] = stack[sp] * stack[sp + 1];
+                    break;
+                case DIV: {
+                    double divisor = stack[sp--];
+                    if (divisor == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    stack[sp] = stack[sp] / divisor;
+                    break;
+                }
+                case POW:
+                    sp--;
+                    stack[sp] = Math.pow(stack[sp], stack[sp + 1]);
+                    break;
+                case STORE_TEMP:
+                    temps[operands[pc]] = stack[sp];
+                    break;
+                case LOAD_TEMP:
+                    stack[++sp] = temps[operands[pc]];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcodes[pc]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Forward-mode automatic differentiation in a single pass. Every stack entry carries a value
+     * and its tangent with respect to each of {@code wrtSlots} (a dual number with one
+     * derivative component per direction), so the value and the exact partial derivatives come
+     * out together. The partials are written to {@code gradient}, which must have
+     * {@code wrtSlots.length} entries. Returns the value. Division by zero fails as in
+     * {@link #evaluate(double[])}.
+     */
+    public double evaluateGradient(double[] slots, int[] wrtSlots, double[] gradient) {
+        final int k = wrtSlots.length;
+        final int[] opcodes = this.opcodes;
+        final int[] operands = this.operands;
+        final double[] stack = new double[maxStackDepth];
+        final double[] tangents = new double[maxStackDepth * k];
+        final double[] temps = new double[tempCount];
+        final double[] tempTangents = new double[tempCount * k];
+        int sp = -1;
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            switch (opcodes[pc]) {
+                case CONST:
+                    stack[++sp] = constants[operands[pc]];
+                    Arrays.fill(tangents, sp * k, sp * k + k, 0);
+                    break;
+                case LOAD: {
+                    int slot = operands[pc];
+                    stack[++sp] = slots[slot];
+                    for (int j = 0; j < k; j++) {
+                        tangents[sp * k + j] = wrtSlots[j] == slot ? 1 : 0;
+                    }
+                    break;
+                }
+                case ADD:
+                case SUB: {
+                    double sign = opcodes[pc] == ADD ? 1 : -1;
+                    sp--;
+                    stack[sp] = stack[sp] + sign * stack[sp + 1];
+                    for (int j = 0, a = sp * k, b = a + k; j < k; j++) {
+                        tangents[a + j] += sign * tangents[b + j];
+                    }
+                    break;
+                }
+                case MUL: {
+                    sp--;
+                    double u = stack[sp];
+                    double v = stack[sp + 1];
+                    stack[sp] = u * v;
+                    for (int j = 0, a = sp * k, b = a + k; j < k; j++) {
+                        tangents[a + j] = tangents[a + j] * v + u * tangents[b + j];
+                    }
+                    break;
+                }
+                case DIV: {
+                    double v = stack[sp--];
+                    if (v == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    double quotient = stack[sp] / v;
+                    stack[sp] = quotient;
+                    // (u/v)' = (u' - (u/v) v') / v
+                    for (int j = 0, a = sp * k, b = a + k; j < k; j++) {
+                        tangents[a + j] = (tangents[a + j] - quotient * tangents[b + j]) / v;
+                    }
+                    break;
+                }
+                case POW: {
+                    sp--;
+                    double u = stack[sp];
+                    double v = stack[sp + 1];
+                    double power = Math.pow(u, v);
+                    stack[sp] = power;
+                    // (u^v)' = v u^(v-1) u' + u^v ln(u) v'; terms with a zero tangent are skipped
+                    // so constant exponents of non-positive bases do not produce 0 * NaN
+                    for (int j = 0, a = sp * k, b = a + k; j < k; j++) {
+                        double du = tangents[a + j];
+                        double dv = tangents[b + j];
+                        double derivative = 0;
+                        if (du != 0) {
+                            derivative += v * Math.pow(u, v - 1) * du;
+                        }
+                        if (dv != 0) {
+                            derivative += power * Math.log(u) * dv;
+                        }
+                        tangents[a + j] = derivative;
+                    }
+                    break;
+                }
+                case STORE_TEMP:
+                    temps[operands[pc]] = stack[sp];
+                    System.arraycopy(tangents, sp * k, tempTangents, operands[pc] * k, k);
+                    break;
+                case LOAD_TEMP:
+                    stack[++sp] = temps[operands[pc]];
+                    System.arraycopy(tempTangents, operands[pc] * k, tangents, sp * k, k);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcodes[pc]);
+            }
+        }
+        System.arraycopy(tangents, 0, gradient, 0, k);
+        return stack[0];
+    }
+
+    /**
+     * Evaluates rows {@code [from, to)} of slot-indexed input columns. Rows are processed
+     * in cache-sized blocks, one instruction at a time across the whole block, so the
+     * interpreter dispatch is paid once per block rather than once per row. Rows that
+     * divide by zero get {@link #ROW_DIVISION_BY_ZERO} in {@code errors} and NaN as result.
+     */
+    public void evaluateBatch(double[][] columns, int from, int to, double[] results, byte[] errors) {
+        final int[] opcodes = this.opcodes;
+        final int[] operands = this.operands;
+        final double[][] stack = new double[Math.max(maxStackDepth, 1)][BATCH_BLOCK_SIZE];
+        final double[][] temps = new double[tempCount][BATCH_BLOCK_SIZE];
+        final boolean[] failed = new boolean[BATCH_BLOCK_SIZE];
+
+        for (int start = from; start < to; start += BATCH_BLOCK_SIZE) {
+            final int n = Math.min(BATCH_BLOCK_SIZE, to - start);
+            boolean anyFailed = false;
+            int sp = -1;
+
+            for (int pc = 0; pc < opcodes.length; pc++) {
+                switch (opcodes[pc]) {
+                    case CONST:
+                        Arrays.fill(stack[++sp], 0, n, constants[operands[pc]]);
+                        break;
+                    case LOAD:
+                        System.arraycopy(columns[operands[pc]], start, stack[++sp], 0, n);
+                        break;
+                    case ADD: {
+                        double[] a = stack[sp - 1];
+                        double[] b = stack[sp--];
+                        for (int i = 0; i < n; i++) {
+                            a[i] += b[i];
+                        }
+                        break;
+                    }
+                    case SUB: {
+                        double[] a = stack[sp - 1];
+                        double[] b = stack[sp--];
+                        for (int i = 0; i < n; i++) {
+                            a[i] -= b[i];
+                        }
+                        break;
+                    }
+                    case MUL: {
+                        double[] a = stack[sp - 1];
+                        double[] b = stack[sp--];
+                        for (int i = 0; i < n; i++) {
+                            a[i] *= b[i];
+                        }
+                        break;
+                    }
+                    case DIV: {
+                        double[] a = stack[sp - 1];
+                        double[] b = stack[sp--];
+                        for (int i = 0; i < n; i++) {
+                            if (b[i] == 0) {
+                                failed[i] = true;
+                                anyFailed = true;
+                            }
+                            a[i] /= b[i];
+                        }
+                        break;
+                    }
+                    case POW: {
+                        double[] a = stack[sp - 1];
+                        double[] b = stack[sp--];
+                        for (int i = 0; i < n; i++) {
+                            a[i] = Math.pow(a[i], b[i]);
+                        }
+                        break;
+                    }
+                    case STORE_TEMP:
+                        System.arraycopy(stack[sp], 0, temps[operands[pc]], 0, n);
+                        break;
+                    case LOAD_TEMP:
+                        System.arraycopy(temps[operands[pc]], 0, stack[++sp], 0, n);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown opcode: " + opcodes[pc]);
+                }
+            }
+
+            System.arraycopy(stack[0], 0, results, start, n);
+            if (anyFailed) {
+                for (int i = 0; i < n; i++) {
+                    if (failed[i]) {
+                        results[start + i] = Double.NaN;
+                        errors[start + i] = ROW_DIVISION_BY_ZERO;
+                        failed[i] = false;
+                    } else {
+                        errors[start + i] = ROW_OK;
+                    }
+                }
+            } else {
+                Arrays.fill(errors, start, start + n, ROW_OK);
+            }
+        }
+    }
+
+    /**
+     * Resolves a name-keyed binding into slot order. Missing variables are reported
+     * in order of first appearance, matching the tree walker.
+     */
+    public double[] bind(Map<String, Double> variableValues) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double value = variableValues == null ? null : variableValues.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + variables[i] + " not provided");
+            }
+            slots[i] = value;
+        }
+        return slots;
+    }
+
+    public int opcodeAt(int pc) {
+        return opcodes[pc];
+    }
+
+    public int operandAt(int pc) {
+        return operands[pc];
+    }
+
+    public double constantAt(int index) {
+        return constants[index];
+    }
+
+    public int getConstantCount() {
+        return constants.length;
+    }
+
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public int getInstructionCount() {
+        return opcodes.length;
+    }
+
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    public int getTempCount() {
+        return tempCount;
+    }
+}
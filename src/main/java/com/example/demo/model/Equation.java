@@ -1,14 +1,53 @@
 package com.example.demo.model;
 
-import lombok.AllArgsConstructor;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Equation {
     private String equationId;
     private String equation;
     private ExpressionTree expressionTree;
-} 
\ No newline at end of file
+    private CompiledExpression compiledExpression;
+    private EquationStats stats;
+    // Set instead of expressionTree in the PACKED storage layout
+    private PackedExpressionTree packedTree;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final LongAdder evaluationCount = new LongAdder();
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AtomicBoolean jitQueued = new AtomicBoolean();
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    // Set once by the tiered compiler; volatile so evaluators switch over atomically
+    private volatile ExpressionEvaluator jitEvaluator;
+
+    public Equation(String equationId, String equation, ExpressionTree expressionTree) {
+        this(equationId, equation, expressionTree, null, null);
+    }
+
+    public Equation(String equationId, String equation, ExpressionTree expressionTree, CompiledExpression compiledExpression) {
+        this(equationId, equation, expressionTree, compiledExpression, null);
+    }
+
+    public Equation(String equationId, String equation, ExpressionTree expressionTree,
+                    CompiledExpression compiledExpression, EquationStats stats) {
+        this.equationId = equationId;
+        this.equation = equation;
+        this.expressionTree = expressionTree;
+        this.compiledExpression = compiledExpression;
+        this.stats = stats;
+    }
+
+    public List<String> getVariables() {
+        return compiledExpression == null ? List.of() : compiledExpression.getVariables();
+    }
+}
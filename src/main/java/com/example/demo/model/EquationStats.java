@@ -0,0 +1,15 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquationStats {
+    private int parsedNodeCount;
+    private int optimizedNodeCount;
+    private int dagNodeCount;
+    private int eliminatedNodeCount;
+}
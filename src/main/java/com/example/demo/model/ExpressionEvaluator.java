@@ -0,0 +1,8 @@
+package com.example.demo.model;
+
+/**
+ * Evaluates a stored equation against variable values in slot order.
+ */
+public interface ExpressionEvaluator {
+    double evaluate(double[] slots);
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Value of an equation and its partial derivatives; {@code gradient[i]} is the derivative
+ * with respect to {@code variables[i]}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradientEvaluation {
+    private double value;
+    private String[] variables;
+    private double[] gradient;
+}
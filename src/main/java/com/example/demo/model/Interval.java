@@ -0,0 +1,16 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A closed range of values {@code [lower, upper]}. Either end may be infinite.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Interval {
+    private double lower;
+    private double upper;
+}
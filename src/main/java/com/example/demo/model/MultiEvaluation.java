@@ -0,0 +1,23 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Results of evaluating several equations against one variable binding. Index {@code i}
+ * belongs to {@code equationIds[i]}: {@code errors[i]} is null when {@code results[i]} is valid.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiEvaluation {
+    private String[] equationIds;
+    private double[] results;
+    private String[] errors;
+    private int errorCount;
+
+    public int getCount() {
+        return equationIds == null ? 0 : equationIds.length;
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.demo.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.util.ExpressionInterner;
+
+/**
+ * Struct-of-arrays encoding of an expression DAG. Node {@code i} has opcode {@code opcodes[i]}
+ * (the {@link CompiledExpression} opcodes) and, for operators, children {@code left[i]} and
+ * {@code right[i]}. Leaves have no children, so {@code left[i]} holds the constant index or
+ * variable slot instead. Nodes are in post-order, every child before its parent and the root
+ * last, so evaluation is a single forward pass that computes each shared node once.
+ *
+ * <p>Compared with {@link ExpressionTree}, an equation costs a few small arrays instead of an
+ * object, a string and two references per node.
+ */
+public final class PackedExpressionTree implements ExpressionEvaluator {
+
+    private final byte[] opcodes;
+    private final int[] left;
+    private final int[] right;
+    private final double[] constants;
+    private final String[] variables;
+
+    private PackedExpressionTree(byte[] opcodes, int[] left, int[] right, double[] constants, String[] variables) {
+        this.opcodes = opcodes;
+        this.left = left;
+        this.right = right;
+        this.constants = constants;
+        this.variables = variables;
+    }
+
+    /**
+     * Packs {@code tree} with the given variables pre-assigned to the first slots, as
+     * {@link com.example.demo.util.ExpressionCompiler#compile(ExpressionTree, List)} does.
+     */
+    public static PackedExpressionTree pack(ExpressionTree tree, List<String> variableOrder) {
+        if (tree == null || tree.getRoot() == null) {
+            throw new IllegalArgumentException("Expression tree is empty");
+        }
+        return new Packer(variableOrder).pack(tree.getRoot());
+    }
+
+    public double evaluate(Map<String, Double> variableValues) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double value = variableValues == null ? null : variableValues.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + variables[i] + " not provided");
+            }
+            slots[i] = value;
+        }
+        return evaluate(slots);
+    }
+
+    @Override
+    public double evaluate(double[] slots) {
+        final double[] values = new double[opcodes.length];
+        for (int i = 0; i < opcodes.length; i++) {
+            switch (opcodes[i]) {
+                case CompiledExpression.CONST:
+                    values[i] = constants[left[i]];
+                    break;
+                case CompiledExpression.LOAD:
+                    values[i] = slots[left[i]];
+                    break;
+                case CompiledExpression.ADD:
+                    values[i] = values[left[i]] + values[right[i]];
+                    break;
+                case CompiledExpression.SUB:
+                    values[i] = values[left[i]] - values[right[i]];
+                    break;
+                case CompiledExpression.MUL:
+                    values[i] = values[left[i]] * values[right[i]];
+                    break;
+                case CompiledExpression.DIV: {
+                    double divisor = values[right[i]];
+                    if (divisor == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    values[i] = values[left[i]] / divisor;
+                    break;
+                }
+                case CompiledExpression.POW:
+                    values[i] = Math.pow(values[left[i]], values[right[i]]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcodes[i]);
+            }
+        }
+        return values[opcodes.length - 1];
+    }
+
+    public String toInfixNotation() {
+        return toInfixNotation(opcodes.length - 1);
+    }
+
+    private String toInfixNotation(int node) {
+        if (isLeaf(node)) {
+            return nodeValue(node);
+        }
+
+        String leftStr = toInfixNotation(left[node]);
+        String rightStr = toInfixNotation(right[node]);
+
+        // Same parenthesization rules as ExpressionTree
+        boolean needLeftParentheses = !isLeaf(left[node])
+                && precedence(opcodes[left[node]]) < precedence(opcodes[node]);
+        boolean needRightParentheses = !isLeaf(right[node])
+                && (precedence(opcodes[right[node]]) < precedence(opcodes[node])
+                    || opcodes[node] == CompiledExpression.SUB || opcodes[node] == CompiledExpression.DIV);
+
+        StringBuilder sb = new StringBuilder();
+        if (needLeftParentheses) {
+            sb.append("(").append(leftStr).append(")");
+        } else {
+            sb.append(leftStr);
+        }
+        sb.append(" ").append(nodeValue(node)).append(" ");
+        if (needRightParentheses) {
+            sb.append("(").append(rightStr).append(")");
+        } else {
+            sb.append(rightStr);
+        }
+        return sb.toString();
+    }
+
+    private static int precedence(int opcode) {
+        switch (opcode) {
+            case CompiledExpression.ADD:
+            case CompiledExpression.SUB:
+                return 1;
+            case CompiledExpression.MUL:
+            case CompiledExpression.DIV:
+                return 2;
+            case CompiledExpression.POW:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    public int getNodeCount() {
+        return opcodes.length;
+    }
+
+    public int getConstantCount() {
+        return constants.length;
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public boolean isLeaf(int node) {
+        return opcodes[node] == CompiledExpression.CONST || opcodes[node] == CompiledExpression.LOAD;
+    }
+
+    /**
+     * The token {@link TreeNode} would hold for this node: operator symbol, number or variable name.
+     */
+    public String nodeValue(int node) {
+        switch (opcodes[node]) {
+            case CompiledExpression.CONST: return ExpressionInterner.formatNumber(constants[left[node]]);
+            case CompiledExpression.LOAD: return variables[left[node]];
+            case CompiledExpression.ADD: return "+";
+            case CompiledExpression.SUB: return "-";
+            case CompiledExpression.MUL: return "*";
+            case CompiledExpression.DIV: return "/";
+            case CompiledExpression.POW: return "^";
+            default: throw new IllegalStateException("Unknown opcode: " + opcodes[node]);
+        }
+    }
+
+    public int opcodeAt(int node) {
+        return opcodes[node];
+    }
+
+    /**
+     * Constant value of a {@code CONST} leaf.
+     */
+    public double leafConstant(int node) {
+        return constants[left[node]];
+    }
+
+    /**
+     * Variable slot of a {@code LOAD} leaf.
+     */
+    public int leafSlot(int node) {
+        return left[node];
+    }
+
+    /**
+     * Left child index, or -1 for leaves.
+     */
+    public int leftChild(int node) {
+        return isLeaf(node) ? -1 : left[node];
+    }
+
+    /**
+     * Right child index, or -1 for leaves.
+     */
+    public int rightChild(int node) {
+        return isLeaf(node) ? -1 : right[node];
+    }
+
+    /**
+     * Structural equality: same shape, constants and variable names, regardless of the
+     * order the variables were assigned slots in.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PackedExpressionTree)) {
+            return false;
+        }
+        PackedExpressionTree tree = (PackedExpressionTree) other;
+        if (!Arrays.equals(opcodes, tree.opcodes) || !Arrays.equals(right, tree.right)) {
+            return false;
+        }
+        for (int i = 0; i < opcodes.length; i++) {
+            switch (opcodes[i]) {
+                case CompiledExpression.CONST:
+                    if (Double.doubleToLongBits(constants[left[i]]) != Double.doubleToLongBits(tree.constants[tree.left[i]])) {
+                        return false;
+                    }
+                    break;
+                case CompiledExpression.LOAD:
+                    if (!variables[left[i]].equals(tree.variables[tree.left[i]])) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (left[i] != tree.left[i]) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 31 * Arrays.hashCode(opcodes) + Arrays.hashCode(right);
+        for (int i = 0; i < opcodes.length; i++) {
+            switch (opcodes[i]) {
+                case CompiledExpression.CONST: hash = 31 * hash + Double.hashCode(constants[left[i]]); break;
+                case CompiledExpression.LOAD: hash = 31 * hash + variables[left[i]].hashCode(); break;
+                default: hash = 31 * hash + left[i]; break;
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toInfixNotation();
+    }
+
+    private static final class Packer {
+        private final Map<TreeNode, Integer> indices = new IdentityHashMap<>();
+        private final Map<Long, Integer> constantIndex = new LinkedHashMap<>();
+        private final Map<String, Integer> variableSlots = new LinkedHashMap<>();
+        private byte[] opcodes = new byte[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int size;
+
+        private Packer(List<String> variableOrder) {
+            for (String variable : variableOrder) {
+                slotOf(variable);
+            }
+        }
+
+        private PackedExpressionTree pack(TreeNode root) {
+            addNode(root);
+            double[] constantArray = new double[constantIndex.size()];
+            for (Map.Entry<Long, Integer> entry : constantIndex.entrySet()) {
+                constantArray[entry.getValue()] = Double.longBitsToDouble(entry.getKey());
+            }
+            return new PackedExpressionTree(Arrays.copyOf(opcodes, size), Arrays.copyOf(left, size),
+                    Arrays.copyOf(right, size), constantArray, variableSlots.keySet().toArray(new String[0]));
+        }
+
+        /**
+         * Adds the tree in post-order, left before right, using an explicit stack so that
+         * deeply nested trees do not overflow the call stack.
+         */
+        private void addNode(TreeNode root) {
+            Deque<TreeNode> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                TreeNode node = pending.peek();
+                if (indices.containsKey(node)) {
+                    pending.pop();
+                    continue;
+                }
+                int index;
+                if (node.left == null && node.right == null) {
+                    index = addLeaf(node.getValue());
+                } else if (node.left == null || node.right == null) {
+                    throw new IllegalArgumentException("Invalid expression: operator " + node.getValue() + " is missing an operand");
+                } else {
+                    Integer leftIndex = indices.get(node.left);
+                    Integer rightIndex = indices.get(node.right);
+                    if (leftIndex == null || rightIndex == null) {
+                        if (rightIndex == null) {
+                            pending.push(node.right);
+                        }
+                        if (leftIndex == null) {
+                            pending.push(node.left);
+                        }
+                        continue;
+                    }
+                    index = add(operatorOpcode(node.getValue()), leftIndex, rightIndex);
+                }
+                pending.pop();
+                indices.put(node, index);
+            }
+        }
+
+        private int addLeaf(String token) {
+            int letters = 0;
+            while (letters < token.length() && isLetter(token.charAt(letters))) {
+                letters++;
+            }
+            if (letters == token.length()) {
+                return add(CompiledExpression.LOAD, slotOf(token), 0);
+            }
+
+            // Coefficient tokens such as "3x" become 3 * x
+            int digits = 0;
+            while (digits < token.length() && isDigit(token.charAt(digits))) {
+                digits++;
+            }
+            if (digits > 0 && digits < token.length() && allLetters(token, digits)) {
+                int coefficient = add(CompiledExpression.CONST, constantOf(Double.parseDouble(token.substring(0, digits))), 0);
+                int variable = add(CompiledExpression.LOAD, slotOf(token.substring(digits)), 0);
+                return add(CompiledExpression.MUL, coefficient, variable);
+            }
+
+            try {
+                return add(CompiledExpression.CONST, constantOf(Double.parseDouble(token)), 0);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid operand: " + token);
+            }
+        }
+
+        private static byte operatorOpcode(String operator) {
+            switch (operator) {
+                case "+": return CompiledExpression.ADD;
+                case "-": return CompiledExpression.SUB;
+                case "*": return CompiledExpression.MUL;
+                case "/": return CompiledExpression.DIV;
+                case "^": return CompiledExpression.POW;
+                default: throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+
+        private int add(int opcode, int leftOperand, int rightOperand) {
+            if (size == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, size * 2);
+                left = Arrays.copyOf(left, size * 2);
+                right = Arrays.copyOf(right, size * 2);
+            }
+            opcodes[size] = (byte) opcode;
+            left[size] = leftOperand;
+            right[size] = rightOperand;
+            return size++;
+        }
+
+        private static boolean allLetters(String token, int from) {
+            for (int i = from; i < token.length(); i++) {
+                if (!isLetter(token.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private int constantOf(double value) {
+            return constantIndex.computeIfAbsent(Double.doubleToLongBits(value), bits -> constantIndex.size());
+        }
+
+        private int slotOf(String variable) {
+            return variableSlots.computeIfAbsent(variable, name -> variableSlots.size());
+        }
+    }
+}
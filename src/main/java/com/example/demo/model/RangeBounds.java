@@ -0,0 +1,25 @@
+package com.example.demo.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Proven enclosures of the minimum and maximum of an equation over a box. The outer ends
+ * come from interval bounds, the inner ends from the best points found, which are given in
+ * {@code minimumAt} and {@code maximumAt}. {@code converged} is true when both enclosures are
+ * narrower than the requested tolerance.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeBounds {
+    private Interval minimum;
+    private Interval maximum;
+    private Map<String, Double> minimumAt;
+    private Map<String, Double> maximumAt;
+    private int boxesEvaluated;
+    private boolean converged;
+}
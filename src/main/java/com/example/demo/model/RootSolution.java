@@ -0,0 +1,20 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a root solve. {@code residual} is {@code f(root) - target}; when
+ * {@code converged} is false, {@code root} is the best point found.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RootSolution {
+    private double root;
+    private double residual;
+    private int iterations;
+    private boolean converged;
+    private String method;
+}
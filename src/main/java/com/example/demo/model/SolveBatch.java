@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Results of one solve per parameter set; {@code errors[i]} is null when
+ * {@code solutions[i]} is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveBatch {
+    private RootSolution[] solutions;
+    private String[] errors;
+    private int errorCount;
+}
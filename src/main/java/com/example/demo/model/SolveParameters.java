@@ -0,0 +1,25 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What to solve for: the unknown variable, the target value and where to start. Either
+ * {@code initialGuess} or both bounds are required; the bounds must bracket a sign change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolveParameters {
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    private String variable;
+    private double target;
+    private Double initialGuess;
+    private Double lower;
+    private Double upper;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+}
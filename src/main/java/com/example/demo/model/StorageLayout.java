@@ -0,0 +1,11 @@
+package com.example.demo.model;
+
+/**
+ * How a stored equation keeps its expression, selected with {@code equation.storage.layout}.
+ */
+public enum StorageLayout {
+    /** Hash-consed {@link TreeNode} graph shared across all equations. */
+    TREE,
+    /** One {@link PackedExpressionTree} per equation; no node objects are retained. */
+    PACKED
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One dimension of a parameter sweep: {@code steps} evenly spaced values of {@code variable}
+ * from {@code from} to {@code to}, both inclusive. A single step sweeps just {@code from}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepAxis {
+    private String variable;
+    private double from;
+    private double to;
+    private int steps;
+
+    public double valueAt(int index) {
+        if (index == steps - 1 && steps > 1) {
+            return to;
+        }
+        return steps == 1 ? from : from + index * ((to - from) / (steps - 1));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.model;
+
+/**
+ * Output encoding of a parameter sweep.
+ */
+public enum SweepFormat {
+    // One JSON line per innermost row: {"index":[outer indices],"results":[...]}
+    NDJSON,
+    // Little-endian float64 per point in row-major order, NaN for failed points
+    BINARY
+}
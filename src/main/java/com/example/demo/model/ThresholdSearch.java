@@ -0,0 +1,31 @@
+package com.example.demo.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of searching a box for a point where an equation crosses a threshold.
+ * {@code FOUND} comes with a witness point and its value; {@code NONE} is a proof that no
+ * defined point crosses; {@code UNKNOWN} means the box budget ran out first. Unless a witness
+ * was found, {@code bound} is the proven bound on the equation over the box: its supremum
+ * when searching above the threshold, its infimum when searching below.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThresholdSearch {
+    public enum Outcome {
+        FOUND,
+        NONE,
+        UNKNOWN
+    }
+
+    private Outcome outcome;
+    private Map<String, Double> witness;
+    private Double value;
+    private Double bound;
+    private int boxesEvaluated;
+}
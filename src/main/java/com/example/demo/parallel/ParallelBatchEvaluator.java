@@ -0,0 +1,172 @@
+package com.example.demo.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.CompiledExpression;
+
+/**
+ * Splits large batch evaluations across a dedicated {@link ForkJoinPool}. Row ranges are
+ * halved until they reach the sequential cutoff and each leaf runs the block interpreter
+ * straight into the caller's preallocated result and error arrays, so the only allocation per
+ * task is the interpreter's block stack. The pool is separate from the common pool, so a
+ * heavy batch competes only with other batches and never delays parallel streams or
+ * {@code CompletableFuture} work elsewhere in the application.
+ *
+ * <p>Chunk boundaries are rounded to the interpreter's block size, and the cutoff grows with
+ * the batch so no more than {@link #TASKS_PER_WORKER} leaves are created per worker: enough
+ * slack for work stealing to even out uneven cores without paying fork overhead per block.
+ */
+@Component
+public class ParallelBatchEvaluator {
+
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 8192;
+    static final int TASKS_PER_WORKER = 4;
+    private static final int BLOCK_ROWS = CompiledExpression.BATCH_BLOCK_SIZE;
+
+    private final int parallelism;
+    private final int sequentialCutoff;
+    private final ForkJoinPool pool;
+
+    /**
+     * Evaluator that never forks; batches run on the calling thread.
+     */
+    public static ParallelBatchEvaluator sequential() {
+        return new ParallelBatchEvaluator(1, DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+
+    @Autowired
+    public ParallelBatchEvaluator(@Value("${equation.batch.parallelism:0}") int parallelism,
+                                  @Value("${equation.batch.sequential-cutoff:8192}") int sequentialCutoff) {
+        if (sequentialCutoff < 1) {
+            throw new IllegalArgumentException("equation.batch.sequential-cutoff must be positive");
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.sequentialCutoff = sequentialCutoff;
+        this.pool = this.parallelism > 1
+                ? new ForkJoinPool(this.parallelism, ParallelBatchEvaluator::newWorker, null, false)
+                : null;
+    }
+
+    /**
+     * Evaluates rows {@code [0, rows)} into {@code results} and {@code errors}, with the same
+     * per-row semantics as {@link CompiledExpression#evaluateBatch}.
+     */
+    public void evaluate(CompiledExpression expression, double[][] columns, int rows, double[] results, byte[] errors) {
+        if (pool == null || rows <= sequentialCutoff) {
+            expression.evaluateBatch(columns, 0, rows, results, errors);
+            return;
+        }
+        pool.invoke(new BatchTask(expression, columns, 0, rows, leafSize(rows), results, errors));
+    }
+
+    /**
+     * Runs {@code action} for every index in {@code [0, count)} on the batch pool, in tasks of
+     * at most {@code grain} indices. Runs inline when the pool is disabled or the work is small.
+     */
+    public void forEach(int count, int grain, IntConsumer action) {
+        if (pool == null || count <= grain) {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.invoke(new ForEachTask(0, count, Math.max(grain, 1), action));
+    }
+
+    int leafSize(int rows) {
+        long perTask = ((long) rows + parallelism * TASKS_PER_WORKER - 1) / (parallelism * TASKS_PER_WORKER);
+        long leaf = Math.max(sequentialCutoff, perTask);
+        return (int) Math.min(Integer.MAX_VALUE, (leaf + BLOCK_ROWS - 1) / BLOCK_ROWS * BLOCK_ROWS);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getSequentialCutoff() {
+        return sequentialCutoff;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("equation-batch-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class BatchTask extends RecursiveAction {
+        private final CompiledExpression expression;
+        private final double[][] columns;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final double[] results;
+        private final byte[] errors;
+
+        private BatchTask(CompiledExpression expression, double[][] columns, int from, int to, int leafSize,
+                double[] results, byte[] errors) {
+            this.expression = expression;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.results = results;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                expression.evaluateBatch(columns, from, to, results, errors);
+                return;
+            }
+            // Split on a block boundary so each half fills whole interpreter blocks
+            int blocks = (to - from + BLOCK_ROWS - 1) / BLOCK_ROWS;
+            int mid = from + (blocks / 2) * BLOCK_ROWS;
+            invokeAll(new BatchTask(expression, columns, from, mid, leafSize, results, errors),
+                    new BatchTask(expression, columns, mid, to, leafSize, results, errors));
+        }
+    }
+
+    private static final class ForEachTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer action;
+
+        private ForEachTask(int from, int to, int grain, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEachTask(from, mid, grain, action), new ForEachTask(mid, to, grain, action));
+        }
+    }
+}
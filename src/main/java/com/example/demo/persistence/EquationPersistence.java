@@ -0,0 +1,33 @@
+package com.example.demo.persistence;
+
+import java.util.Collection;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import com.example.demo.model.Equation;
+import com.example.demo.util.ExpressionInterner;
+
+/**
+ * Durability hook for the equation store. The service calls {@link #recover} once at startup,
+ * then appends every store and delete before applying it in memory. Each append and its
+ * repository update happen together under the service's publish lock, so a snapshot, which
+ * takes that lock exclusively, sees every logged change already applied. A failed append
+ * leaves the repository untouched.
+ */
+public interface EquationPersistence {
+
+    /**
+     * Loads the persisted equations, rebuilding their canonical trees through {@code interner}.
+     */
+    RecoveredEquations recover(ExpressionInterner interner);
+
+    void appendStore(Equation equation);
+
+    void appendDelete(String equationId);
+
+    /**
+     * Writes a compacted snapshot. The suppliers are read after the log has been rotated, so
+     * every operation missing from the snapshot is in a log segment that is kept.
+     */
+    void snapshot(Supplier<Collection<Equation>> equations, IntSupplier nextId);
+}
@@ -0,0 +1,200 @@
+package com.example.demo.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.example.demo.model.Equation;
+import com.example.demo.model.EquationStats;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.TreeNode;
+import com.example.demo.util.ExpressionInterner;
+
+/**
+ * Binary encoding of log and snapshot records. Each record is framed as
+ * {@code [int length][int crc32][payload]} so a torn write at the end of the log is detected.
+ * A stored equation carries its canonical tree as a post-order node table that preserves
+ * shared subtrees, so loading it never runs the parser.
+ */
+final class EquationRecordCodec {
+
+    static final byte STORE = 1;
+    static final byte DELETE = 2;
+    static final int FRAME_HEADER_BYTES = 8;
+
+    private EquationRecordCodec() {
+    }
+
+    static ByteBuffer encodeStore(Equation equation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(STORE);
+            writeString(out, equation.getEquationId());
+            writeString(out, equation.getEquation());
+
+            List<String> variables = equation.getVariables();
+            out.writeInt(variables.size());
+            for (String variable : variables) {
+                writeString(out, variable);
+            }
+
+            EquationStats stats = equation.getStats();
+            out.writeBoolean(stats != null);
+            if (stats != null) {
+                out.writeInt(stats.getParsedNodeCount());
+                out.writeInt(stats.getOptimizedNodeCount());
+                out.writeInt(stats.getDagNodeCount());
+                out.writeInt(stats.getEliminatedNodeCount());
+            }
+
+            PackedExpressionTree packedTree = equation.getPackedTree();
+            if (packedTree != null) {
+                // Already a post-order node table
+                out.writeInt(packedTree.getNodeCount());
+                for (int i = 0; i < packedTree.getNodeCount(); i++) {
+                    writeString(out, packedTree.nodeValue(i));
+                    out.writeInt(packedTree.leftChild(i));
+                    out.writeInt(packedTree.rightChild(i));
+                }
+            } else {
+                List<TreeNode> order = new ArrayList<>();
+                Map<TreeNode, Integer> indices = new IdentityHashMap<>();
+                indexNodes(equation.getExpressionTree().getRoot(), indices, order);
+                out.writeInt(order.size());
+                for (TreeNode node : order) {
+                    writeString(out, node.getValue());
+                    out.writeInt(node.left == null ? -1 : indices.get(node.left));
+                    out.writeInt(node.right == null ? -1 : indices.get(node.right));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return frame(bytes.toByteArray());
+    }
+
+    static ByteBuffer encodeDelete(String equationId) {
+        byte[] id = equationId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + id.length);
+        payload.put(DELETE).putInt(id.length).put(id);
+        return frame(payload.array());
+    }
+
+    private static void indexNodes(TreeNode root, Map<TreeNode, Integer> indices, List<TreeNode> order) {
+        // Post-order, left before right, with an explicit stack for deeply nested trees
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.peek();
+            if (indices.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            boolean leftDone = node.left == null || indices.containsKey(node.left);
+            boolean rightDone = node.right == null || indices.containsKey(node.right);
+            if (!leftDone || !rightDone) {
+                if (!rightDone) {
+                    pending.push(node.right);
+                }
+                if (!leftDone) {
+                    pending.push(node.left);
+                }
+                continue;
+            }
+            pending.pop();
+            indices.put(node, order.size());
+            order.add(node);
+        }
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Returns the payload of the next frame and advances past it, or null (leaving the
+     * position unchanged) if the frame is incomplete or fails its checksum.
+     */
+    static ByteBuffer nextFrame(ByteBuffer buffer) {
+        if (buffer.remaining() < FRAME_HEADER_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        int checksum = buffer.getInt(start + 4);
+        if (length < 0 || length > buffer.remaining() - FRAME_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(start + FRAME_HEADER_BYTES, length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        buffer.position(start + FRAME_HEADER_BYTES + length);
+        return payload;
+    }
+
+    static byte recordType(ByteBuffer payload) {
+        return payload.get(0);
+    }
+
+    static PersistedEquation decodeStore(ByteBuffer payload, ExpressionInterner interner) {
+        payload.position(1);
+        String equationId = readString(payload);
+        String equation = readString(payload);
+
+        int variableCount = payload.getInt();
+        List<String> variables = new ArrayList<>(variableCount);
+        for (int i = 0; i < variableCount; i++) {
+            variables.add(readString(payload));
+        }
+
+        EquationStats stats = null;
+        if (payload.get() != 0) {
+            stats = new EquationStats(payload.getInt(), payload.getInt(), payload.getInt(), payload.getInt());
+        }
+
+        // Stored trees are canonical already, so interning the node table restores sharing
+        TreeNode[] nodes = new TreeNode[payload.getInt()];
+        for (int i = 0; i < nodes.length; i++) {
+            String value = readString(payload);
+            int left = payload.getInt();
+            int right = payload.getInt();
+            nodes[i] = interner.intern(value, left < 0 ? null : nodes[left], right < 0 ? null : nodes[right]);
+        }
+        return new PersistedEquation(equationId, equation, variables, stats, nodes[nodes.length - 1]);
+    }
+
+    static String decodeDelete(ByteBuffer payload) {
+        payload.position(1);
+        return readString(payload);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.demo.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Equation;
+import com.example.demo.util.ExpressionInterner;
+
+/**
+ * Local-disk persistence: an append-only write-ahead log of stores and deletes, split into
+ * numbered segments, plus periodic compacted snapshots of the whole store.
+ *
+ * <p>A snapshot named {@code snapshot-N.snap} holds every equation stored before log segment
+ * {@code N} was opened; recovery memory-maps it, then replays segments {@code N} and later.
+ * Replay is idempotent (stores and deletes are keyed by ID), so a crash between writing a
+ * snapshot and deleting the segments it covers is harmless. A torn record at the end of the
+ * newest segment is truncated away.
+ *
+ * <p>{@code equation.persistence.fsync-batch-size} appends are written before the log is
+ * forced to disk (1 forces on every store), and with {@code equation.persistence.fsync-interval-ms}
+ * a background thread forces any pending appends at that interval.
+ */
+@Component
+@ConditionalOnProperty(name = "equation.persistence.enabled", havingValue = "true")
+public class FileEquationPersistence implements EquationPersistence {
+
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x45515331;
+
+    private final Path directory;
+    private final int fsyncBatchSize;
+    private final ScheduledExecutorService syncScheduler;
+    // ReentrantLock rather than synchronized: holding a monitor across file I/O would pin virtual threads
+    private final ReentrantLock walLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private FileChannel wal;
+    private long walSegment;
+    private int unsyncedAppends;
+    private long appendsSinceSnapshot;
+
+    public FileEquationPersistence(@Value("${equation.persistence.directory:data}") String directory,
+                                   @Value("${equation.persistence.fsync-batch-size:1}") int fsyncBatchSize,
+                                   @Value("${equation.persistence.fsync-interval-ms:0}") long fsyncIntervalMs) {
+        this.directory = Paths.get(directory);
+        this.fsyncBatchSize = fsyncBatchSize;
+        if (fsyncIntervalMs > 0) {
+            this.syncScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "equation-wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncScheduler.scheduleWithFixedDelay(this::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncScheduler = null;
+        }
+    }
+
+    @Override
+    public RecoveredEquations recover(ExpressionInterner interner) {
+        try {
+            Files.createDirectories(directory);
+            Map<String, PersistedEquation> equations = new LinkedHashMap<>();
+            int nextId = 1;
+
+            List<Long> snapshots = segmentNumbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long firstSegment = 0;
+            if (!snapshots.isEmpty()) {
+                firstSegment = snapshots.get(snapshots.size() - 1);
+                nextId = loadSnapshot(snapshotPath(firstSegment), interner, equations);
+            }
+
+            List<Long> segments = new ArrayList<>();
+            for (long segment : segmentNumbers(WAL_PREFIX, WAL_SUFFIX)) {
+                if (segment >= firstSegment) {
+                    segments.add(segment);
+                }
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                nextId = Math.max(nextId, replaySegment(walPath(segments.get(i)), i == segments.size() - 1,
+                        interner, equations));
+            }
+
+            walLock.lock();
+            try {
+                walSegment = segments.isEmpty() ? firstSegment : segments.get(segments.size() - 1) + 1;
+                wal = openSegment(walSegment);
+            } finally {
+                walLock.unlock();
+            }
+            return new RecoveredEquations(new ArrayList<>(equations.values()), nextId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover equations from " + directory, e);
+        }
+    }
+
+    private int loadSnapshot(Path path, ExpressionInterner interner, Map<String, PersistedEquation> equations)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot " + path + " is too large to map");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("Snapshot " + path + " has an invalid header");
+            }
+            int nextId = buffer.getInt();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                ByteBuffer payload = EquationRecordCodec.nextFrame(buffer);
+                if (payload == null || EquationRecordCodec.recordType(payload) != EquationRecordCodec.STORE) {
+                    throw new IllegalStateException("Snapshot " + path + " is corrupt at record " + i);
+                }
+                PersistedEquation equation = EquationRecordCodec.decodeStore(payload, interner);
+                equations.put(equation.getEquationId(), equation);
+            }
+            return nextId;
+        }
+    }
+
+    /**
+     * Applies one log segment and returns one past the highest equation ID it mentions.
+     */
+    private int replaySegment(Path path, boolean newest, ExpressionInterner interner,
+            Map<String, PersistedEquation> equations) throws IOException {
+        int nextId = 1;
+        long validLength;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer payload;
+            while ((payload = EquationRecordCodec.nextFrame(buffer)) != null) {
+                String equationId;
+                if (EquationRecordCodec.recordType(payload) == EquationRecordCodec.STORE) {
+                    PersistedEquation equation = EquationRecordCodec.decodeStore(payload, interner);
+                    equationId = equation.getEquationId();
+                    equations.put(equationId, equation);
+                } else {
+                    equationId = EquationRecordCodec.decodeDelete(payload);
+                    equations.remove(equationId);
+                }
+                // Replayed records count towards the next snapshot, so a long log is compacted
+                appendsSinceSnapshot++;
+                nextId = Math.max(nextId, Integer.parseInt(equationId) + 1);
+            }
+            validLength = buffer.position();
+            if (validLength == channel.size()) {
+                return nextId;
+            }
+        }
+        if (!newest) {
+            throw new IllegalStateException("Log segment " + path + " is corrupt at offset " + validLength);
+        }
+        // The last append before a crash may be partially written
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        return nextId;
+    }
+
+    @Override
+    public void appendStore(Equation equation) {
+        append(EquationRecordCodec.encodeStore(equation));
+    }
+
+    @Override
+    public void appendDelete(String equationId) {
+        append(EquationRecordCodec.encodeDelete(equationId));
+    }
+
+    private void append(ByteBuffer record) {
+        walLock.lock();
+        try {
+            if (wal == null) {
+                throw new IllegalStateException("Equation log is not open; recover() must run first");
+            }
+            try {
+                while (record.hasRemaining()) {
+                    wal.write(record);
+                }
+                appendsSinceSnapshot++;
+                if (++unsyncedAppends >= fsyncBatchSize && fsyncBatchSize > 0) {
+                    wal.force(false);
+                    unsyncedAppends = 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to equation log", e);
+            }
+        } finally {
+            walLock.unlock();
+        }
+    }
+
+    public void sync() {
+        walLock.lock();
+        try {
+            if (wal != null && unsyncedAppends > 0) {
+                try {
+                    wal.force(false);
+                    unsyncedAppends = 0;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to sync equation log", e);
+                }
+            }
+        } finally {
+            walLock.unlock();
+        }
+    }
+
+    @Override
+    public void snapshot(Supplier<Collection<Equation>> equations, IntSupplier nextId) {
+        snapshotLock.lock();
+        try {
+            long firstSegment;
+            walLock.lock();
+            try {
+                if (wal == null || appendsSinceSnapshot == 0) {
+                    return;
+                }
+                try {
+                    wal.force(false);
+                    wal.close();
+                    unsyncedAppends = 0;
+                    appendsSinceSnapshot = 0;
+                    firstSegment = ++walSegment;
+                    wal = openSegment(firstSegment);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to rotate equation log", e);
+                }
+            } finally {
+                walLock.unlock();
+            }
+
+            try {
+                writeSnapshot(firstSegment, equations.get(), nextId.getAsInt());
+                deleteBefore(WAL_PREFIX, WAL_SUFFIX, firstSegment);
+                deleteBefore(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, firstSegment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write equation snapshot", e);
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void writeSnapshot(long firstSegment, Collection<Equation> equations, int nextId) throws IOException {
+        Path target = snapshotPath(firstSegment);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream channelOut = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channelOut, 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(nextId);
+            out.writeInt(equations.size());
+            for (Equation equation : equations) {
+                ByteBuffer record = EquationRecordCodec.encodeStore(equation);
+                out.write(record.array(), record.arrayOffset() + record.position(), record.remaining());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteBefore(String prefix, String suffix, long segment) throws IOException {
+        for (long older : segmentNumbers(prefix, suffix)) {
+            if (older < segment) {
+                Files.deleteIfExists(directory.resolve(prefix + format(older) + suffix));
+            }
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(walPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Long> segmentNumbers(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path walPath(long segment) {
+        return directory.resolve(WAL_PREFIX + format(segment) + WAL_SUFFIX);
+    }
+
+    private Path snapshotPath(long segment) {
+        return directory.resolve(SNAPSHOT_PREFIX + format(segment) + SNAPSHOT_SUFFIX);
+    }
+
+    private static String format(long segment) {
+        return String.format("%016d", segment);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+        }
+        walLock.lock();
+        try {
+            if (wal == null) {
+                return;
+            }
+            try {
+                wal.force(false);
+                wal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close equation log", e);
+            } finally {
+                wal = null;
+            }
+        } finally {
+            walLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Equation;
+import com.example.demo.util.ExpressionInterner;
+
+/**
+ * Default when {@code equation.persistence.enabled} is false: equations live only in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "equation.persistence.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpEquationPersistence implements EquationPersistence {
+
+    @Override
+    public RecoveredEquations recover(ExpressionInterner interner) {
+        return new RecoveredEquations(List.of(), 1);
+    }
+
+    @Override
+    public void appendStore(Equation equation) {
+    }
+
+    @Override
+    public void appendDelete(String equationId) {
+    }
+
+    @Override
+    public void snapshot(Supplier<Collection<Equation>> equations, IntSupplier nextId) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.persistence;
+
+import java.util.List;
+
+import com.example.demo.model.EquationStats;
+import com.example.demo.model.TreeNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An equation as read back from disk: the canonical tree is already rebuilt, so it only
+ * needs compiling.
+ */
+@Data
+@AllArgsConstructor
+public class PersistedEquation {
+    private String equationId;
+    private String equation;
+    private List<String> variables;
+    private EquationStats stats;
+    private TreeNode root;
+}
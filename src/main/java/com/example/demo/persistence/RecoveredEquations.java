@@ -0,0 +1,13 @@
+package com.example.demo.persistence;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RecoveredEquations {
+    private List<PersistedEquation> equations;
+    private int nextId;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.example.demo.model.Equation;
+
+public interface EquationRepository {
+    Equation save(Equation equation);
+    Optional<Equation> findById(String equationId);
+    List<Equation> findAll();
+    boolean deleteById(String equationId);
+    int count();
+}
@@ -0,0 +1,84 @@
+package com.example.demo.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.Equation;
+
+/**
+ * Equation store backed by a {@link ConcurrentHashMap}: lookups are lock-free and
+ * writes only contend on the bin they touch, so evaluators are never blocked by stores.
+ * Listing returns an immutable snapshot that is rebuilt only after a write.
+ */
+@Repository
+public class InMemoryEquationRepository implements EquationRepository {
+
+    private static final Comparator<Equation> BY_ID = Comparator
+            .comparingInt((Equation equation) -> equation.getEquationId().length())
+            .thenComparing(Equation::getEquationId);
+
+    private final ConcurrentHashMap<String, Equation> equations = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.emptyList());
+
+    @Override
+    public Equation save(Equation equation) {
+        equations.put(equation.getEquationId(), equation);
+        version.incrementAndGet();
+        return equation;
+    }
+
+    @Override
+    public Optional<Equation> findById(String equationId) {
+        return equationId == null ? Optional.empty() : Optional.ofNullable(equations.get(equationId));
+    }
+
+    @Override
+    public List<Equation> findAll() {
+        Snapshot current = snapshot;
+        long expectedVersion = version.get();
+        if (current.version == expectedVersion) {
+            return current.equations;
+        }
+
+        List<Equation> copy = new ArrayList<>(equations.values());
+        copy.sort(BY_ID);
+        List<Equation> equationList = Collections.unmodifiableList(copy);
+        // Only publish if no write raced with the copy; otherwise the next reader rebuilds
+        if (version.get() == expectedVersion) {
+            snapshot = new Snapshot(expectedVersion, equationList);
+        }
+        return equationList;
+    }
+
+    @Override
+    public boolean deleteById(String equationId) {
+        if (equationId == null || equations.remove(equationId) == null) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public int count() {
+        return equations.size();
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final List<Equation> equations;
+
+        private Snapshot(long version, List<Equation> equations) {
+            this.version = version;
+            this.equations = equations;
+        }
+    }
+}
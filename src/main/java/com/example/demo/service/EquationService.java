@@ -1,13 +1,43 @@
 package com.example.demo.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+import com.example.demo.model.BatchEvaluation;
 import com.example.demo.model.Equation;
+import com.example.demo.model.GradientEvaluation;
+import com.example.demo.model.Interval;
+import com.example.demo.model.MultiEvaluation;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.RootSolution;
+import com.example.demo.model.SolveBatch;
+import com.example.demo.model.SolveParameters;
+import com.example.demo.model.SweepAxis;
+import com.example.demo.model.ThresholdSearch;
+import com.example.demo.util.ParameterSweep;
 
 public interface EquationService {
     String storeEquation(String equation);
+    String storeEquation(String equation, boolean deduplicate);
     List<Equation> getAllEquations();
     Equation getEquationById(String equationId);
+    void deleteEquation(String equationId);
     double evaluateEquation(String equationId, Map<String, Double> variables);
+    double evaluateEquation(Equation equation, Map<String, Double> variables);
+    double evaluateEquation(String equationId, double[] values);
+    MultiEvaluation evaluateEquations(List<String> equationIds, Map<String, Double> variables);
+    GradientEvaluation evaluateGradient(String equationId, Map<String, Double> variables, List<String> withRespectTo);
+    RootSolution solve(String equationId, SolveParameters parameters, Map<String, Double> variables);
+    SolveBatch solveBatch(String equationId, SolveParameters parameters, List<Map<String, Double>> parameterSets);
+    BatchEvaluation evaluateBatch(String equationId, Map<String, double[]> columns);
+    BatchEvaluation evaluateBatch(String equationId, double[][] slotColumns, int rows);
+    ParameterSweep prepareSweep(String equationId, List<SweepAxis> axes, Map<String, Double> variables);
+    RangeBounds findRange(String equationId, Map<String, Interval> box, Map<String, Double> variables,
+            double tolerance, int maxBoxes);
+    ThresholdSearch searchThreshold(String equationId, Map<String, Interval> box, Map<String, Double> variables,
+            double threshold, boolean above, int maxBoxes);
+    long evaluateStream(String equationId, InputStream input, OutputStream output) throws IOException;
 } 
\ No newline at end of file
@@ -1,62 +1,938 @@
 package com.example.demo.service.impl;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.example.demo.cache.EvaluationResultCache;
+import com.example.demo.coalesce.EvaluationCoalescer;
+import com.example.demo.exception.EquationParseException;
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
 import com.example.demo.model.Equation;
+import com.example.demo.model.EquationStats;
+import com.example.demo.model.ExpressionEvaluator;
 import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.GradientEvaluation;
+import com.example.demo.model.Interval;
+import com.example.demo.model.MultiEvaluation;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.RootSolution;
+import com.example.demo.model.SolveBatch;
+import com.example.demo.model.SolveParameters;
+import com.example.demo.model.StorageLayout;
+import com.example.demo.model.SweepAxis;
+import com.example.demo.model.ThresholdSearch;
+import com.example.demo.model.TreeNode;
+import com.example.demo.parallel.ParallelBatchEvaluator;
+import com.example.demo.persistence.EquationPersistence;
+import com.example.demo.persistence.NoOpEquationPersistence;
+import com.example.demo.persistence.PersistedEquation;
+import com.example.demo.persistence.RecoveredEquations;
+import com.example.demo.repository.EquationRepository;
+import com.example.demo.repository.InMemoryEquationRepository;
 import com.example.demo.service.EquationService;
 import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+import com.example.demo.util.ExpressionInterner;
+import com.example.demo.util.ExpressionOptimizer;
+import com.example.demo.util.IntervalSearch;
+import com.example.demo.util.ParameterSweep;
+import com.example.demo.util.RootFinder;
 
 @Service
 public class EquationServiceImpl implements EquationService {
     
-    private final Map<String, Equation> equationsMap = new HashMap<>();
+    private static final int STREAM_FLUSH_ROWS = 256;
+    private static final int EQUATIONS_PER_TASK = 64;
+    private static final int SOLVES_PER_TASK = 16;
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    
+    private final EquationRepository equationRepository;
+    private final EquationMetrics equationMetrics;
+    private final TieredCompiler tieredCompiler;
+    private final EvaluationResultCache resultCache;
+    private final EquationPersistence equationPersistence;
+    private final StorageLayout storageLayout;
+    private final ParallelBatchEvaluator batchEvaluator;
+    private final EvaluationCoalescer coalescer;
     private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final ExpressionInterner expressionInterner = new ExpressionInterner();
+    // Keyed by canonical shape (hash-consed root or packed tree) together with the slot order
+    private final Map<CanonicalKey, String> canonicalEquationIds = new ConcurrentHashMap<>();
+    // Held shared from a log append until the change is visible in the repository, and
+    // exclusively by the snapshot while it reads the repository
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+    
+    /**
+     * An in-memory service with every optional component at its default, as
+     * {@code builder().build()}.
+     */
+    public EquationServiceImpl() {
+        this(new Builder());
+    }
+    
+    private EquationServiceImpl(Builder builder) {
+        this(builder.equationRepository,
+                builder.equationMetrics != null ? builder.equationMetrics : new EquationMetrics(builder.equationRepository),
+                builder.tieredCompiler, builder.resultCache, builder.equationPersistence, builder.storageLayout,
+                builder.batchEvaluator, builder.coalescer);
+    }
+    
+    @Autowired
+    public EquationServiceImpl(EquationRepository equationRepository, EquationMetrics equationMetrics,
+            TieredCompiler tieredCompiler, EvaluationResultCache resultCache, EquationPersistence equationPersistence,
+            @Value("${equation.storage.layout:tree}") StorageLayout storageLayout,
+            ParallelBatchEvaluator batchEvaluator, EvaluationCoalescer coalescer) {
+        this.equationRepository = equationRepository;
+        this.equationMetrics = equationMetrics;
+        this.tieredCompiler = tieredCompiler;
+        this.resultCache = resultCache;
+        this.equationPersistence = equationPersistence;
+        this.storageLayout = storageLayout;
+        this.batchEvaluator = batchEvaluator;
+        this.coalescer = coalescer;
+    }
+    
+    /**
+     * For wiring the service by hand, as tests and benchmarks do. Anything not set takes the
+     * same default as {@link #EquationServiceImpl()}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public static final class Builder {
+        private EquationRepository equationRepository = new InMemoryEquationRepository();
+        private EquationMetrics equationMetrics;
+        private TieredCompiler tieredCompiler = new TieredCompiler();
+        private EvaluationResultCache resultCache = EvaluationResultCache.disabled();
+        private EquationPersistence equationPersistence = new NoOpEquationPersistence();
+        private StorageLayout storageLayout = StorageLayout.TREE;
+        private ParallelBatchEvaluator batchEvaluator = ParallelBatchEvaluator.sequential();
+        private EvaluationCoalescer coalescer = EvaluationCoalescer.disabled();
+        
+        private Builder() {
+        }
+        
+        public Builder repository(EquationRepository equationRepository) {
+            this.equationRepository = equationRepository;
+            return this;
+        }
+        
+        /**
+         * Defaults to metrics on their own registry, over the repository.
+         */
+        public Builder metrics(EquationMetrics equationMetrics) {
+            this.equationMetrics = equationMetrics;
+            return this;
+        }
+        
+        public Builder tieredCompiler(TieredCompiler tieredCompiler) {
+            this.tieredCompiler = tieredCompiler;
+            return this;
+        }
+        
+        public Builder resultCache(EvaluationResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+        
+        public Builder persistence(EquationPersistence equationPersistence) {
+            this.equationPersistence = equationPersistence;
+            return this;
+        }
+        
+        public Builder storageLayout(StorageLayout storageLayout) {
+            this.storageLayout = storageLayout;
+            return this;
+        }
+        
+        public Builder batchEvaluator(ParallelBatchEvaluator batchEvaluator) {
+            this.batchEvaluator = batchEvaluator;
+            return this;
+        }
+        
+        public Builder coalescer(EvaluationCoalescer coalescer) {
+            this.coalescer = coalescer;
+            return this;
+        }
+        
+        public EquationServiceImpl build() {
+            return new EquationServiceImpl(this);
+        }
+    }
+    
+    /**
+     * Reloads persisted equations under their original IDs. Trees come back pre-parsed and
+     * canonical, so only compilation runs.
+     */
+    @PostConstruct
+    public void recover() {
+        long start = System.nanoTime();
+        RecoveredEquations recovered = equationPersistence.recover(layoutInterner());
+        for (PersistedEquation persisted : recovered.getEquations()) {
+            ExpressionTree expressionTree = new ExpressionTree();
+            expressionTree.setRoot(persisted.getRoot());
+            CompiledExpression compiledExpression = ExpressionCompiler.compile(expressionTree, persisted.getVariables());
+            PackedExpressionTree packedTree = pack(expressionTree, compiledExpression);
+            Equation equation = new Equation(persisted.getEquationId(), persisted.getEquation(),
+                    packedTree == null ? expressionTree : null, compiledExpression, persisted.getStats());
+            equation.setPackedTree(packedTree);
+            equationRepository.save(equation);
+            equationMetrics.recordStored(equation);
+            canonicalEquationIds.putIfAbsent(canonicalKey(expressionTree, packedTree, compiledExpression.getVariables()),
+                    persisted.getEquationId());
+        }
+        idGenerator.accumulateAndGet(recovered.getNextId(), Math::max);
+        equationMetrics.recordRecovery(recovered.getEquations().size(), System.nanoTime() - start);
+    }
+    
+    @Scheduled(fixedDelayString = "${equation.persistence.snapshot-interval-ms:300000}")
+    @PreDestroy
+    public void snapshot() {
+        equationPersistence.snapshot(this::publishedEquations, idGenerator::get);
+    }
+    
+    /**
+     * Waits for changes already in the log to reach the repository, so that a snapshot taken
+     * after rotating the log includes everything logged before it.
+     */
+    private List<Equation> publishedEquations() {
+        publishLock.writeLock().lock();
+        try {
+            return equationRepository.findAll();
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
     
     @Override
     public String storeEquation(String equationStr) {
+        return storeEquation(equationStr, false);
+    }
+    
+    @Override
+    public String storeEquation(String equationStr, boolean deduplicate) {
         if (equationStr == null || equationStr.trim().isEmpty()) {
             throw new IllegalArgumentException("Equation cannot be empty");
         }
         
+        return equationMetrics.getStoreTimer().record(() -> parseAndStore(equationStr, deduplicate));
+    }
+    
+    private String parseAndStore(String equationStr, boolean deduplicate) {
         try {
-            ExpressionTree expressionTree = EquationParser.parseEquation(equationStr);
+            ExpressionTree parsedTree = equationMetrics.getParseTimer().record(() -> EquationParser.parseEquation(equationStr));
+            List<String> variables = ExpressionCompiler.variablesInOrder(parsedTree);
+            
+            TreeNode optimizedRoot = ExpressionOptimizer.optimize(parsedTree.getRoot());
+            
+            ExpressionTree expressionTree = new ExpressionTree();
+            expressionTree.setRoot(layoutInterner().canonicalize(optimizedRoot));
             
-            String equationId = String.valueOf(idGenerator.getAndIncrement());
+            int canonicalNodeCount = ExpressionOptimizer.countNodes(expressionTree.getRoot());
+            int dagNodeCount = ExpressionOptimizer.countDistinctNodes(expressionTree.getRoot());
+            EquationStats stats = new EquationStats(
+                    ExpressionOptimizer.countNodes(parsedTree.getRoot()),
+                    ExpressionOptimizer.countNodes(optimizedRoot),
+                    dagNodeCount,
+                    canonicalNodeCount - dagNodeCount);
+            CompiledExpression compiledExpression = ExpressionCompiler.compile(expressionTree, variables);
+            PackedExpressionTree packedTree = pack(expressionTree, compiledExpression);
+            ExpressionTree storedTree = packedTree == null ? expressionTree : null;
             
-            Equation equation = new Equation(equationId, equationStr, expressionTree);
-            equationsMap.put(equationId, equation);
+            CanonicalKey canonicalKey = canonicalKey(expressionTree, packedTree, compiledExpression.getVariables());
+            if (deduplicate) {
+                String existingId = canonicalEquationIds.get(canonicalKey);
+                if (existingId != null) {
+                    return existingId;
+                }
+                // Saved outside computeIfAbsent so no map lock is held across the log append
+                String equationId = saveEquation(equationStr, storedTree, packedTree, compiledExpression, stats);
+                existingId = canonicalEquationIds.putIfAbsent(canonicalKey, equationId);
+                if (existingId != null) {
+                    // Lost a race with an identical store; keep the winner's ID
+                    deleteEquation(equationId);
+                    return existingId;
+                }
+                return equationId;
+            }
             
+            String equationId = saveEquation(equationStr, storedTree, packedTree, compiledExpression, stats);
+            canonicalEquationIds.putIfAbsent(canonicalKey, equationId);
             return equationId;
+        } catch (EquationParseException e) {
+            throw new EquationParseException("Invalid equation format: " + e.getMessage(), e.getPosition());
+        } catch (UncheckedIOException e) {
+            throw e;
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid equation format: " + e.getMessage());
         }
     }
     
+    /**
+     * In the PACKED layout trees are canonicalized with a throwaway interner, so no node
+     * objects outlive the store call; sharing within one equation is still found.
+     */
+    private ExpressionInterner layoutInterner() {
+        return storageLayout == StorageLayout.PACKED ? new ExpressionInterner() : expressionInterner;
+    }
+    
+    private PackedExpressionTree pack(ExpressionTree expressionTree, CompiledExpression compiledExpression) {
+        return storageLayout == StorageLayout.PACKED
+                ? PackedExpressionTree.pack(expressionTree, compiledExpression.getVariables())
+                : null;
+    }
+    
+    private static CanonicalKey canonicalKey(ExpressionTree expressionTree, PackedExpressionTree packedTree,
+            List<String> variables) {
+        return new CanonicalKey(packedTree != null ? packedTree : expressionTree.getRoot(), variables);
+    }
+    
+    private String saveEquation(String equationStr, ExpressionTree expressionTree, PackedExpressionTree packedTree,
+            CompiledExpression compiledExpression, EquationStats stats) {
+        String equationId = String.valueOf(idGenerator.getAndIncrement());
+        Equation equation = new Equation(equationId, equationStr, expressionTree, compiledExpression, stats);
+        equation.setPackedTree(packedTree);
+        // Logged before it is published, so nothing reads an equation that a crash could lose;
+        // if the append fails the client sees the failure and keeps no ID
+        publishLock.readLock().lock();
+        try {
+            equationPersistence.appendStore(equation);
+            equationRepository.save(equation);
+        } finally {
+            publishLock.readLock().unlock();
+        }
+        equationMetrics.recordStored(equation);
+        return equationId;
+    }
+    
     @Override
     public List<Equation> getAllEquations() {
-        return new ArrayList<>(equationsMap.values());
+        return equationRepository.findAll();
     }
     
     @Override
     public Equation getEquationById(String equationId) {
-        Equation equation = equationsMap.get(equationId);
-        if (equation == null) {
-            throw new IllegalArgumentException("Equation not found with ID: " + equationId);
+        return equationRepository.findById(equationId)
+                .orElseThrow(() -> new IllegalArgumentException("Equation not found with ID: " + equationId));
+    }
+    
+    @Override
+    public void deleteEquation(String equationId) {
+        Equation equation = getEquationById(equationId);
+        // Logged first, so an equation that clients saw disappear cannot come back after a crash
+        publishLock.readLock().lock();
+        try {
+            equationPersistence.appendDelete(equationId);
+            if (!equationRepository.deleteById(equationId)) {
+                throw new IllegalArgumentException("Equation not found with ID: " + equationId);
+            }
+        } finally {
+            publishLock.readLock().unlock();
         }
-        return equation;
+        equationMetrics.recordDeleted(equation);
+        // Frees the dedup key so that storing the same expression again creates a new equation
+        canonicalEquationIds.remove(canonicalKey(equation.getExpressionTree(), equation.getPackedTree(),
+                equation.getVariables()), equationId);
+        resultCache.invalidate(equationId);
+        coalescer.invalidate(equationId);
     }
     
     @Override
     public double evaluateEquation(String equationId, Map<String, Double> variables) {
+        return evaluateEquation(getEquationById(equationId), variables);
+    }
+    
+    @Override
+    public double evaluateEquation(Equation equation, Map<String, Double> variables) {
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            return equation.getExpressionTree().evaluate(variables);
+        }
+        return evaluateCoalesced(equation, compiledExpression.bind(variables));
+    }
+    
+    @Override
+    public double evaluateEquation(String equationId, double[] values) {
+        Equation equation = getEquationById(equationId);
+        
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        int expected = compiledExpression.getVariableCount();
+        if (values == null || values.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " variable values in order "
+                    + compiledExpression.getVariables() + " but got " + (values == null ? 0 : values.length));
+        }
+        return evaluateCoalesced(equation, values);
+    }
+    
+    /**
+     * Evaluates each listed equation, or every stored one when {@code equationIds} is null,
+     * against the same variables on the batch pool. Equations with the same variable signature
+     * share one bound slot array, so a binding is resolved once per signature, not once per
+     * equation. Unknown IDs, missing variables and arithmetic errors are reported per equation.
+     */
+    @Override
+    public MultiEvaluation evaluateEquations(List<String> equationIds, Map<String, Double> variables) {
+        Equation[] equations;
+        String[] ids;
+        if (equationIds == null) {
+            equations = equationRepository.findAll().toArray(new Equation[0]);
+            ids = new String[equations.length];
+            for (int i = 0; i < equations.length; i++) {
+                ids[i] = equations[i].getEquationId();
+            }
+        } else {
+            ids = equationIds.toArray(new String[0]);
+            equations = new Equation[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                equations[i] = ids[i] == null ? null : equationRepository.findById(ids[i]).orElse(null);
+            }
+        }
+        
+        double[] results = new double[ids.length];
+        String[] errors = new String[ids.length];
+        Map<List<String>, Binding> bindings = new ConcurrentHashMap<>();
+        batchEvaluator.forEach(ids.length, EQUATIONS_PER_TASK, i -> {
+            Equation equation = equations[i];
+            if (equation == null) {
+                errors[i] = "Equation not found with ID: " + ids[i];
+                return;
+            }
+            try {
+                results[i] = evaluateBound(equation, variables, bindings);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            } catch (ArithmeticException e) {
+                errors[i] = "Arithmetic error: " + e.getMessage();
+            }
+        });
+        
+        int errorCount = 0;
+        for (String error : errors) {
+            if (error != null) {
+                errorCount++;
+            }
+        }
+        return new MultiEvaluation(ids, results, errors, errorCount);
+    }
+    
+    private double evaluateBound(Equation equation, Map<String, Double> variables, Map<List<String>, Binding> bindings) {
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            return equation.getExpressionTree().evaluate(variables);
+        }
+        Binding binding = bindings.computeIfAbsent(compiledExpression.getVariables(), signature -> {
+            try {
+                return Binding.of(compiledExpression.bind(variables));
+            } catch (IllegalArgumentException e) {
+                return Binding.failed(e.getMessage());
+            }
+        });
+        return evaluate(equation, binding.getSlots());
+    }
+    
+    /**
+     * Single evaluation on behalf of one request. With coalescing on, concurrent requests for
+     * the same equation may share a batch pass, which bypasses the result cache.
+     */
+    private double evaluateCoalesced(Equation equation, double[] slots) {
+        if (!coalescer.isEnabled()) {
+            return evaluate(equation, slots);
+        }
+        return coalescer.evaluate(equation.getEquationId(), slots, values -> evaluate(equation, values),
+                (slotColumns, rows) -> evaluateBatch(equation, slotColumns, rows));
+    }
+    
+    /**
+     * Counted and timed around the cache lookup, so hits still count toward latency metrics
+     * and the JIT promotion threshold.
+     */
+    private double evaluate(Equation equation, double[] slots) {
+        ExpressionEvaluator jitEvaluator = equation.getJitEvaluator();
+        long start = System.nanoTime();
+        try {
+            return resultCache.get(equation.getEquationId(), slots, jitEvaluator != null
+                    ? jitEvaluator::evaluate
+                    : equation.getCompiledExpression()::evaluate);
+        } finally {
+            equationMetrics.recordEvaluation(equation, System.nanoTime() - start);
+            if (jitEvaluator == null) {
+                tieredCompiler.recordEvaluation(equation);
+            }
+        }
+    }
+    
+    /**
+     * Value and partial derivatives in one forward-mode pass. Variables the equation does not
+     * use have a partial derivative of zero.
+     */
+    @Override
+    public GradientEvaluation evaluateGradient(String equationId, Map<String, Double> variables,
+            List<String> withRespectTo) {
+        Equation equation = getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        
+        List<String> equationVariables = compiledExpression.getVariables();
+        String[] names = (withRespectTo == null ? equationVariables : withRespectTo).toArray(new String[0]);
+        int[] wrtSlots = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) {
+                throw new IllegalArgumentException("Variable names to differentiate by cannot be null");
+            }
+            wrtSlots[i] = equationVariables.indexOf(names[i]);
+        }
+        
+        double[] slots = compiledExpression.bind(variables);
+        double[] gradient = new double[names.length];
+        long start = System.nanoTime();
+        try {
+            double value = compiledExpression.evaluateGradient(slots, wrtSlots, gradient);
+            return new GradientEvaluation(value, names, gradient);
+        } finally {
+            equationMetrics.recordEvaluation(equation, System.nanoTime() - start);
+        }
+    }
+    
+    @Override
+    public RootSolution solve(String equationId, SolveParameters parameters, Map<String, Double> variables) {
+        Equation equation = getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        return solve(equation, unknownSlot(equation, parameters), parameters, variables);
+    }
+    
+    /**
+     * Solves once per parameter set on the batch pool. Failures such as a missing variable or
+     * a bracket without a sign change are reported per set.
+     */
+    @Override
+    public SolveBatch solveBatch(String equationId, SolveParameters parameters, List<Map<String, Double>> parameterSets) {
+        Equation equation = getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        if (parameterSets == null) {
+            throw new IllegalArgumentException("parameterSets cannot be null");
+        }
+        int unknownSlot = unknownSlot(equation, parameters);
+        
+        RootSolution[] solutions = new RootSolution[parameterSets.size()];
+        String[] errors = new String[parameterSets.size()];
+        batchEvaluator.forEach(solutions.length, SOLVES_PER_TASK, i -> {
+            try {
+                solutions[i] = solve(equation, unknownSlot, parameters, parameterSets.get(i));
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            } catch (ArithmeticException e) {
+                errors[i] = "Arithmetic error: " + e.getMessage();
+            }
+        });
+        
+        int errorCount = 0;
+        for (String error : errors) {
+            if (error != null) {
+                errorCount++;
+            }
+        }
+        return new SolveBatch(solutions, errors, errorCount);
+    }
+    
+    private static int unknownSlot(Equation equation, SolveParameters parameters) {
+        String variable = parameters.getVariable();
+        if (variable == null) {
+            throw new IllegalArgumentException("Variable to solve for is required");
+        }
+        int slot = equation.getCompiledExpression().getVariables().indexOf(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Variable " + variable + " does not appear in equation "
+                    + equation.getEquationId());
+        }
+        return slot;
+    }
+    
+    private RootSolution solve(Equation equation, int unknownSlot, SolveParameters parameters,
+            Map<String, Double> variables) {
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        List<String> names = compiledExpression.getVariables();
+        double[] slots = new double[names.size()];
+        for (int i = 0; i < slots.length; i++) {
+            if (i == unknownSlot) {
+                continue;
+            }
+            Double value = variables == null ? null : variables.get(names.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + names.get(i) + " not provided");
+            }
+            slots[i] = value;
+        }
+        
+        long start = System.nanoTime();
+        RootSolution solution;
+        try {
+            solution = RootFinder.solve(compiledExpression, slots, unknownSlot, parameters.getTarget(),
+                    parameters.getInitialGuess(), parameters.getLower(), parameters.getUpper(),
+                    parameters.getTolerance(), parameters.getMaxIterations());
+        } catch (RuntimeException e) {
+            equationMetrics.recordFailedSolve(System.nanoTime() - start);
+            throw e;
+        }
+        equationMetrics.recordSolve(equation, solution, System.nanoTime() - start);
+        return solution;
+    }
+    
+    @Override
+    public BatchEvaluation evaluateBatch(String equationId, Map<String, double[]> columns) {
+        Equation equation = getEquationById(equationId);
+        
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        
+        List<String> variables = compiledExpression.getVariables();
+        double[][] slotColumns = new double[variables.size()][];
+        int rows = -1;
+        for (int i = 0; i < slotColumns.length; i++) {
+            double[] column = columns == null ? null : columns.get(variables.get(i));
+            if (column == null) {
+                throw new IllegalArgumentException("Variable " + variables.get(i) + " not provided");
+            }
+            if (rows >= 0 && column.length != rows) {
+                throw new IllegalArgumentException("Column " + variables.get(i) + " has " + column.length
+                        + " rows, expected " + rows);
+            }
+            rows = column.length;
+            slotColumns[i] = column;
+        }
+        if (rows < 0) {
+            rows = 1;
+        }
+        return evaluateBatch(equation, slotColumns, rows);
+    }
+    
+    /**
+     * Evaluates {@code rows} rows given as one column per variable slot, in the order of the
+     * equation's variable signature. Columns may be longer than {@code rows}.
+     */
+    @Override
+    public BatchEvaluation evaluateBatch(String equationId, double[][] slotColumns, int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Row count cannot be negative");
+        }
+        Equation equation = getEquationById(equationId);
+        
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        int expected = compiledExpression.getVariableCount();
+        if (slotColumns == null || slotColumns.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " columns in order "
+                    + compiledExpression.getVariables() + " but got " + (slotColumns == null ? 0 : slotColumns.length));
+        }
+        for (double[] column : slotColumns) {
+            if (column == null || column.length < rows) {
+                throw new IllegalArgumentException("Every column needs " + rows + " rows");
+            }
+        }
+        return evaluateBatch(equation, slotColumns, rows);
+    }
+    
+    private BatchEvaluation evaluateBatch(Equation equation, double[][] slotColumns, int rows) {
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        double[] results = new double[rows];
+        byte[] errors = new byte[rows];
+        long start = System.nanoTime();
+        batchEvaluator.evaluate(compiledExpression, slotColumns, rows, results, errors);
+        equationMetrics.recordBatchEvaluation(equation, rows, System.nanoTime() - start);
+        
+        int errorCount = 0;
+        for (byte error : errors) {
+            if (error != CompiledExpression.ROW_OK) {
+                errorCount++;
+            }
+        }
+        return new BatchEvaluation(results, errors, errorCount);
+    }
+    
+    /**
+     * Validates and plans a grid sweep over the equation's packed DAG. Nothing is evaluated
+     * until the returned sweep is written, so validation errors surface before any output.
+     */
+    @Override
+    public ParameterSweep prepareSweep(String equationId, List<SweepAxis> axes, Map<String, Double> variables) {
+        Equation equation = getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        PackedExpressionTree packedTree = equation.getPackedTree() != null
+                ? equation.getPackedTree()
+                : PackedExpressionTree.pack(equation.getExpressionTree(), compiledExpression.getVariables());
+        return ParameterSweep.plan(packedTree, axes, variables);
+    }
+    
+    /**
+     * Encloses the minimum and maximum of the equation over a box by branch and bound on
+     * interval bounds of its packed DAG.
+     */
+    @Override
+    public RangeBounds findRange(String equationId, Map<String, Interval> box, Map<String, Double> variables,
+            double tolerance, int maxBoxes) {
         Equation equation = getEquationById(equationId);
+        IntervalSearch search = planIntervalSearch(equation, box, variables);
+        long start = System.nanoTime();
+        try {
+            return search.range(tolerance, maxBoxes);
+        } finally {
+            equationMetrics.recordBatchEvaluation(equation, search.getBoxesEvaluated(), System.nanoTime() - start);
+        }
+    }
+    
+    @Override
+    public ThresholdSearch searchThreshold(String equationId, Map<String, Interval> box, Map<String, Double> variables,
+            double threshold, boolean above, int maxBoxes) {
+        Equation equation = getEquationById(equationId);
+        IntervalSearch search = planIntervalSearch(equation, box, variables);
+        long start = System.nanoTime();
+        try {
+            return search.threshold(threshold, above, maxBoxes);
+        } finally {
+            equationMetrics.recordBatchEvaluation(equation, search.getBoxesEvaluated(), System.nanoTime() - start);
+        }
+    }
+    
+    private static IntervalSearch planIntervalSearch(Equation equation, Map<String, Interval> box,
+            Map<String, Double> variables) {
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equation.getEquationId() + " has no compiled form");
+        }
+        PackedExpressionTree packedTree = equation.getPackedTree() != null
+                ? equation.getPackedTree()
+                : PackedExpressionTree.pack(equation.getExpressionTree(), compiledExpression.getVariables());
+        return IntervalSearch.plan(packedTree, compiledExpression, box, variables);
+    }
+    
+    /**
+     * Evaluates a stream of newline-delimited JSON objects mapping variable names to numbers
+     * and writes one NDJSON record per row, either {@code {"row":n,"result":r}} or
+     * {@code {"row":n,"error":"..."}}. Rows are parsed, evaluated and written one at a time,
+     * so memory use does not grow with the input and a slow reader slows the writer down.
+     * A malformed document cannot be resynchronized and ends the stream with an error record.
+     */
+    @Override
+    public long evaluateStream(String equationId, InputStream input, OutputStream output) throws IOException {
+        Equation equation = getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        
+        List<String> variables = compiledExpression.getVariables();
+        Map<String, Integer> slotIndex = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            slotIndex.put(variables.get(i), i);
+        }
+        double[] slots = new double[variables.size()];
+        long[] boundInRow = new long[variables.size()];
+        
+        long rows = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(input);
+                JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    // Slots bound in this row are stamped with rows + 1, so nothing needs clearing
+                    String error = bindStreamRow(parser, token, slotIndex, slots, boundInRow, rows + 1);
+                    if (error == null) {
+                        error = missingVariable(variables, boundInRow, rows + 1);
+                    }
+                    if (error != null) {
+                        writeStreamError(generator, rows, error);
+                    } else {
+                        writeStreamRow(generator, equation, slots, rows);
+                    }
+                    rows++;
+                    if (rows % STREAM_FLUSH_ROWS == 0) {
+                        generator.flush();
+                    }
+                }
+            } catch (JsonParseException e) {
+                writeStreamError(generator, rows, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return rows;
+    }
+    
+    private void writeStreamRow(JsonGenerator generator, Equation equation, double[] slots, long row) throws IOException {
+        double result;
+        try {
+            result = evaluate(equation, slots);
+        } catch (ArithmeticException e) {
+            writeStreamError(generator, row, "Arithmetic error: " + e.getMessage());
+            return;
+        }
+        writeStreamResult(generator, row, result);
+    }
+    
+    /**
+     * Reads one row object into {@code slots}, marking each bound slot with the row number.
+     * Returns an error message for rows that are not objects of numbers.
+     */
+    private static String bindStreamRow(JsonParser parser, JsonToken token, Map<String, Integer> slotIndex,
+            double[] slots, long[] boundInRow, long row) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return "Row must be a JSON object of variable values";
+        }
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            Integer slot = slotIndex.get(name);
+            if (slot == null) {
+                parser.skipChildren();
+            } else if (value.isNumeric()) {
+                slots[slot] = parser.getDoubleValue();
+                boundInRow[slot] = row;
+            } else {
+                parser.skipChildren();
+                if (error == null) {
+                    error = "Variable " + name + " must be a number";
+                }
+            }
+        }
+        return error;
+    }
+    
+    private static String missingVariable(List<String> variables, long[] boundInRow, long row) {
+        for (int i = 0; i < boundInRow.length; i++) {
+            if (boundInRow[i] != row) {
+                return "Variable " + variables.get(i) + " not provided";
+            }
+        }
+        return null;
+    }
+    
+    private static void writeStreamResult(JsonGenerator generator, long row, double result) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("row", row);
+        generator.writeNumberField("result", result);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
+    private static void writeStreamError(JsonGenerator generator, long row, String error) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("row", row);
+        generator.writeStringField("error", error);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
+    /**
+     * Deduplication key. The shape is a hash-consed root, compared by identity since equal
+     * canonical trees share one root instance, or a packed tree, compared by value. The slot
+     * order is part of the key: "x + 2y" and "2y + x" are the same shape but bind slot-ordered
+     * values differently, so neither may be handed the other's ID.
+     */
+    private static final class CanonicalKey {
+        private final Object shape;
+        private final List<String> variables;
+        
+        private CanonicalKey(Object shape, List<String> variables) {
+            this.shape = shape;
+            this.variables = variables;
+        }
         
-        return equation.getExpressionTree().evaluate(variables);
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CanonicalKey)) {
+                return false;
+            }
+            CanonicalKey key = (CanonicalKey) other;
+            // TreeNode's value equality walks every path through the shared DAG, which is
+            // exponential in depth; hash-consing already makes identity the right test
+            boolean sameShape = shape instanceof TreeNode ? shape == key.shape : shape.equals(key.shape);
+            return sameShape && variables.equals(key.variables);
+        }
+        
+        @Override
+        public int hashCode() {
+            int shapeHash = shape instanceof TreeNode ? System.identityHashCode(shape) : shape.hashCode();
+            return 31 * shapeHash + variables.hashCode();
+        }
+    }
+    
+    /**
+     * The outcome of binding the variables to one signature: the slot array shared by every
+     * equation with that signature, or the error that each of them reports.
+     */
+    private static final class Binding {
+        private final double[] slots;
+        private final String error;
+        
+        private Binding(double[] slots, String error) {
+            this.slots = slots;
+            this.error = error;
+        }
+        
+        private static Binding of(double[] slots) {
+            return new Binding(slots, null);
+        }
+        
+        private static Binding failed(String error) {
+            return new Binding(null, error);
+        }
+        
+        private double[] getSlots() {
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            return slots;
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
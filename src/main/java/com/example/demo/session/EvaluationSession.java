@@ -0,0 +1,249 @@
+package com.example.demo.session;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.PackedExpressionTree;
+
+/**
+ * A stored equation bound to a set of variable values, with the value of every node of its
+ * packed DAG kept between calls. Applying a delta marks the nodes that depend on the changed
+ * variables (walking a parent index up from their leaves) and recomputes only those, children
+ * first. A one-variable update costs the number of nodes on the paths from that variable to
+ * the root, not the size of the equation.
+ *
+ * <p>Division by zero does not close the session: the failure is tracked per node, reported
+ * with the result, and cleared by a later delta that makes the divisor non-zero.
+ */
+public final class EvaluationSession {
+
+    private final String sessionId;
+    private final String equationId;
+    private final PackedExpressionTree tree;
+    private final List<String> variables;
+    private final double[] slots;
+    private final double[] values;
+    private final boolean[] failed;
+    // CSR parent index: parents of node i are parents[parentStart[i] .. parentStart[i + 1])
+    private final int[] parentStart;
+    private final int[] parents;
+    // CSR leaf index: LOAD nodes of slot s are leaves[leafStart[s] .. leafStart[s + 1])
+    private final int[] leafStart;
+    private final int[] leaves;
+    // Scratch for updates: nodes stamped with the current update number are already queued
+    private final int[] stamp;
+    private final int[] pending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int updateNumber;
+
+    EvaluationSession(String sessionId, String equationId, PackedExpressionTree tree, Map<String, Double> initialValues) {
+        this.sessionId = sessionId;
+        this.equationId = equationId;
+        this.tree = tree;
+        this.variables = tree.getVariables();
+        this.slots = new double[variables.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Double value = initialValues == null ? null : initialValues.get(variables.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + variables.get(i) + " not provided");
+            }
+            slots[i] = value;
+        }
+
+        int nodeCount = tree.getNodeCount();
+        this.values = new double[nodeCount];
+        this.failed = new boolean[nodeCount];
+        this.stamp = new int[nodeCount];
+        this.pending = new int[nodeCount];
+
+        int[] parentCount = new int[nodeCount + 1];
+        int[] leafCount = new int[slots.length + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            if (tree.opcodeAt(node) == CompiledExpression.LOAD) {
+                leafCount[tree.leafSlot(node) + 1]++;
+            } else if (!tree.isLeaf(node)) {
+                parentCount[tree.leftChild(node) + 1]++;
+                if (tree.rightChild(node) != tree.leftChild(node)) {
+                    parentCount[tree.rightChild(node) + 1]++;
+                }
+            }
+        }
+        this.parentStart = prefixSums(parentCount);
+        this.leafStart = prefixSums(leafCount);
+        this.parents = new int[parentStart[nodeCount]];
+        this.leaves = new int[leafStart[slots.length]];
+        int[] parentFill = Arrays.copyOf(parentStart, nodeCount);
+        int[] leafFill = Arrays.copyOf(leafStart, slots.length);
+        for (int node = 0; node < nodeCount; node++) {
+            if (tree.opcodeAt(node) == CompiledExpression.LOAD) {
+                leaves[leafFill[tree.leafSlot(node)]++] = node;
+            } else if (!tree.isLeaf(node)) {
+                parents[parentFill[tree.leftChild(node)]++] = node;
+                if (tree.rightChild(node) != tree.leftChild(node)) {
+                    parents[parentFill[tree.rightChild(node)]++] = node;
+                }
+            }
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            recompute(node);
+        }
+    }
+
+    private static int[] prefixSums(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        return counts;
+    }
+
+    /**
+     * Applies changed variable values and returns the new state. All names are validated
+     * before anything is applied, so a rejected delta leaves the session unchanged.
+     */
+    public SessionState update(Map<String, Double> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return state(0);
+        }
+        int[] changedSlots = new int[changes.size()];
+        double[] changedValues = new double[changes.size()];
+        int count = 0;
+        for (Map.Entry<String, Double> change : changes.entrySet()) {
+            int slot = variables.indexOf(change.getKey());
+            if (slot < 0) {
+                throw new IllegalArgumentException("Variable " + change.getKey() + " does not appear in equation " + equationId);
+            }
+            if (change.getValue() == null) {
+                throw new IllegalArgumentException("Variable " + change.getKey() + " must be a number");
+            }
+            changedSlots[count] = slot;
+            changedValues[count++] = change.getValue();
+        }
+
+        lock.lock();
+        try {
+            int stampValue = ++updateNumber;
+            int queued = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = changedSlots[i];
+                if (Double.compare(slots[slot], changedValues[i]) == 0) {
+                    continue;
+                }
+                slots[slot] = changedValues[i];
+                for (int l = leafStart[slot]; l < leafStart[slot + 1]; l++) {
+                    queued = markAncestors(leaves[l], stampValue, queued);
+                }
+            }
+            // Node indices are post-order, so ascending order recomputes children before parents
+            Arrays.sort(pending, 0, queued);
+            for (int i = 0; i < queued; i++) {
+                recompute(pending[i]);
+            }
+            return state(queued);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SessionState current() {
+        lock.lock();
+        try {
+            return state(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int markAncestors(int leaf, int stampValue, int queued) {
+        if (stamp[leaf] == stampValue) {
+            return queued;
+        }
+        stamp[leaf] = stampValue;
+        pending[queued++] = leaf;
+        // pending doubles as the work list: every queued node's parents are visited once
+        for (int next = queued - 1; next < queued; next++) {
+            int node = pending[next];
+            for (int p = parentStart[node]; p < parentStart[node + 1]; p++) {
+                int parent = parents[p];
+                if (stamp[parent] != stampValue) {
+                    stamp[parent] = stampValue;
+                    pending[queued++] = parent;
+                }
+            }
+        }
+        return queued;
+    }
+
+    private void recompute(int node) {
+        int opcode = tree.opcodeAt(node);
+        if (opcode == CompiledExpression.CONST) {
+            values[node] = tree.leafConstant(node);
+            return;
+        }
+        if (opcode == CompiledExpression.LOAD) {
+            values[node] = slots[tree.leafSlot(node)];
+            return;
+        }
+        int l = tree.leftChild(node);
+        int r = tree.rightChild(node);
+        double a = values[l];
+        double b = values[r];
+        boolean childFailed = failed[l] || failed[r];
+        switch (opcode) {
+            case CompiledExpression.ADD:
+                values[node] = a + b;
+                break;
+            case CompiledExpression.SUB:
+                values[node] = a - b;
+                break;
+            case CompiledExpression.MUL:
+                values[node] = a * b;
+                break;
+            case CompiledExpression.DIV:
+                childFailed |= b == 0;
+                values[node] = a / b;
+                break;
+            case CompiledExpression.POW:
+                values[node] = Math.pow(a, b);
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+        failed[node] = childFailed;
+    }
+
+    private SessionState state(int recomputedNodes) {
+        int root = values.length - 1;
+        Map<String, Double> bindings = new LinkedHashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            bindings.put(variables.get(i), slots[i]);
+        }
+        return new SessionState(sessionId, equationId, bindings, values[root], failed[root], recomputedNodes);
+    }
+
+    /**
+     * Rough retained size, used to bound the total memory held by open sessions.
+     */
+    public int getEstimatedBytes() {
+        long nodes = values.length;
+        long bytes = 128 + nodes * (Double.BYTES + 1 + 3L * Integer.BYTES)
+                + (long) parents.length * Integer.BYTES
+                + (long) slots.length * (Double.BYTES + Integer.BYTES)
+                + (long) leaves.length * Integer.BYTES;
+        // The packed tree itself: an opcode, two child indices and a constant per node at most
+        bytes += nodes * (1 + 2L * Integer.BYTES + Double.BYTES);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getEquationId() {
+        return equationId;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.session;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.service.EquationService;
+
+/**
+ * Open evaluation sessions, held in a Caffeine cache. Sessions expire after
+ * {@code equation.session.idle-timeout} without a read or update, and the total estimated
+ * size of all sessions is bounded by {@code equation.session.max-memory}; opening a session
+ * into a full store evicts the coldest sessions to make room for it. An evicted or expired
+ * session is simply gone: clients reopen it.
+ */
+@Component
+public class EvaluationSessionStore {
+
+    public static final String CACHE_NAME = "equation.sessions";
+
+    private final EquationService equationService;
+    private final long maxMemoryBytes;
+    private final Cache<String, EvaluationSession> sessions;
+
+    @Autowired
+    public EvaluationSessionStore(EquationService equationService, MeterRegistry registry,
+                                  @Value("${equation.session.idle-timeout:10m}") Duration idleTimeout,
+                                  @Value("${equation.session.max-memory:64MB}") DataSize maxMemory) {
+        this.equationService = equationService;
+        this.maxMemoryBytes = maxMemory.toBytes();
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String id, EvaluationSession session) -> session.getEstimatedBytes())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, sessions, CACHE_NAME);
+    }
+
+    /**
+     * Opens a session on a stored equation. The session keeps its own copy of the packed
+     * expression, so it stays usable if the equation is deleted while it is open. Fails if the
+     * session is larger than the memory bound, or if the cache turns it away to keep the
+     * sessions already open.
+     */
+    public SessionState open(String equationId, Map<String, Double> variables) {
+        Equation equation = equationService.getEquationById(equationId);
+        CompiledExpression compiledExpression = equation.getCompiledExpression();
+        if (compiledExpression == null) {
+            throw new IllegalArgumentException("Equation " + equationId + " has no compiled form");
+        }
+        PackedExpressionTree packedTree = equation.getPackedTree() != null
+                ? equation.getPackedTree()
+                : PackedExpressionTree.pack(equation.getExpressionTree(), compiledExpression.getVariables());
+        EvaluationSession session = new EvaluationSession(UUID.randomUUID().toString(), equationId, packedTree, variables);
+        if (session.getEstimatedBytes() > maxMemoryBytes) {
+            throw new IllegalArgumentException("Session for equation " + equationId + " needs about "
+                    + session.getEstimatedBytes() + " bytes, more than equation.session.max-memory allows");
+        }
+        makeRoom(session.getEstimatedBytes());
+        sessions.put(session.getSessionId(), session);
+        // A concurrent open may have taken the room, and then the admission policy can drop the newcomer
+        sessions.cleanUp();
+        if (sessions.getIfPresent(session.getSessionId()) == null) {
+            throw new IllegalArgumentException("Session capacity exhausted; close idle sessions or retry later");
+        }
+        return session.current();
+    }
+
+    public SessionState update(String sessionId, Map<String, Double> changes) {
+        return get(sessionId).update(changes);
+    }
+
+    public SessionState current(String sessionId) {
+        return get(sessionId).current();
+    }
+
+    public void close(String sessionId) {
+        if (sessions.asMap().remove(sessionId) == null) {
+            throw new IllegalArgumentException("Session not found: " + sessionId);
+        }
+    }
+
+    public long size() {
+        return sessions.estimatedSize();
+    }
+
+    void cleanUp() {
+        sessions.cleanUp();
+    }
+
+    /**
+     * Evicts the coldest sessions until {@code bytes} more fit under the memory bound. Left to
+     * itself, Caffeine's admission policy prefers an idle session it has seen before over a
+     * new one it has not, which is the wrong way round for sessions.
+     */
+    private void makeRoom(long bytes) {
+        sessions.cleanUp();
+        Policy.Eviction<String, EvaluationSession> eviction = sessions.policy().eviction().orElseThrow();
+        long excess = eviction.weightedSize().orElse(0) + bytes - maxMemoryBytes;
+        if (excess <= 0) {
+            return;
+        }
+        List<String> victims = eviction.coldest(entries -> {
+            List<String> ids = new ArrayList<>();
+            long freed = 0;
+            for (Iterator<Policy.CacheEntry<String, EvaluationSession>> it = entries.iterator();
+                    freed < excess && it.hasNext(); ) {
+                Policy.CacheEntry<String, EvaluationSession> entry = it.next();
+                ids.add(entry.getKey());
+                freed += entry.weight();
+            }
+            return ids;
+        });
+        sessions.invalidateAll(victims);
+    }
+
+    private EvaluationSession get(String sessionId) {
+        EvaluationSession session = sessions.getIfPresent(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Session not found or expired: " + sessionId);
+        }
+        return session;
+    }
+}
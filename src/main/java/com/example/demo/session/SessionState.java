@@ -0,0 +1,23 @@
+package com.example.demo.session;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of a session after an update. {@code divisionByZero} is set when the current
+ * bindings divide by zero, in which case {@code result} is not meaningful.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionState {
+    private String sessionId;
+    private String equationId;
+    private Map<String, Double> variables;
+    private double result;
+    private boolean divisionByZero;
+    private int recomputedNodes;
+}
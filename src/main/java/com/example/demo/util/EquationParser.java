@@ -1,12 +1,13 @@
 package com.example.demo.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.regex.Pattern;
 
+import com.example.demo.exception.EquationParseException;
 import com.example.demo.model.ExpressionTree;
 import com.example.demo.model.TreeNode;
 
@@ -28,32 +29,180 @@ public class EquationParser {
             throw new IllegalArgumentException("Equation cannot be empty");
         }
         
-        validateEquationSyntax(equation);
-        
-        List<String> postfix = infixToPostfix(equation);
-        
-        return buildExpressionTree(postfix);
+        ExpressionTree tree = new ExpressionTree();
+        tree.setRoot(new Parser(equation).parse());
+        return tree;
     }
     
-    private static void validateEquationSyntax(String equation) {
-        int openCount = 0;
-        for (char c : equation.toCharArray()) {
-            if (c == '(') openCount++;
-            if (c == ')') openCount--;
-            if (openCount < 0) throw new IllegalArgumentException("Unbalanced parentheses in equation");
+    /**
+     * Single-pass operator-precedence parser. Validates and builds the tree directly from the
+     * character stream, reporting the same messages as the former validate/tokenize/shunting-yard
+     * pipeline plus the position at which the error was detected. All operators are
+     * left-associative, as before. Operands, pending operators and open parentheses are kept on
+     * explicit stacks rather than the call stack, so deeply nested input cannot overflow it.
+     */
+    private static final class Parser {
+        
+        private final String input;
+        private final int length;
+        private int pos;
+        
+        private Parser(String input) {
+            this.input = input;
+            this.length = input.length();
+        }
+        
+        private TreeNode parse() {
+            Deque<TreeNode> operands = new ArrayDeque<>();
+            Deque<String> operators = new ArrayDeque<>();
+            Deque<Integer> opens = new ArrayDeque<>();
+            String pendingOperator = null;
+            
+            while (true) {
+                skipWhitespace();
+                if (pos >= length) {
+                    if (!opens.isEmpty()) {
+                        throw error("Unbalanced parentheses in equation", pos);
+                    }
+                    throw insufficientOperands(pendingOperator, pos);
+                }
+                
+                char c = input.charAt(pos);
+                if (c == '(') {
+                    int open = pos++;
+                    skipWhitespace();
+                    if (pos < length && input.charAt(pos) == ')') {
+                        throw error("Empty parentheses in equation", open);
+                    }
+                    opens.push(open);
+                    operators.push("(");
+                    pendingOperator = null;
+                    continue;
+                }
+                if (c == ')') {
+                    if (opens.isEmpty()) {
+                        throw error("Unbalanced parentheses in equation", pos);
+                    }
+                    throw insufficientOperands(pendingOperator, pos);
+                }
+                if (isOperatorChar(c)) {
+                    consumeOperator();
+                    throw insufficientOperands(pendingOperator != null ? pendingOperator : String.valueOf(c), pos - 1);
+                }
+                if (!isOperandChar(c)) {
+                    throw error("Equation contains invalid characters", pos);
+                }
+                
+                int start = pos;
+                while (pos < length && isOperandChar(input.charAt(pos))) {
+                    pos++;
+                }
+                operands.push(new TreeNode(input.substring(start, pos)));
+                
+                // After an operand: an operator, a closing parenthesis or the end of the input
+                while (true) {
+                    if (peekOperator() != 0) {
+                        pendingOperator = consumeOperator();
+                        reduce(operands, operators, PRECEDENCE.get(pendingOperator));
+                        operators.push(pendingOperator);
+                        break;
+                    }
+                    if (opens.isEmpty()) {
+                        if (pos < length) {
+                            throw unexpected(input.charAt(pos));
+                        }
+                        reduce(operands, operators, 1);
+                        return operands.pop();
+                    }
+                    if (pos >= length) {
+                        throw error("Unbalanced parentheses in equation", opens.peek());
+                    }
+                    if (input.charAt(pos) != ')') {
+                        throw unexpected(input.charAt(pos));
+                    }
+                    pos++;
+                    reduce(operands, operators, 1);
+                    operators.pop();
+                    opens.pop();
+                }
+            }
+        }
+        
+        /**
+         * Applies stacked operators that bind at least as tightly as {@code precedence}. An open
+         * parenthesis has precedence 0, so it stops the reduction.
+         */
+        private static void reduce(Deque<TreeNode> operands, Deque<String> operators, int precedence) {
+            while (!operators.isEmpty() && PRECEDENCE.get(operators.peek()) >= precedence) {
+                String operator = operators.pop();
+                TreeNode right = operands.pop();
+                operands.push(operatorNode(operator, operands.pop(), right));
+            }
+        }
+        
+        private char peekOperator() {
+            skipWhitespace();
+            if (pos < length && isOperatorChar(input.charAt(pos))) {
+                return input.charAt(pos);
+            }
+            return 0;
+        }
+        
+        private String consumeOperator() {
+            char operator = input.charAt(pos++);
+            if (pos < length) {
+                char next = input.charAt(pos);
+                if (next == '+' || next == '*' || next == '/' || next == '^') {
+                    throw error("Invalid consecutive operators in equation", pos);
+                }
+            }
+            return String.valueOf(operator);
+        }
+        
+        private void skipWhitespace() {
+            while (pos < length && isWhitespace(input.charAt(pos))) {
+                pos++;
+            }
+        }
+        
+        private EquationParseException unexpected(char c) {
+            if (c == ')') {
+                return error("Unbalanced parentheses in equation", pos);
+            }
+            if (c == '(' || isOperandChar(c)) {
+                return error("Invalid expression: too many operands", pos);
+            }
+            return error("Equation contains invalid characters", pos);
+        }
+        
+        private EquationParseException insufficientOperands(String operator, int position) {
+            if (operator == null) {
+                return error("Empty postfix expression", position);
+            }
+            return error("Invalid expression: insufficient operands for operator " + operator, position);
+        }
+        
+        private static EquationParseException error(String message, int position) {
+            return new EquationParseException(message, position);
+        }
+        
+        private static TreeNode operatorNode(String operator, TreeNode left, TreeNode right) {
+            TreeNode node = new TreeNode(operator);
+            node.setLeft(left);
+            node.setRight(right);
+            return node;
         }
-        if (openCount != 0) throw new IllegalArgumentException("Unbalanced parentheses in equation");
         
-        if (!Pattern.matches("[\\d\\w\\s\\+\\-\\*\\/\\^\\(\\)]+", equation)) {
-            throw new IllegalArgumentException("Equation contains invalid characters");
+        private static boolean isOperatorChar(char c) {
+            return c == '+' || c == '-' || c == '*' || c == '/' || c == '^';
         }
         
-        if (Pattern.matches(".*[\\+\\-\\*\\/\\^][\\+\\*\\/\\^].*", equation)) {
-            throw new IllegalArgumentException("Invalid consecutive operators in equation");
+        private static boolean isOperandChar(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
         }
         
-        if (Pattern.matches(".*\\(\\s*\\).*", equation)) {
-            throw new IllegalArgumentException("Empty parentheses in equation");
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\013' || c == '\f' || c == '\r';
         }
     }
     
@@ -61,7 +210,7 @@ public class EquationParser {
         List<String> tokens = tokenizeEquation(equation);
         
         List<String> postfix = new ArrayList<>();
-        Stack<String> operators = new Stack<>();
+        Deque<String> operators = new ArrayDeque<>();
         
         for (String token : tokens) {
             if (isOperand(token)) {
@@ -138,7 +287,7 @@ public class EquationParser {
             throw new IllegalArgumentException("Empty postfix expression");
         }
         
-        Stack<TreeNode> stack = new Stack<>();
+        Deque<TreeNode> stack = new ArrayDeque<>();
         
         for (String token : postfix) {
             if (isOperator(token)) {
@@ -169,7 +318,7 @@ public class EquationParser {
     }
     
     public static String postfixToInfix(List<String> postfix) {
-        Stack<String> stack = new Stack<>();
+        Deque<String> stack = new ArrayDeque<>();
         
         for (String token : postfix) {
             if (isOperator(token)) {
@@ -0,0 +1,246 @@
+package com.example.demo.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.TreeNode;
+
+public class ExpressionCompiler {
+
+    private final List<Integer> opcodes = new ArrayList<>();
+    private final List<Integer> operands = new ArrayList<>();
+    private final List<Double> constants = new ArrayList<>();
+    private final Map<Long, Integer> constantIndex = new HashMap<>();
+    private final List<String> variables = new ArrayList<>();
+    private final Map<String, Integer> variableSlots = new HashMap<>();
+    private final Map<TreeNode, Integer> references = new IdentityHashMap<>();
+    private final Map<TreeNode, Integer> tempSlots = new IdentityHashMap<>();
+    private int depth;
+    private int maxDepth;
+
+    private ExpressionCompiler() {
+    }
+
+    public static CompiledExpression compile(ExpressionTree tree) {
+        return compile(tree, List.of());
+    }
+
+    /**
+     * Compiles {@code tree} with the given variables pre-assigned to the first slots, so a
+     * rewritten tree keeps the variable signature of the equation as the user wrote it.
+     */
+    public static CompiledExpression compile(ExpressionTree tree, List<String> variableOrder) {
+        if (tree == null || tree.getRoot() == null) {
+            throw new IllegalArgumentException("Expression tree is empty");
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        for (String variable : variableOrder) {
+            compiler.slotOf(variable);
+        }
+        compiler.countReferences(tree.getRoot());
+        compiler.emitNode(tree.getRoot());
+        return compiler.build();
+    }
+
+    public static List<String> variablesInOrder(ExpressionTree tree) {
+        LinkedHashSet<String> variables = new LinkedHashSet<>();
+        if (tree != null && tree.getRoot() != null) {
+            collectVariables(tree.getRoot(), variables);
+        }
+        return new ArrayList<>(variables);
+    }
+
+    private static void collectVariables(TreeNode root, LinkedHashSet<String> variables) {
+        // Preorder, left before right, so variables keep their order of first appearance
+        Set<TreeNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            if (!visited.add(node)) {
+                continue;
+            }
+            if (node.left == null && node.right == null) {
+                String token = node.getValue();
+                int digits = 0;
+                while (digits < token.length() && isDigit(token.charAt(digits))) {
+                    digits++;
+                }
+                if (digits < token.length() && allLetters(token, digits)) {
+                    variables.add(token.substring(digits));
+                }
+                continue;
+            }
+            if (node.right != null) {
+                pending.push(node.right);
+            }
+            if (node.left != null) {
+                pending.push(node.left);
+            }
+        }
+    }
+
+    /**
+     * Counts how often each operator node is referenced, visiting every distinct node once.
+     */
+    private void countReferences(TreeNode root) {
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            if (node.left == null || node.right == null) {
+                continue;
+            }
+            if (references.merge(node, 1, Integer::sum) == 1) {
+                pending.push(node.right);
+                pending.push(node.left);
+            }
+        }
+    }
+
+    /**
+     * Emits the tree in postorder. A node is pushed twice: once to schedule its operands, and
+     * again (expanded) to emit its operator after them, so nesting depth costs heap, not stack.
+     */
+    private void emitNode(TreeNode root) {
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        pending.push(root);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            if (expanded.pop()) {
+                emit(operatorOpcode(node.getValue()), 0, -1);
+                if (references.getOrDefault(node, 1) > 1) {
+                    int slot = tempSlots.size();
+                    tempSlots.put(node, slot);
+                    emit(CompiledExpression.STORE_TEMP, slot, 0);
+                }
+                continue;
+            }
+            if (node.left == null && node.right == null) {
+                emitOperand(node.getValue());
+                continue;
+            }
+            if (node.left == null || node.right == null) {
+                throw new IllegalArgumentException("Invalid expression: operator " + node.getValue() + " is missing an operand");
+            }
+
+            Integer temp = tempSlots.get(node);
+            if (temp != null) {
+                emit(CompiledExpression.LOAD_TEMP, temp, 1);
+                continue;
+            }
+
+            pending.push(node);
+            expanded.push(true);
+            pending.push(node.right);
+            expanded.push(false);
+            pending.push(node.left);
+            expanded.push(false);
+        }
+    }
+
+    private void emitOperand(String token) {
+        int letters = 0;
+        while (letters < token.length() && isLetter(token.charAt(letters))) {
+            letters++;
+        }
+        if (letters == token.length()) {
+            emit(CompiledExpression.LOAD, slotOf(token), 1);
+            return;
+        }
+
+        // Coefficient tokens such as "3x" compile to 3 * x
+        int digits = 0;
+        while (digits < token.length() && isDigit(token.charAt(digits))) {
+            digits++;
+        }
+        if (digits > 0 && digits < token.length() && allLetters(token, digits)) {
+            emit(CompiledExpression.CONST, constantOf(Double.parseDouble(token.substring(0, digits))), 1);
+            emit(CompiledExpression.LOAD, slotOf(token.substring(digits)), 1);
+            emit(CompiledExpression.MUL, 0, -1);
+            return;
+        }
+
+        try {
+            emit(CompiledExpression.CONST, constantOf(Double.parseDouble(token)), 1);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid operand: " + token);
+        }
+    }
+
+    private static int operatorOpcode(String operator) {
+        switch (operator) {
+            case "+": return CompiledExpression.ADD;
+            case "-": return CompiledExpression.SUB;
+            case "*": return CompiledExpression.MUL;
+            case "/": return CompiledExpression.DIV;
+            case "^": return CompiledExpression.POW;
+            default: throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    private void emit(int opcode, int operand, int stackEffect) {
+        opcodes.add(opcode);
+        operands.add(operand);
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private int constantOf(double value) {
+        return constantIndex.computeIfAbsent(Double.doubleToLongBits(value), bits -> {
+            constants.add(value);
+            return constants.size() - 1;
+        });
+    }
+
+    private int slotOf(String variable) {
+        return variableSlots.computeIfAbsent(variable, name -> {
+            variables.add(name);
+            return variables.size() - 1;
+        });
+    }
+
+    private CompiledExpression build() {
+        int[] opcodeArray = new int[opcodes.size()];
+        int[] operandArray = new int[operands.size()];
+        for (int i = 0; i < opcodeArray.length; i++) {
+            opcodeArray[i] = opcodes.get(i);
+            operandArray[i] = operands.get(i);
+        }
+        double[] constantArray = new double[constants.size()];
+        for (int i = 0; i < constantArray.length; i++) {
+            constantArray[i] = constants.get(i);
+        }
+        return new CompiledExpression(opcodeArray, operandArray, constantArray,
+                variables.toArray(new String[0]), maxDepth, tempSlots.size());
+    }
+
+    private static boolean allLetters(String token, int from) {
+        for (int i = from; i < token.length(); i++) {
+            if (!isLetter(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
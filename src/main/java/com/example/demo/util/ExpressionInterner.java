@@ -0,0 +1,257 @@
+package com.example.demo.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.demo.model.TreeNode;
+
+/**
+ * Hash-consing table for expression trees. {@link #canonicalize(TreeNode)} rewrites a
+ * parsed tree into canonical form and returns the shared instance for it, so structurally
+ * identical subtrees (across all stored equations) are kept once and can be compared by
+ * reference. Interned nodes must be treated as immutable.
+ *
+ * <p>The table only holds its nodes weakly: once no stored equation reaches a node, for
+ * example after the last equation using it is deleted, the node is collected and its entry
+ * is purged on a later call. A purged entry releases its children in turn, so an unused
+ * subtree is reclaimed over a few collections.
+ */
+public class ExpressionInterner {
+
+    private final ConcurrentHashMap<NodeKey, NodeRef> nodes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<TreeNode> collected = new ReferenceQueue<>();
+
+    public TreeNode canonicalize(TreeNode root) {
+        // Bottom-up with an explicit stack, so deeply nested trees do not overflow the call stack
+        Map<TreeNode, TreeNode> visited = new IdentityHashMap<>();
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.peek();
+            if (visited.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            if (node.left == null && node.right == null) {
+                pending.pop();
+                visited.put(node, canonicalLeaf(node.getValue()));
+                continue;
+            }
+            if (node.left == null || node.right == null) {
+                throw new IllegalArgumentException("Invalid expression: operator " + node.getValue() + " is missing an operand");
+            }
+            TreeNode left = visited.get(node.left);
+            TreeNode right = visited.get(node.right);
+            if (left == null || right == null) {
+                if (right == null) {
+                    pending.push(node.right);
+                }
+                if (left == null) {
+                    pending.push(node.left);
+                }
+                continue;
+            }
+            pending.pop();
+            String operator = node.getValue();
+
+            // + and * commute exactly in IEEE arithmetic, so order their operands canonically
+            if ((operator.equals("+") || operator.equals("*")) && compare(left, right) > 0) {
+                TreeNode swap = left;
+                left = right;
+                right = swap;
+            }
+            visited.put(node, intern(operator, left, right));
+        }
+        return visited.get(root);
+    }
+
+    public TreeNode intern(String value, TreeNode left, TreeNode right) {
+        expungeCollected();
+        NodeKey key = new NodeKey(value, left, right);
+        NodeRef current = nodes.get(key);
+        TreeNode existing = current == null ? null : current.get();
+        if (existing != null) {
+            return existing;
+        }
+        TreeNode node = new TreeNode(value);
+        node.setLeft(left);
+        node.setRight(right);
+        NodeRef created = new NodeRef(node, key, collected);
+        while (true) {
+            current = nodes.putIfAbsent(key, created);
+            if (current == null) {
+                return node;
+            }
+            existing = current.get();
+            if (existing != null) {
+                return existing;
+            }
+            // Collected but not yet purged; take its place
+            if (nodes.replace(key, current, created)) {
+                return node;
+            }
+        }
+    }
+
+    public int size() {
+        expungeCollected();
+        return nodes.size();
+    }
+
+    private void expungeCollected() {
+        Reference<? extends TreeNode> reference;
+        while ((reference = collected.poll()) != null) {
+            NodeRef nodeRef = (NodeRef) reference;
+            nodes.remove(nodeRef.key, nodeRef);
+        }
+    }
+
+    private TreeNode canonicalLeaf(String token) {
+        int digits = 0;
+        while (digits < token.length() && isDigit(token.charAt(digits))) {
+            digits++;
+        }
+        if (digits > 0 && digits < token.length() && isLetters(token, digits)) {
+            TreeNode coefficient = intern(canonicalNumber(token.substring(0, digits)), null, null);
+            TreeNode variable = intern(token.substring(digits), null, null);
+            return intern("*", coefficient, variable);
+        }
+        if (digits == 0 && isLetters(token, 0)) {
+            return intern(token, null, null);
+        }
+        try {
+            return intern(canonicalNumber(token), null, null);
+        } catch (NumberFormatException e) {
+            // Left as-is so the compiler reports it with the original token
+            return intern(token, null, null);
+        }
+    }
+
+    private static String canonicalNumber(String token) {
+        double value = Double.parseDouble(token);
+        return Double.isFinite(value) ? formatNumber(value) : token;
+    }
+
+    /**
+     * Total structural order on canonical nodes: constants, then variables, then operators.
+     */
+    static int compare(TreeNode a, TreeNode b) {
+        // Operands are compared left before right; pairs still to compare are kept on a stack
+        Deque<TreeNode[]> pending = new ArrayDeque<>();
+        pending.push(new TreeNode[] {a, b});
+        while (!pending.isEmpty()) {
+            TreeNode[] pair = pending.pop();
+            int result = compareNodes(pair[0], pair[1]);
+            if (result != 0) {
+                return result;
+            }
+            if (pair[0] != pair[1] && rank(pair[0]) == 2) {
+                pending.push(new TreeNode[] {pair[0].right, pair[1].right});
+                pending.push(new TreeNode[] {pair[0].left, pair[1].left});
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares two nodes by rank and value only, without looking at their operands.
+     */
+    private static int compareNodes(TreeNode a, TreeNode b) {
+        if (a == b) {
+            return 0;
+        }
+        int rankA = rank(a);
+        int rankB = rank(b);
+        if (rankA != rankB) {
+            return Integer.compare(rankA, rankB);
+        }
+        if (rankA == 0) {
+            int byValue = Double.compare(Double.parseDouble(a.getValue()), Double.parseDouble(b.getValue()));
+            return byValue != 0 ? byValue : a.getValue().compareTo(b.getValue());
+        }
+        return a.getValue().compareTo(b.getValue());
+    }
+
+    private static int rank(TreeNode node) {
+        if (node.left != null || node.right != null) {
+            return 2;
+        }
+        String value = node.getValue();
+        char first = value.charAt(0);
+        if (isDigit(first) || first == '-') {
+            try {
+                Double.parseDouble(value);
+                return 0;
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+        return 1;
+    }
+
+    public static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetters(String token, int from) {
+        for (int i = from; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return from < token.length();
+    }
+
+    private static final class NodeRef extends WeakReference<TreeNode> {
+        // Kept strongly so that a purged entry can be found, and so children outlive parents
+        private final NodeKey key;
+
+        private NodeRef(TreeNode node, NodeKey key, ReferenceQueue<TreeNode> queue) {
+            super(node, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class NodeKey {
+        private final String value;
+        private final TreeNode left;
+        private final TreeNode right;
+        private final int hash;
+
+        private NodeKey(String value, TreeNode left, TreeNode right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.hash = 31 * (31 * value.hashCode() + System.identityHashCode(left)) + System.identityHashCode(right);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey key = (NodeKey) other;
+            // Children are already interned, so reference equality is structural equality
+            return left == key.left && right == key.right && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.TreeNode;
+
+/**
+ * Store-time simplification pass. Folds constant subtrees and applies identities that are
+ * exact in floating point up to the sign of zero ({@code x*1}, {@code x+0}, {@code x-0},
+ * {@code x/1}, {@code x^1}, {@code x^2 -> x*x}, {@code 0-(0-x) -> x}). Constant divisions by
+ * zero are never folded, so they still fail with "Division by zero" when evaluated. Rewrites
+ * that could drop a variable or a division ({@code 0*x}, {@code x-x}) are not applied.
+ */
+public class ExpressionOptimizer {
+
+    private ExpressionOptimizer() {
+    }
+
+    public static ExpressionTree optimize(ExpressionTree tree) {
+        ExpressionTree optimized = new ExpressionTree();
+        if (tree.getRoot() != null) {
+            optimized.setRoot(optimize(tree.getRoot()));
+        }
+        return optimized;
+    }
+
+    /**
+     * Rewrites the tree bottom-up. Nodes are visited with an explicit stack, so deeply nested
+     * input costs heap rather than call stack; a subtree reached more than once is rewritten once.
+     */
+    public static TreeNode optimize(TreeNode root) {
+        Map<TreeNode, TreeNode> optimized = new IdentityHashMap<>();
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.peek();
+            if (optimized.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            if (node.left == null || node.right == null) {
+                pending.pop();
+                optimized.put(node, node);
+                continue;
+            }
+            TreeNode left = optimized.get(node.left);
+            TreeNode right = optimized.get(node.right);
+            if (left == null || right == null) {
+                if (right == null) {
+                    pending.push(node.right);
+                }
+                if (left == null) {
+                    pending.push(node.left);
+                }
+                continue;
+            }
+            pending.pop();
+            optimized.put(node, rewrite(node.getValue(), left, right));
+        }
+        return optimized.get(root);
+    }
+
+    private static TreeNode rewrite(String operator, TreeNode left, TreeNode right) {
+        Double leftConstant = constantValue(left);
+        Double rightConstant = constantValue(right);
+
+        if (leftConstant != null && rightConstant != null) {
+            Double folded = fold(operator, leftConstant, rightConstant);
+            if (folded != null) {
+                return new TreeNode(ExpressionInterner.formatNumber(folded));
+            }
+        }
+
+        switch (operator) {
+            case "+":
+                if (isConstant(rightConstant, 0)) return left;
+                if (isConstant(leftConstant, 0)) return right;
+                break;
+            case "-":
+                if (isConstant(rightConstant, 0)) return left;
+                if (isConstant(leftConstant, 0) && isNegation(right)) return right.right;
+                break;
+            case "*":
+                if (isConstant(rightConstant, 1)) return left;
+                if (isConstant(leftConstant, 1)) return right;
+                break;
+            case "/":
+                if (isConstant(rightConstant, 1)) return left;
+                break;
+            case "^":
+                if (isConstant(rightConstant, 1)) return left;
+                // Both factors reference the same subtree, which the compiler evaluates once
+                if (isConstant(rightConstant, 2)) return operator("*", left, left);
+                break;
+            default:
+                break;
+        }
+        return operator(operator, left, right);
+    }
+
+    /**
+     * Number of nodes in the tree with shared subtrees counted once per reference.
+     */
+    public static int countNodes(TreeNode root) {
+        if (root == null) {
+            return 0;
+        }
+        Map<TreeNode, Integer> counted = new IdentityHashMap<>();
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.peek();
+            if (counted.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            Integer left = node.left == null ? Integer.valueOf(0) : counted.get(node.left);
+            Integer right = node.right == null ? Integer.valueOf(0) : counted.get(node.right);
+            if (left == null || right == null) {
+                if (right == null) {
+                    pending.push(node.right);
+                }
+                if (left == null) {
+                    pending.push(node.left);
+                }
+                continue;
+            }
+            pending.pop();
+            long total = 1L + left + right;
+            counted.put(node, (int) Math.min(total, Integer.MAX_VALUE));
+        }
+        return counted.get(root);
+    }
+
+    /**
+     * Number of distinct node instances, i.e. the size of the DAG after sharing.
+     */
+    public static int countDistinctNodes(TreeNode root) {
+        Set<TreeNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            if (seen.add(node)) {
+                if (node.left != null) {
+                    pending.push(node.left);
+                }
+                if (node.right != null) {
+                    pending.push(node.right);
+                }
+            }
+        }
+        return seen.size();
+    }
+
+    private static Double fold(String operator, double left, double right) {
+        double result;
+        switch (operator) {
+            case "+": result = left + right; break;
+            case "-": result = left - right; break;
+            case "*": result = left * right; break;
+            case "/":
+                if (right == 0) {
+                    return null;
+                }
+                result = left / right;
+                break;
+            case "^": result = Math.pow(left, right); break;
+            default: return null;
+        }
+        return Double.isFinite(result) ? result : null;
+    }
+
+    private static boolean isNegation(TreeNode node) {
+        return node.left != null && node.right != null && node.getValue().equals("-")
+                && isConstant(constantValue(node.left), 0);
+    }
+
+    private static boolean isConstant(Double value, double expected) {
+        return value != null && value == expected;
+    }
+
+    private static TreeNode operator(String operator, TreeNode left, TreeNode right) {
+        TreeNode node = new TreeNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
+    /**
+     * Returns the value of a numeric literal leaf, or null for variables, coefficients
+     * such as {@code 3x} and operator nodes.
+     */
+    static Double constantValue(TreeNode node) {
+        if (node.left != null || node.right != null) {
+            return null;
+        }
+        String token = node.getValue();
+        char last = token.charAt(token.length() - 1);
+        if (!(last >= '0' && last <= '9')) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
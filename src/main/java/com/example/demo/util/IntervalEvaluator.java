@@ -0,0 +1,384 @@
+package com.example.demo.util;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.PackedExpressionTree;
+
+/**
+ * Interval evaluation of a packed expression: given a range for every variable, computes a
+ * range that contains the value of every node at every point of the box where that node is
+ * defined. One pass costs about as much as a few point evaluations and bounds the equation
+ * over the whole box at once.
+ *
+ * <p>Bounds are conservative. Each computed end is moved outward by one ulp, which covers
+ * the half-ulp rounding error of {@code + - * /}; powers and logarithms are widened by two
+ * ulps because {@link Math#pow} and {@link Math#log} are only accurate to one. Overflow and
+ * {@code inf - inf} widen to the whole line rather than producing NaN.
+ *
+ * <p>Division by a range that contains zero follows the point semantics, where only an exact
+ * zero divisor fails: the result encloses the quotients at every non-zero divisor, which is a
+ * half-line when zero is an end of the divisor range and the whole line when it is interior.
+ * Dividing by exactly {@code [0, 0]} fails everywhere and yields an empty range, as does a
+ * power of negative bases with no integer exponent in range. Empty ranges propagate to the
+ * root and are reported by {@link #evaluate} returning false.
+ *
+ * <p>Plain interval bounds overestimate by an amount proportional to the box width whenever
+ * a variable occurs more than once ({@code x * x - 4 * x} is bounded as if the two
+ * {@code x} were independent). {@link #evaluateCentered} also computes the mean-value form
+ * {@code f(m) + f'(X) (X - m)} from interval derivatives, whose overestimation shrinks with
+ * the square of the width, and keeps the tighter of the two.
+ */
+public final class IntervalEvaluator {
+
+    private final PackedExpressionTree tree;
+    private final double[] lower;
+    private final double[] upper;
+    // Derivative ranges, dimension-major per node: node * dimensions + j
+    private double[] derivativeLower = new double[0];
+    private double[] derivativeUpper = new double[0];
+    // Result of the last interval operation
+    private double resultLower;
+    private double resultUpper;
+
+    public IntervalEvaluator(PackedExpressionTree tree) {
+        this.tree = tree;
+        this.lower = new double[tree.getNodeCount()];
+        this.upper = new double[tree.getNodeCount()];
+    }
+
+    /**
+     * Bounds the expression over the box {@code [slotLower[i], slotUpper[i]]}. Returns false
+     * if the expression is undefined at every point of the box.
+     */
+    public boolean evaluate(double[] slotLower, double[] slotUpper) {
+        return evaluate(slotLower, slotUpper, null);
+    }
+
+    /**
+     * Like {@link #evaluate(double[], double[])}, but also bounds the expression with the
+     * mean-value form around {@code center}, taking derivatives with respect to the variables
+     * in {@code slots} (the others must have a zero-width range), and keeps the tighter bound.
+     */
+    public boolean evaluateCentered(double[] slotLower, double[] slotUpper, double[] center, int[] slots) {
+        if (!evaluate(center, center, null)) {
+            // Undefined at the center: only the plain bound is available
+            return evaluate(slotLower, slotUpper, null);
+        }
+        double centerLower = getLower();
+        double centerUpper = getUpper();
+        if (!evaluate(slotLower, slotUpper, slots)) {
+            return false;
+        }
+
+        int root = lower.length - 1;
+        int base = root * slots.length;
+        double centeredLower = centerLower;
+        double centeredUpper = centerUpper;
+        for (int j = 0; j < slots.length; j++) {
+            int slot = slots[j];
+            double derivativeLow = derivativeLower[base + j];
+            double derivativeHigh = derivativeUpper[base + j];
+            subtract(slotLower[slot], slotUpper[slot], center[slot], center[slot]);
+            multiply(derivativeLow, derivativeHigh, resultLower, resultUpper);
+            add(centeredLower, centeredUpper, resultLower, resultUpper);
+            centeredLower = resultLower;
+            centeredUpper = resultUpper;
+        }
+        lower[root] = Math.max(lower[root], centeredLower);
+        upper[root] = Math.min(upper[root], centeredUpper);
+        return true;
+    }
+
+    public double getLower() {
+        return lower[lower.length - 1];
+    }
+
+    public double getUpper() {
+        return upper[upper.length - 1];
+    }
+
+    private boolean evaluate(double[] slotLower, double[] slotUpper, int[] slots) {
+        int nodeCount = lower.length;
+        int dimensions = slots == null ? 0 : slots.length;
+        if (derivativeLower.length < nodeCount * dimensions) {
+            derivativeLower = new double[nodeCount * dimensions];
+            derivativeUpper = new double[nodeCount * dimensions];
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int opcode = tree.opcodeAt(node);
+            int base = node * dimensions;
+            if (opcode == CompiledExpression.CONST) {
+                lower[node] = upper[node] = tree.leafConstant(node);
+                for (int j = 0; j < dimensions; j++) {
+                    derivativeLower[base + j] = derivativeUpper[base + j] = 0;
+                }
+                continue;
+            }
+            if (opcode == CompiledExpression.LOAD) {
+                int slot = tree.leafSlot(node);
+                lower[node] = slotLower[slot];
+                upper[node] = slotUpper[slot];
+                for (int j = 0; j < dimensions; j++) {
+                    derivativeLower[base + j] = derivativeUpper[base + j] = slots[j] == slot ? 1 : 0;
+                }
+                continue;
+            }
+            int l = tree.leftChild(node);
+            int r = tree.rightChild(node);
+            double a = lower[l];
+            double b = upper[l];
+            double c = lower[r];
+            double d = upper[r];
+            if (Double.isNaN(a) || Double.isNaN(c)) {
+                lower[node] = upper[node] = Double.NaN;
+                continue;
+            }
+            switch (opcode) {
+                case CompiledExpression.ADD:
+                    add(a, b, c, d);
+                    break;
+                case CompiledExpression.SUB:
+                    subtract(a, b, c, d);
+                    break;
+                case CompiledExpression.MUL:
+                    multiply(a, b, c, d);
+                    break;
+                case CompiledExpression.DIV:
+                    divide(a, b, c, d);
+                    break;
+                case CompiledExpression.POW:
+                    power(a, b, c, d);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcode);
+            }
+            lower[node] = resultLower;
+            upper[node] = resultUpper;
+            if (dimensions > 0 && !Double.isNaN(resultLower)) {
+                for (int j = 0; j < dimensions; j++) {
+                    derivative(opcode, node, l, r, base + j, l * dimensions + j, r * dimensions + j);
+                }
+            }
+        }
+        return !Double.isNaN(lower[nodeCount - 1]);
+    }
+
+    /**
+     * Forward-mode derivative of {@code node} along one dimension, from the value and
+     * derivative ranges of its children.
+     */
+    private void derivative(int opcode, int node, int l, int r, int at, int left, int right) {
+        double a = lower[l];
+        double b = upper[l];
+        double c = lower[r];
+        double d = upper[r];
+        double da = derivativeLower[left];
+        double db = derivativeUpper[left];
+        double dc = derivativeLower[right];
+        double dd = derivativeUpper[right];
+        switch (opcode) {
+            case CompiledExpression.ADD:
+                add(da, db, dc, dd);
+                break;
+            case CompiledExpression.SUB:
+                subtract(da, db, dc, dd);
+                break;
+            case CompiledExpression.MUL: {
+                // u' v + u v'
+                multiply(da, db, c, d);
+                double termLower = resultLower;
+                double termUpper = resultUpper;
+                multiply(a, b, dc, dd);
+                add(termLower, termUpper, resultLower, resultUpper);
+                break;
+            }
+            case CompiledExpression.DIV:
+                // (u' - (u / v) v') / v
+                if (c <= 0 && d >= 0) {
+                    entire();
+                    break;
+                }
+                multiply(lower[node], upper[node], dc, dd);
+                subtract(da, db, resultLower, resultUpper);
+                divide(resultLower, resultUpper, c, d);
+                break;
+            case CompiledExpression.POW:
+                powerDerivative(node, a, b, c, d, da, db, dc, dd);
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+        derivativeLower[at] = resultLower;
+        derivativeUpper[at] = resultUpper;
+    }
+
+    private void powerDerivative(int node, double a, double b, double c, double d,
+            double da, double db, double dc, double dd) {
+        if (dc == 0 && dd == 0 && c == d) {
+            // Fixed exponent: n u^(n - 1) u'
+            if (c == 0) {
+                resultLower = resultUpper = 0;
+                return;
+            }
+            if (a < 0 && c != Math.rint(c)) {
+                // Undefined for part of the range, so the mean value theorem does not apply
+                entire();
+                return;
+            }
+            power(a, b, c - 1, c - 1);
+            if (Double.isNaN(resultLower)) {
+                entire();
+                return;
+            }
+            multiply(resultLower, resultUpper, c, c);
+            multiply(resultLower, resultUpper, da, db);
+        } else if (a > 0) {
+            // u^v (v' ln u + v u' / u)
+            double logLower = Math.nextDown(Math.nextDown(Math.log(a)));
+            double logUpper = Math.nextUp(Math.nextUp(Math.log(b)));
+            multiply(dc, dd, logLower, logUpper);
+            double termLower = resultLower;
+            double termUpper = resultUpper;
+            divide(da, db, a, b);
+            multiply(c, d, resultLower, resultUpper);
+            add(termLower, termUpper, resultLower, resultUpper);
+            multiply(lower[node], upper[node], resultLower, resultUpper);
+        } else {
+            entire();
+        }
+    }
+
+    private void add(double a, double b, double c, double d) {
+        set(a + c, b + d);
+    }
+
+    private void subtract(double a, double b, double c, double d) {
+        set(a - d, b - c);
+    }
+
+    private void multiply(double a, double b, double c, double d) {
+        double ac = product(a, c);
+        double ad = product(a, d);
+        double bc = product(b, c);
+        double bd = product(b, d);
+        set(Math.min(Math.min(ac, ad), Math.min(bc, bd)), Math.max(Math.max(ac, ad), Math.max(bc, bd)));
+    }
+
+    private void divide(double a, double b, double c, double d) {
+        if (c > 0 || d < 0) {
+            double ac = a / c;
+            double ad = a / d;
+            double bc = b / c;
+            double bd = b / d;
+            set(Math.min(Math.min(ac, ad), Math.min(bc, bd)), Math.max(Math.max(ac, ad), Math.max(bc, bd)));
+        } else if (c == 0 && d == 0) {
+            resultLower = resultUpper = Double.NaN;
+        } else if (a == 0 && b == 0) {
+            resultLower = resultUpper = 0;
+        } else if (c < 0 && d > 0) {
+            entire();
+        } else if (c == 0) {
+            // Divisor in (0, d]
+            if (a >= 0) {
+                set(a / d, Double.POSITIVE_INFINITY);
+            } else if (b <= 0) {
+                set(Double.NEGATIVE_INFINITY, b / d);
+            } else {
+                entire();
+            }
+        } else {
+            // Divisor in [c, 0)
+            if (a >= 0) {
+                set(Double.NEGATIVE_INFINITY, a / c);
+            } else if (b <= 0) {
+                set(b / c, Double.POSITIVE_INFINITY);
+            } else {
+                entire();
+            }
+        }
+    }
+
+    private void power(double a, double b, double c, double d) {
+        if (c == d && Double.isFinite(c) && c == Math.rint(c)) {
+            integerPower(a, b, c);
+        } else if (a >= 0) {
+            powerCorners(a, b, c, d);
+        } else if (Math.floor(d) < c) {
+            // No integer exponent in range: only the non-negative bases are defined
+            if (b < 0) {
+                resultLower = resultUpper = Double.NaN;
+            } else {
+                powerCorners(0, b, c, d);
+            }
+        } else {
+            // An integer exponent gives |x|^y with either sign for negative x
+            powerCorners(b >= 0 ? 0 : -b, Math.max(-a, b), c, d);
+            resultLower = -resultUpper;
+        }
+    }
+
+    /**
+     * x^y for x in {@code [a, b]} with {@code a >= 0}. y * ln(x) is bilinear, so its extremes,
+     * and those of x^y, lie at the corners of the box.
+     */
+    private void powerCorners(double a, double b, double c, double d) {
+        double ac = Math.pow(a, c);
+        double ad = Math.pow(a, d);
+        double bc = Math.pow(b, c);
+        double bd = Math.pow(b, d);
+        setPower(Math.max(0, Math.min(Math.min(ac, ad), Math.min(bc, bd))), Math.max(Math.max(ac, ad), Math.max(bc, bd)));
+    }
+
+    private void integerPower(double a, double b, double n) {
+        if (n == 0) {
+            resultLower = resultUpper = 1;
+            return;
+        }
+        double pa = Math.pow(a, n);
+        double pb = Math.pow(b, n);
+        boolean even = n % 2 == 0;
+        if (n > 0) {
+            if (!even || a >= 0) {
+                setPower(pa, pb);
+            } else if (b <= 0) {
+                setPower(pb, pa);
+            } else {
+                setPower(0, Math.max(pa, pb));
+            }
+        } else if (a > 0 || b < 0) {
+            if (!even || a > 0) {
+                setPower(pb, pa);
+            } else {
+                setPower(pa, pb);
+            }
+        } else if (even) {
+            // x^-n with x = 0 is infinite, not an error
+            setPower(Math.min(pa, pb), Double.POSITIVE_INFINITY);
+        } else {
+            entire();
+        }
+    }
+
+    /**
+     * Interval product convention: zero times anything, including infinity, is zero.
+     */
+    private static double product(double x, double y) {
+        return x == 0 || y == 0 ? 0 : x * y;
+    }
+
+    private void set(double lo, double hi) {
+        resultLower = Double.isNaN(lo) ? Double.NEGATIVE_INFINITY : Math.nextDown(lo);
+        resultUpper = Double.isNaN(hi) ? Double.POSITIVE_INFINITY : Math.nextUp(hi);
+    }
+
+    private void setPower(double lo, double hi) {
+        set(Math.nextDown(lo), Math.nextUp(hi));
+        if (lo >= 0 && resultLower < 0) {
+            resultLower = 0;
+        }
+    }
+
+    private void entire() {
+        resultLower = Double.NEGATIVE_INFINITY;
+        resultUpper = Double.POSITIVE_INFINITY;
+    }
+}
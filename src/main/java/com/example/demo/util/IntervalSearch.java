@@ -0,0 +1,299 @@
+package com.example.demo.util;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.example.demo.model.ExpressionEvaluator;
+import com.example.demo.model.Interval;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.ThresholdSearch;
+
+/**
+ * Branch-and-bound search over a box of variable ranges, using {@link IntervalEvaluator} to
+ * rule out whole sub-boxes at once. Boxes are kept in a priority queue ordered by their
+ * interval bound; the most promising box is bisected along its widest side, each half is
+ * bounded and probed at its midpoint, and a half whose bound cannot beat the best point found
+ * so far (or cannot cross the threshold) is dropped without being looked at again.
+ *
+ * <p>The budget is the number of interval evaluations. Every answer is backed by the bounds,
+ * so running out of budget makes the result looser, never wrong: a range search reports
+ * wider enclosures and a threshold search reports {@code UNKNOWN}.
+ */
+public final class IntervalSearch {
+
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_BOXES = 10_000;
+    public static final int MAX_BOXES = 1_000_000;
+
+    private final IntervalEvaluator intervals;
+    private final ExpressionEvaluator points;
+    private final List<String> variables;
+    private final int[] boxSlots;
+    private final double[] initialLower;
+    private final double[] initialUpper;
+    // Scratch slots: fixed variables are filled once, box variables per evaluation
+    private final double[] slotLower;
+    private final double[] slotUpper;
+    private final double[] point;
+    private int boxesEvaluated;
+
+    private IntervalSearch(PackedExpressionTree tree, ExpressionEvaluator points, int[] boxSlots,
+            double[] initialLower, double[] initialUpper, double[] fixedSlots) {
+        this.intervals = new IntervalEvaluator(tree);
+        this.points = points;
+        this.variables = tree.getVariables();
+        this.boxSlots = boxSlots;
+        this.initialLower = initialLower;
+        this.initialUpper = initialUpper;
+        this.slotLower = fixedSlots.clone();
+        this.slotUpper = fixedSlots.clone();
+        this.point = fixedSlots;
+    }
+
+    /**
+     * Validates the box and prepares a search. Every variable of the equation must either have
+     * a range in {@code box} or a value in {@code fixedValues}. {@code points} evaluates single
+     * points in the tree's slot order and is used to find witnesses.
+     */
+    public static IntervalSearch plan(PackedExpressionTree tree, ExpressionEvaluator points,
+            Map<String, Interval> box, Map<String, Double> fixedValues) {
+        List<String> variables = tree.getVariables();
+        Set<String> ranged = new HashSet<>();
+        if (box != null) {
+            for (Map.Entry<String, Interval> entry : box.entrySet()) {
+                if (!variables.contains(entry.getKey())) {
+                    throw new IllegalArgumentException("Variable " + entry.getKey() + " does not appear in the equation");
+                }
+                Interval range = entry.getValue();
+                if (range == null || !Double.isFinite(range.getLower()) || !Double.isFinite(range.getUpper())) {
+                    throw new IllegalArgumentException("Range of " + entry.getKey() + " must have finite bounds");
+                }
+                if (range.getLower() > range.getUpper()) {
+                    throw new IllegalArgumentException("Range of " + entry.getKey() + " has lower bound above upper bound");
+                }
+                ranged.add(entry.getKey());
+            }
+        }
+
+        int[] boxSlots = new int[ranged.size()];
+        double[] lower = new double[boxSlots.length];
+        double[] upper = new double[boxSlots.length];
+        double[] fixedSlots = new double[variables.size()];
+        int dimension = 0;
+        for (int i = 0; i < fixedSlots.length; i++) {
+            String name = variables.get(i);
+            if (ranged.contains(name)) {
+                boxSlots[dimension] = i;
+                lower[dimension] = box.get(name).getLower();
+                upper[dimension++] = box.get(name).getUpper();
+                continue;
+            }
+            Double value = fixedValues == null ? null : fixedValues.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + name + " not provided");
+            }
+            fixedSlots[i] = value;
+        }
+        return new IntervalSearch(tree, points, boxSlots, lower, upper, fixedSlots);
+    }
+
+    /**
+     * Encloses the minimum and maximum over the box to within {@code tolerance}, spending up
+     * to {@code maxBoxes} interval evaluations on each.
+     */
+    public RangeBounds range(double tolerance, int maxBoxes) {
+        if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Tolerance must be a non-negative number");
+        }
+        checkBudget(maxBoxes);
+        Optimum minimum = optimize(false, Double.NaN, tolerance, maxBoxes);
+        if (minimum.bestPoint == null && minimum.proven) {
+            throw new IllegalArgumentException("Equation is undefined everywhere in the box");
+        }
+        Optimum maximum = optimize(true, Double.NaN, tolerance, maxBoxes);
+        return new RangeBounds(
+                new Interval(minimum.bound, minimum.best),
+                new Interval(-maximum.best, -maximum.bound),
+                bindings(minimum.bestPoint),
+                bindings(maximum.bestPoint),
+                boxesEvaluated,
+                minimum.best - minimum.bound <= tolerance && maximum.best - maximum.bound <= tolerance
+        );
+    }
+
+    /**
+     * Looks for a point where the equation is above {@code threshold} (or below it when
+     * {@code above} is false), or proves there is none.
+     */
+    public ThresholdSearch threshold(double threshold, boolean above, int maxBoxes) {
+        if (Double.isNaN(threshold)) {
+            throw new IllegalArgumentException("Threshold must be a number");
+        }
+        checkBudget(maxBoxes);
+        Optimum optimum = optimize(above, threshold, 0, maxBoxes);
+        double signedThreshold = above ? -threshold : threshold;
+        double sign = above ? -1 : 1;
+        if (optimum.best < signedThreshold) {
+            return new ThresholdSearch(ThresholdSearch.Outcome.FOUND, bindings(optimum.bestPoint),
+                    sign * optimum.best, null, boxesEvaluated);
+        }
+        ThresholdSearch.Outcome outcome = optimum.bound >= signedThreshold
+                ? ThresholdSearch.Outcome.NONE
+                : ThresholdSearch.Outcome.UNKNOWN;
+        return new ThresholdSearch(outcome, null, null, sign * optimum.bound, boxesEvaluated);
+    }
+
+    private static void checkBudget(int maxBoxes) {
+        if (maxBoxes < 1 || maxBoxes > MAX_BOXES) {
+            throw new IllegalArgumentException("maxBoxes must be between 1 and " + MAX_BOXES);
+        }
+    }
+
+    public int getBoxesEvaluated() {
+        return boxesEvaluated;
+    }
+
+    /**
+     * Minimizes {@code f}, or {@code -f} when {@code maximize} is set, so that one loop serves
+     * both directions. With a {@code threshold} the search stops at the first point below it
+     * (in the signed sense) and drops every box that cannot get there.
+     */
+    private Optimum optimize(boolean maximize, double threshold, double tolerance, int maxBoxes) {
+        boolean thresholdSearch = !Double.isNaN(threshold);
+        double target = thresholdSearch ? (maximize ? -threshold : threshold) : Double.POSITIVE_INFINITY;
+        Optimum optimum = new Optimum();
+        int budget = boxesEvaluated + maxBoxes;
+        PriorityQueue<Box> queue = new PriorityQueue<>(Comparator.comparingDouble((Box box) -> box.key));
+        // Lowest key among boxes dropped without being resolved below the best point
+        double floor = Double.POSITIVE_INFINITY;
+
+        Box root = bound(initialLower, initialUpper, maximize, optimum);
+        if (root != null) {
+            queue.add(root);
+        }
+        boolean proven = true;
+        while (!queue.isEmpty()) {
+            Box box = queue.peek();
+            if ((thresholdSearch && optimum.best < target) || box.key >= Math.min(optimum.best - tolerance, target)) {
+                break;
+            }
+            if (boxesEvaluated + 2 > budget) {
+                proven = false;
+                break;
+            }
+            queue.poll();
+            int side = widestSide(box);
+            if (side < 0) {
+                // Too narrow to split further; its bound stands as is
+                floor = Math.min(floor, box.key);
+                proven = false;
+                continue;
+            }
+            double middle = box.lower[side] + (box.upper[side] - box.lower[side]) / 2;
+            double[] leftUpper = box.upper.clone();
+            leftUpper[side] = middle;
+            double[] rightLower = box.lower.clone();
+            rightLower[side] = middle;
+            for (Box half : new Box[] {bound(box.lower, leftUpper, maximize, optimum), bound(rightLower, box.upper, maximize, optimum)}) {
+                if (half == null) {
+                    continue;
+                }
+                if (half.key >= Math.min(optimum.best, target)) {
+                    floor = Math.min(floor, half.key);
+                } else {
+                    queue.add(half);
+                }
+            }
+        }
+
+        double bound = Math.min(floor, optimum.best);
+        if (!queue.isEmpty()) {
+            bound = Math.min(bound, queue.peek().key);
+        }
+        optimum.bound = bound;
+        optimum.proven = proven && (queue.isEmpty() || queue.peek().key >= Math.min(optimum.best - tolerance, target));
+        return optimum;
+    }
+
+    /**
+     * Bounds the box and probes its midpoint. Returns null if the equation is undefined on
+     * the whole box.
+     */
+    private Box bound(double[] lower, double[] upper, boolean maximize, Optimum optimum) {
+        for (int i = 0; i < boxSlots.length; i++) {
+            slotLower[boxSlots[i]] = lower[i];
+            slotUpper[boxSlots[i]] = upper[i];
+            point[boxSlots[i]] = lower[i] + (upper[i] - lower[i]) / 2;
+        }
+        boxesEvaluated++;
+        if (!intervals.evaluateCentered(slotLower, slotUpper, point, boxSlots)) {
+            return null;
+        }
+        double key = maximize ? -intervals.getUpper() : intervals.getLower();
+
+        try {
+            double value = points.evaluate(point);
+            double signed = maximize ? -value : value;
+            if (signed < optimum.best) {
+                optimum.best = signed;
+                optimum.bestPoint = point.clone();
+            }
+        } catch (ArithmeticException e) {
+            // The midpoint is undefined; the box bound still holds for the rest of it
+        }
+        return new Box(lower, upper, key);
+    }
+
+    private static int widestSide(Box box) {
+        int widest = -1;
+        double widestWidth = 0;
+        for (int i = 0; i < box.lower.length; i++) {
+            double width = box.upper[i] - box.lower[i];
+            double middle = box.lower[i] + width / 2;
+            if (width > widestWidth && middle > box.lower[i] && middle < box.upper[i]) {
+                widest = i;
+                widestWidth = width;
+            }
+        }
+        return widest;
+    }
+
+    private Map<String, Double> bindings(double[] slots) {
+        if (slots == null) {
+            return null;
+        }
+        Map<String, Double> bindings = new LinkedHashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            bindings.put(variables.get(i), slots[i]);
+        }
+        return bindings;
+    }
+
+    private static final class Box {
+        private final double[] lower;
+        private final double[] upper;
+        // Interval lower bound of the signed objective over this box
+        private final double key;
+
+        private Box(double[] lower, double[] upper, double key) {
+            this.lower = lower;
+            this.upper = upper;
+            this.key = key;
+        }
+    }
+
+    private static final class Optimum {
+        // Best signed value at a probed point, and the point
+        private double best = Double.POSITIVE_INFINITY;
+        private double[] bestPoint;
+        // Proven lower bound of the signed objective over the box
+        private double bound;
+        private boolean proven;
+    }
+}
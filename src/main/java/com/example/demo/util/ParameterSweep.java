@@ -0,0 +1,425 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.SweepAxis;
+import com.example.demo.model.SweepFormat;
+
+/**
+ * Evaluates an equation over the Cartesian grid spanned by a list of axes, the first axis
+ * outermost and the last changing fastest, and streams the results.
+ *
+ * <p>Each node of the packed DAG is assigned the level of the innermost axis it depends on
+ * (constants and fixed variables are below every axis). A level is recomputed only when its
+ * axis advances, so a subtree that depends only on outer variables is computed once per outer
+ * step instead of once per point. Nodes at the innermost level are evaluated column-wise over
+ * blocks of the inner axis, like {@link CompiledExpression#evaluateBatch}; their outer-level
+ * operands are broadcast once per row.
+ *
+ * <p>A point whose evaluation divides by zero, at any level, fails: it is written as
+ * {@code null} in NDJSON and NaN in binary output.
+ */
+public final class ParameterSweep {
+
+    public static final long MAX_POINTS = 1_000_000_000L;
+
+    private static final int BLOCK = CompiledExpression.BATCH_BLOCK_SIZE;
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final PackedExpressionTree tree;
+    private final SweepAxis[] axes;
+    private final int[] axisSlots;
+    private final double[] slots;
+    // levelNodes[0] holds nodes that depend on no axis, levelNodes[j + 1] those whose innermost axis is j
+    private final int[][] levelNodes;
+    private final boolean[] columnar;
+    private final int[] broadcastNodes;
+    private final long pointCount;
+
+    private ParameterSweep(PackedExpressionTree tree, SweepAxis[] axes, int[] axisSlots, double[] slots) {
+        this.tree = tree;
+        this.axes = axes;
+        this.axisSlots = axisSlots;
+        this.slots = slots;
+
+        int[] axisOfSlot = new int[slots.length];
+        Arrays.fill(axisOfSlot, -1);
+        for (int j = 0; j < axisSlots.length; j++) {
+            axisOfSlot[axisSlots[j]] = j;
+        }
+
+        int nodeCount = tree.getNodeCount();
+        int[] level = new int[nodeCount];
+        int[] sizes = new int[axes.length + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            int opcode = tree.opcodeAt(node);
+            if (opcode == CompiledExpression.CONST) {
+                level[node] = 0;
+            } else if (opcode == CompiledExpression.LOAD) {
+                level[node] = axisOfSlot[tree.leafSlot(node)] + 1;
+            } else {
+                level[node] = Math.max(level[tree.leftChild(node)], level[tree.rightChild(node)]);
+            }
+            sizes[level[node]]++;
+        }
+
+        // Post-order within each level keeps every child ahead of its parent
+        this.levelNodes = new int[axes.length + 1][];
+        for (int l = 0; l < levelNodes.length; l++) {
+            levelNodes[l] = new int[sizes[l]];
+        }
+        int[] fill = new int[levelNodes.length];
+        for (int node = 0; node < nodeCount; node++) {
+            levelNodes[level[node]][fill[level[node]]++] = node;
+        }
+
+        int inner = axes.length;
+        this.columnar = new boolean[nodeCount];
+        boolean[] broadcast = new boolean[nodeCount];
+        for (int node : levelNodes[inner]) {
+            columnar[node] = true;
+            if (!tree.isLeaf(node)) {
+                broadcast[tree.leftChild(node)] |= level[tree.leftChild(node)] < inner;
+                broadcast[tree.rightChild(node)] |= level[tree.rightChild(node)] < inner;
+            }
+        }
+        // A root that does not depend on the inner axis is the same for the whole row
+        broadcast[nodeCount - 1] |= !columnar[nodeCount - 1];
+        this.broadcastNodes = IntStream.range(0, nodeCount).filter(node -> broadcast[node]).toArray();
+
+        long points = 1;
+        for (SweepAxis axis : axes) {
+            points *= axis.getSteps();
+        }
+        this.pointCount = points;
+    }
+
+    /**
+     * Validates the sweep and plans the evaluation. Every variable of the equation must either
+     * be swept or have a fixed value in {@code fixedValues}.
+     */
+    public static ParameterSweep plan(PackedExpressionTree tree, List<SweepAxis> axes, Map<String, Double> fixedValues) {
+        if (axes == null || axes.isEmpty()) {
+            throw new IllegalArgumentException("At least one axis is required");
+        }
+        List<String> variables = tree.getVariables();
+        int[] axisSlots = new int[axes.size()];
+        long points = 1;
+        Set<String> swept = new HashSet<>();
+        for (int j = 0; j < axisSlots.length; j++) {
+            SweepAxis axis = axes.get(j);
+            if (axis == null || axis.getVariable() == null) {
+                throw new IllegalArgumentException("Axis " + j + " has no variable");
+            }
+            if (!swept.add(axis.getVariable())) {
+                throw new IllegalArgumentException("Variable " + axis.getVariable() + " is swept more than once");
+            }
+            axisSlots[j] = variables.indexOf(axis.getVariable());
+            if (axisSlots[j] < 0) {
+                throw new IllegalArgumentException("Variable " + axis.getVariable() + " does not appear in the equation");
+            }
+            if (axis.getSteps() < 1) {
+                throw new IllegalArgumentException("Axis " + axis.getVariable() + " needs at least 1 step");
+            }
+            if (!Double.isFinite(axis.getFrom()) || !Double.isFinite(axis.getTo())) {
+                throw new IllegalArgumentException("Axis " + axis.getVariable() + " bounds must be finite");
+            }
+            points *= axis.getSteps();
+            if (points > MAX_POINTS) {
+                throw new IllegalArgumentException("Sweep exceeds " + MAX_POINTS + " points");
+            }
+        }
+
+        double[] slots = new double[variables.size()];
+        for (int i = 0; i < slots.length; i++) {
+            if (swept.contains(variables.get(i))) {
+                continue;
+            }
+            Double value = fixedValues == null ? null : fixedValues.get(variables.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + variables.get(i) + " not provided");
+            }
+            slots[i] = value;
+        }
+        return new ParameterSweep(tree, axes.toArray(new SweepAxis[0]), axisSlots, slots);
+    }
+
+    public long getPointCount() {
+        return pointCount;
+    }
+
+    public int[] getShape() {
+        int[] shape = new int[axes.length];
+        for (int j = 0; j < axes.length; j++) {
+            shape[j] = axes[j].getSteps();
+        }
+        return shape;
+    }
+
+    /**
+     * Nodes evaluated once per point; every other node is hoisted out of the inner loop.
+     */
+    int getInnerNodeCount() {
+        return levelNodes[axes.length].length;
+    }
+
+    public void write(SweepFormat format, OutputStream output) throws IOException {
+        if (format == SweepFormat.BINARY) {
+            run(new BinarySink(output));
+        } else {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+                generator.setRootValueSeparator(null);
+                run(new NdjsonSink(generator));
+            }
+        }
+    }
+
+    void run(Sink sink) throws IOException {
+        new Evaluation(sink).run();
+    }
+
+    /**
+     * Receives results one innermost row at a time, in blocks of at most {@code BLOCK} points.
+     */
+    interface Sink {
+        void startRow(int[] outerIndex) throws IOException;
+
+        void block(double[] results, boolean[] failed, int count) throws IOException;
+
+        void endRow() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class Evaluation {
+        private final Sink sink;
+        private final double[] values = new double[tree.getNodeCount()];
+        private final double[][] columns = new double[tree.getNodeCount()][];
+        private final double[] results = new double[BLOCK];
+        private final boolean[] failed = new boolean[BLOCK];
+        private final int[] outerIndex = new int[axes.length - 1];
+
+        private Evaluation(Sink sink) {
+            this.sink = sink;
+            for (int node = 0; node < columns.length; node++) {
+                if (columnar[node]) {
+                    columns[node] = new double[BLOCK];
+                }
+            }
+            for (int node : broadcastNodes) {
+                columns[node] = new double[BLOCK];
+            }
+        }
+
+        void run() throws IOException {
+            boolean constantFailed = evaluateScalars(levelNodes[0]);
+            sweep(0, constantFailed);
+            sink.finish();
+        }
+
+        private void sweep(int axis, boolean failedAbove) throws IOException {
+            if (axis == axes.length - 1) {
+                innerRow(failedAbove);
+                return;
+            }
+            for (int i = 0; i < axes[axis].getSteps(); i++) {
+                outerIndex[axis] = i;
+                slots[axisSlots[axis]] = axes[axis].valueAt(i);
+                boolean levelFailed = evaluateScalars(levelNodes[axis + 1]);
+                sweep(axis + 1, failedAbove || levelFailed);
+            }
+        }
+
+        private boolean evaluateScalars(int[] nodes) {
+            boolean anyFailed = false;
+            for (int node : nodes) {
+                switch (tree.opcodeAt(node)) {
+                    case CompiledExpression.CONST:
+                        values[node] = tree.leafConstant(node);
+                        break;
+                    case CompiledExpression.LOAD:
+                        values[node] = slots[tree.leafSlot(node)];
+                        break;
+                    case CompiledExpression.ADD:
+                        values[node] = values[tree.leftChild(node)] + values[tree.rightChild(node)];
+                        break;
+                    case CompiledExpression.SUB:
+                        values[node] = values[tree.leftChild(node)] - values[tree.rightChild(node)];
+                        break;
+                    case CompiledExpression.MUL:
+                        values[node] = values[tree.leftChild(node)] * values[tree.rightChild(node)];
+                        break;
+                    case CompiledExpression.DIV: {
+                        double divisor = values[tree.rightChild(node)];
+                        anyFailed |= divisor == 0;
+                        values[node] = values[tree.leftChild(node)] / divisor;
+                        break;
+                    }
+                    case CompiledExpression.POW:
+                        values[node] = Math.pow(values[tree.leftChild(node)], values[tree.rightChild(node)]);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown opcode: " + tree.opcodeAt(node));
+                }
+            }
+            return anyFailed;
+        }
+
+        private void innerRow(boolean failedAbove) throws IOException {
+            SweepAxis axis = axes[axes.length - 1];
+            int[] nodes = levelNodes[axes.length];
+            int root = tree.getNodeCount() - 1;
+            for (int node : broadcastNodes) {
+                Arrays.fill(columns[node], values[node]);
+            }
+
+            sink.startRow(outerIndex);
+            for (int start = 0; start < axis.getSteps(); start += BLOCK) {
+                int n = Math.min(BLOCK, axis.getSteps() - start);
+                Arrays.fill(failed, 0, n, failedAbove);
+                for (int node : nodes) {
+                    evaluateColumn(node, axis, start, n);
+                }
+                System.arraycopy(columns[root], 0, results, 0, n);
+                sink.block(results, failed, n);
+            }
+            sink.endRow();
+        }
+
+        private void evaluateColumn(int node, SweepAxis axis, int start, int n) {
+            double[] out = columns[node];
+            int opcode = tree.opcodeAt(node);
+            if (opcode == CompiledExpression.LOAD) {
+                // Only the inner axis variable is a columnar leaf
+                for (int i = 0; i < n; i++) {
+                    out[i] = axis.valueAt(start + i);
+                }
+                return;
+            }
+            double[] a = columns[tree.leftChild(node)];
+            double[] b = columns[tree.rightChild(node)];
+            switch (opcode) {
+                case CompiledExpression.ADD:
+                    for (int i = 0; i < n; i++) {
+                        out[i] = a[i] + b[i];
+                    }
+                    break;
+                case CompiledExpression.SUB:
+                    for (int i = 0; i < n; i++) {
+                        out[i] = a[i] - b[i];
+                    }
+                    break;
+                case CompiledExpression.MUL:
+                    for (int i = 0; i < n; i++) {
+                        out[i] = a[i] * b[i];
+                    }
+                    break;
+                case CompiledExpression.DIV:
+                    for (int i = 0; i < n; i++) {
+                        if (b[i] == 0) {
+                            failed[i] = true;
+                        }
+                        out[i] = a[i] / b[i];
+                    }
+                    break;
+                case CompiledExpression.POW:
+                    for (int i = 0; i < n; i++) {
+                        out[i] = Math.pow(a[i], b[i]);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcode);
+            }
+        }
+    }
+
+    private static final class NdjsonSink implements Sink {
+        private final JsonGenerator generator;
+
+        private NdjsonSink(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void startRow(int[] outerIndex) throws IOException {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("index");
+            for (int index : outerIndex) {
+                generator.writeNumber(index);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("results");
+        }
+
+        @Override
+        public void block(double[] results, boolean[] failed, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (failed[i]) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(results[i]);
+                }
+            }
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class BinarySink implements Sink {
+        private final OutputStream output;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BLOCK * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        private BinarySink(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void startRow(int[] outerIndex) {
+        }
+
+        @Override
+        public void block(double[] results, boolean[] failed, int count) throws IOException {
+            buffer.clear();
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(failed[i] ? Double.NaN : results[i]);
+            }
+            output.write(buffer.array(), 0, buffer.position());
+        }
+
+        @Override
+        public void endRow() {
+        }
+
+        @Override
+        public void finish() throws IOException {
+            output.flush();
+        }
+    }
+}
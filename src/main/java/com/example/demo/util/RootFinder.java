@@ -0,0 +1,222 @@
+package com.example.demo.util;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.RootSolution;
+
+/**
+ * Solves {@code f(x) = target} for one variable of a compiled expression, the others fixed.
+ * Derivatives come from {@link CompiledExpression#evaluateGradient}, so every Newton step costs
+ * one pass over the program. The reported iteration count is the number of such passes.
+ *
+ * <p>With a bracket {@code [lower, upper]} whose ends have opposite signs, Newton steps are
+ * safeguarded: a step that leaves the bracket or does not at least halve the residual is
+ * replaced by bisection. The bracket shrinks on every iteration, so convergence is never worse
+ * than bisection. With only an initial guess, plain Newton runs first; if it stalls (zero or
+ * non-finite derivative, undefined point, no convergence) the guess is expanded geometrically
+ * into a sign-change bracket and the bracketed solve takes over.
+ *
+ * <p>A solve converges when {@code |f(x) - target| <= tolerance}, or when a sign-change
+ * bracket has shrunk to adjacent doubles. A pole with a sign change (such as {@code 1/x} at 0)
+ * is reported as a root in the second case, as with any bracketing method; the residual in the
+ * result shows it.
+ */
+public final class RootFinder {
+
+    public static final String NEWTON = "newton";
+    public static final String BRACKETED = "bracketed";
+
+    private static final int MAX_BRACKET_EXPANSIONS = 64;
+
+    private final CompiledExpression expression;
+    private final double[] slots;
+    private final int[] unknown;
+    private final double[] derivative = new double[1];
+    private final double target;
+    private final double tolerance;
+    private final int maxIterations;
+    private int iterations;
+
+    private RootFinder(CompiledExpression expression, double[] slots, int unknownSlot, double target,
+            double tolerance, int maxIterations) {
+        this.expression = expression;
+        this.slots = slots;
+        this.unknown = new int[] {unknownSlot};
+        this.target = target;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Finds {@code x} with {@code f(x) = target}, where {@code f} is {@code expression} with
+     * {@code slots} fixed except {@code unknownSlot}. Either {@code initialGuess} or both bounds
+     * must be given. {@code slots} is used as scratch space.
+     */
+    public static RootSolution solve(CompiledExpression expression, double[] slots, int unknownSlot, double target,
+            Double initialGuess, Double lower, Double upper, double tolerance, int maxIterations) {
+        if ((lower == null) != (upper == null)) {
+            throw new IllegalArgumentException("Both lower and upper bounds are required for a bracket");
+        }
+        if (lower == null && initialGuess == null) {
+            throw new IllegalArgumentException("Provide an initialGuess or lower and upper bounds");
+        }
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive");
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations must be positive");
+        }
+        RootFinder finder = new RootFinder(expression, slots, unknownSlot, target, tolerance, maxIterations);
+        if (lower != null) {
+            if (!(lower < upper)) {
+                throw new IllegalArgumentException("Lower bound must be less than upper bound");
+            }
+            double fLower = finder.residualOrNaN(lower);
+            double fUpper = finder.residualOrNaN(upper);
+            if (Double.isNaN(fLower) || Double.isNaN(fUpper)) {
+                throw new IllegalArgumentException("Equation is undefined at "
+                        + (Double.isNaN(fLower) ? "lower" : "upper") + " bound");
+            }
+            if (Math.signum(fLower) * Math.signum(fUpper) > 0) {
+                throw new IllegalArgumentException("No sign change in [" + lower + ", " + upper
+                        + "]: f(lower) - target = " + fLower + ", f(upper) - target = " + fUpper);
+            }
+            return finder.bracketed(lower, fLower, upper, fUpper, initialGuess);
+        }
+        return finder.newton(initialGuess);
+    }
+
+    private RootSolution newton(double guess) {
+        double x = guess;
+        double best = guess;
+        double bestResidual = Double.NaN;
+        while (iterations < maxIterations) {
+            double fx;
+            try {
+                fx = residualWithDerivative(x);
+            } catch (ArithmeticException e) {
+                break;
+            }
+            if (!Double.isNaN(fx) && !(Math.abs(fx) >= Math.abs(bestResidual))) {
+                best = x;
+                bestResidual = fx;
+            }
+            if (Math.abs(fx) <= tolerance) {
+                return new RootSolution(x, fx, iterations, true, NEWTON);
+            }
+            double next = x - fx / derivative[0];
+            if (!Double.isFinite(next)) {
+                break;
+            }
+            x = next;
+        }
+
+        RootSolution bracketed = expandAndSolve(guess);
+        return bracketed != null ? bracketed : new RootSolution(best, bestResidual, iterations, false, NEWTON);
+    }
+
+    /**
+     * Widens an interval around {@code guess} geometrically until the residual changes sign.
+     * Points where the equation is undefined are skipped. Returns null if no sign change is
+     * found within the expansion or iteration budget.
+     */
+    private RootSolution expandAndSolve(double guess) {
+        double anchor = guess;
+        double fAnchor = iterations < maxIterations ? residualOrNaN(guess) : Double.NaN;
+        double width = Math.max(1.0, Math.abs(guess)) * 0.01;
+        for (int i = 0; i < MAX_BRACKET_EXPANSIONS; i++, width *= 2) {
+            for (double x : new double[] {guess - width, guess + width}) {
+                if (iterations >= maxIterations) {
+                    return null;
+                }
+                double fx = residualOrNaN(x);
+                if (Double.isNaN(fx)) {
+                    continue;
+                }
+                if (Double.isNaN(fAnchor)) {
+                    anchor = x;
+                    fAnchor = fx;
+                } else if (Math.signum(fx) * Math.signum(fAnchor) <= 0) {
+                    return x < anchor
+                            ? bracketed(x, fx, anchor, fAnchor, null)
+                            : bracketed(anchor, fAnchor, x, fx, null);
+                }
+            }
+        }
+        return null;
+    }
+
+    private RootSolution bracketed(double lower, double fLower, double upper, double fUpper, Double guess) {
+        if (Math.abs(fLower) <= tolerance) {
+            return new RootSolution(lower, fLower, iterations, true, BRACKETED);
+        }
+        if (Math.abs(fUpper) <= tolerance) {
+            return new RootSolution(upper, fUpper, iterations, true, BRACKETED);
+        }
+        // Orient so the residual is negative at lo and positive at hi
+        double lo = fLower < 0 ? lower : upper;
+        double hi = fLower < 0 ? upper : lower;
+        double x = guess != null && guess > lower && guess < upper ? guess : lower + (upper - lower) / 2;
+        double previousResidual = Double.POSITIVE_INFINITY;
+
+        while (iterations < maxIterations) {
+            double fx = residualWithDerivativeOrNaN(x);
+            if (Double.isNaN(fx)) {
+                // Undefined inside the bracket; continue from the midpoint instead
+                double mid = lo + (hi - lo) / 2;
+                if (mid == x) {
+                    throw new IllegalArgumentException("Equation is undefined at " + x + " inside the bracket");
+                }
+                x = mid;
+                continue;
+            }
+            if (Math.abs(fx) <= tolerance) {
+                return new RootSolution(x, fx, iterations, true, BRACKETED);
+            }
+            if (fx < 0) {
+                lo = x;
+            } else {
+                hi = x;
+            }
+            if (Math.abs(hi - lo) <= 2 * Math.ulp(x)) {
+                return new RootSolution(x, fx, iterations, true, BRACKETED);
+            }
+
+            double next = x - fx / derivative[0];
+            boolean inside = next > Math.min(lo, hi) && next < Math.max(lo, hi);
+            if (!inside || Math.abs(fx) > previousResidual / 2) {
+                next = lo + (hi - lo) / 2;
+            }
+            previousResidual = Math.abs(fx);
+            x = next;
+        }
+        return new RootSolution(x, residualOrNaN(x), iterations, false, BRACKETED);
+    }
+
+    private double residual(double x) {
+        slots[unknown[0]] = x;
+        iterations++;
+        return expression.evaluate(slots) - target;
+    }
+
+    private double residualOrNaN(double x) {
+        try {
+            return residual(x);
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+
+    private double residualWithDerivative(double x) {
+        slots[unknown[0]] = x;
+        iterations++;
+        return expression.evaluateGradient(slots, unknown, derivative) - target;
+    }
+
+    private double residualWithDerivativeOrNaN(double x) {
+        try {
+            return residualWithDerivative(x);
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+}
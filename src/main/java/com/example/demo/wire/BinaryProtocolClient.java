@@ -0,0 +1,129 @@
+package com.example.demo.wire;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Blocking client for the {@link WireProtocol binary protocol}. Requests may be pipelined:
+ * call {@link #send} any number of times, then {@link #receive} once per request, in order.
+ * Not thread-safe; use one client per thread.
+ */
+public class BinaryProtocolClient implements Closeable {
+
+    private final SocketChannel channel;
+    private ByteBuffer out = WireProtocol.allocate(64 * 1024);
+    private ByteBuffer in = WireProtocol.allocate(64 * 1024).flip();
+
+    public BinaryProtocolClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Sends one request without waiting for its response. Every row holds the variable values
+     * in the equation's slot order, and all rows must have the same length.
+     */
+    public void send(long requestId, String equationId, double[][] rows) throws IOException {
+        int width = rows.length == 0 ? 0 : rows[0].length;
+        int length = Long.BYTES + 1 + WireProtocol.stringBytes(equationId) + 2 * Integer.BYTES
+                + rows.length * width * Double.BYTES;
+        out.clear();
+        out = WireProtocol.ensureRemaining(out, WireProtocol.LENGTH_BYTES + length);
+        out.putInt(length);
+        out.putLong(requestId);
+        out.put(WireProtocol.EVALUATE);
+        WireProtocol.putString(out, equationId);
+        out.putInt(rows.length);
+        out.putInt(width);
+        for (double[] row : rows) {
+            if (row.length != width) {
+                throw new IllegalArgumentException("Every row needs " + width + " values");
+            }
+            WireProtocol.putDoubles(out, row, 0, width);
+        }
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /**
+     * Blocks until the next response arrives.
+     */
+    public Response receive() throws IOException {
+        fill(WireProtocol.LENGTH_BYTES);
+        int length = in.getInt(in.position());
+        fill(WireProtocol.LENGTH_BYTES + length);
+        in.position(in.position() + WireProtocol.LENGTH_BYTES);
+
+        long requestId = in.getLong();
+        byte status = in.get();
+        Response response;
+        if (status == WireProtocol.STATUS_OK) {
+            int rows = in.getInt();
+            double[] results = new double[rows];
+            WireProtocol.getDoubles(in, results, 0, rows);
+            byte[] rowCodes = new byte[rows];
+            in.get(rowCodes);
+            response = new Response(requestId, results, rowCodes, null);
+        } else {
+            response = new Response(requestId, null, null, WireProtocol.getString(in));
+        }
+        return response;
+    }
+
+    /**
+     * Evaluates a single point and waits for the result. Division by zero yields NaN; any
+     * other error is thrown.
+     */
+    public double evaluate(String equationId, double... values) throws IOException {
+        send(0, equationId, new double[][] {values});
+        Response response = receive();
+        if (response.getError() != null) {
+            throw new IllegalArgumentException(response.getError());
+        }
+        return response.getResults()[0];
+    }
+
+    /**
+     * Makes sure at least {@code needed} unread bytes are buffered. Between calls {@code in}
+     * is in read mode.
+     */
+    private void fill(int needed) throws IOException {
+        if (in.remaining() >= needed) {
+            return;
+        }
+        in.compact();
+        in = WireProtocol.ensureRemaining(in, needed - in.position());
+        while (in.position() < needed) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+        in.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Response {
+        private long requestId;
+        // Set on success
+        private double[] results;
+        private byte[] rowCodes;
+        // Set when the server rejected the request
+        private String error;
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.demo.wire;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.service.EquationService;
+
+/**
+ * TCP listener for the {@link WireProtocol binary protocol}, for callers that evaluate at a
+ * rate where JSON encoding costs more than the evaluation. It is off unless
+ * {@code equation.binary.enabled} is set.
+ *
+ * <p>An acceptor thread hands connections round-robin to a fixed set of event loops, each a
+ * non-blocking NIO selector on its own thread. A loop decodes every complete frame it has
+ * read and hands it to a pool of worker threads, so a slow evaluation, or one waiting for a
+ * coalesced batch, never holds up the other connections on its loop. Finished responses go
+ * back to the loop, which writes them in request order, so a client may pipeline requests
+ * without waiting. While a connection has unsent output or too many frames in progress, the
+ * loop stops reading from it: a client that does not read its responses is throttled instead
+ * of growing the server's buffers.
+ *
+ * <p>A frame with one row goes through the same path as a single REST evaluation, including
+ * the compiled tier and result cache; a frame with many rows is evaluated as a batch. Errors
+ * in a well-formed frame are answered with an error frame and the connection stays open. A
+ * frame whose length is out of range cannot be skipped reliably, so it closes the connection.
+ */
+@Component
+@ConditionalOnProperty(name = "equation.binary.enabled", havingValue = "true")
+public class BinaryProtocolServer {
+
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final int RESPONSE_BUFFER_BYTES = 64;
+    private static final int MAX_PENDING_FRAMES = 1024;
+
+    private final EquationService equationService;
+    private final EquationMetrics equationMetrics;
+    private final int maxFrameBytes;
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    @Autowired
+    public BinaryProtocolServer(EquationService equationService, EquationMetrics equationMetrics,
+                                @Value("${equation.binary.address:0.0.0.0}") String address,
+                                @Value("${equation.binary.port:7070}") int port,
+                                @Value("${equation.binary.io-threads:0}") int ioThreads,
+                                @Value("${equation.binary.worker-threads:0}") int workerThreads,
+                                @Value("${equation.binary.max-frame-size:16MB}") DataSize maxFrameSize) throws IOException {
+        this.equationService = equationService;
+        this.equationMetrics = equationMetrics;
+        this.maxFrameBytes = (int) Math.min(Integer.MAX_VALUE - WireProtocol.LENGTH_BYTES, maxFrameSize.toBytes());
+        int threads = ioThreads > 0 ? ioThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(
+                workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors(), task -> {
+                    Thread thread = new Thread(task, "equation-binary-worker-" + workerCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(address, port));
+        this.loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop(Selector.open());
+            Thread thread = new Thread(loops[i], "equation-binary-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Thread acceptor = new Thread(this::accept, "equation-binary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * The bound port, which differs from the configured one when that was 0.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        running = false;
+        serverChannel.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        workers.shutdownNow();
+    }
+
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                EventLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+                loop.pending.add(channel);
+                loop.selector.wakeup();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes one request frame (without its length prefix) and appends the response.
+     */
+    ByteBuffer handle(ByteBuffer frame, ByteBuffer out) {
+        long requestId = frame.getLong();
+        try {
+            byte opcode = frame.get();
+            if (opcode != WireProtocol.EVALUATE) {
+                throw new IllegalArgumentException("Unknown opcode: " + opcode);
+            }
+            String equationId = WireProtocol.getString(frame);
+            int rows = frame.getInt();
+            int width = frame.getInt();
+            if (rows < 0 || width < 0 || (long) rows * width * Double.BYTES != frame.remaining()) {
+                throw new IllegalArgumentException("Frame carries " + frame.remaining() + " value bytes, expected "
+                        + rows + " rows of " + width + " values");
+            }
+            return rows == 1 ? evaluateRow(requestId, equationId, frame, width, out)
+                    : evaluateRows(requestId, equationId, frame, rows, width, out);
+        } catch (IllegalArgumentException e) {
+            equationMetrics.recordIllegalArgument();
+            return writeError(out, requestId, e.getMessage());
+        } catch (BufferUnderflowException e) {
+            equationMetrics.recordIllegalArgument();
+            return writeError(out, requestId, "Malformed frame");
+        } catch (RuntimeException e) {
+            equationMetrics.recordUnexpectedError();
+            return writeError(out, requestId, "An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs {@link #handle} on a worker. {@code handle} answers exceptions itself; anything that
+     * still escapes, such as an {@link Error}, becomes an error frame here.
+     */
+    private ByteBuffer respond(ByteBuffer frame) {
+        try {
+            return handle(frame, WireProtocol.allocate(RESPONSE_BUFFER_BYTES)).flip();
+        } catch (Throwable e) {
+            equationMetrics.recordUnexpectedError();
+            return writeError(WireProtocol.allocate(RESPONSE_BUFFER_BYTES), frame.getLong(0),
+                    "An unexpected error occurred: " + e).flip();
+        }
+    }
+
+    private ByteBuffer evaluateRow(long requestId, String equationId, ByteBuffer frame, int width, ByteBuffer out) {
+        double[] values = new double[width];
+        WireProtocol.getDoubles(frame, values, 0, width);
+        double result;
+        byte code = CompiledExpression.ROW_OK;
+        try {
+            result = equationService.evaluateEquation(equationId, values);
+        } catch (ArithmeticException e) {
+            equationMetrics.recordArithmeticError();
+            result = Double.NaN;
+            code = CompiledExpression.ROW_DIVISION_BY_ZERO;
+        }
+        out = startResponse(out, requestId, WireProtocol.STATUS_OK, Integer.BYTES + Double.BYTES + 1);
+        out.putInt(1);
+        out.putDouble(result);
+        out.put(code);
+        return endResponse(out);
+    }
+
+    private ByteBuffer evaluateRows(long requestId, String equationId, ByteBuffer frame, int rows, int width,
+            ByteBuffer out) {
+        // With no rows the frame length does not bound the width, so check it before allocating
+        CompiledExpression compiledExpression = equationService.getEquationById(equationId).getCompiledExpression();
+        if (compiledExpression != null && width != compiledExpression.getVariableCount()) {
+            throw new IllegalArgumentException("Expected " + compiledExpression.getVariableCount() + " columns in order "
+                    + compiledExpression.getVariables() + " but got " + width);
+        }
+        // Rows arrive row by row; the batch interpreter wants one column per slot
+        double[][] columns = new double[width][rows];
+        for (int row = 0; row < rows; row++) {
+            for (int slot = 0; slot < width; slot++) {
+                columns[slot][row] = frame.getDouble();
+            }
+        }
+        BatchEvaluation batch = equationService.evaluateBatch(equationId, columns, rows);
+        out = startResponse(out, requestId, WireProtocol.STATUS_OK, Integer.BYTES + rows * (Double.BYTES + 1));
+        out.putInt(rows);
+        WireProtocol.putDoubles(out, batch.getResults(), 0, rows);
+        out.put(batch.getErrors(), 0, rows);
+        return endResponse(out);
+    }
+
+    private static ByteBuffer writeError(ByteBuffer out, long requestId, String message) {
+        // Messages may echo the equation ID, which can itself use the whole field
+        String text = message == null ? "" : WireProtocol.truncate(message, WireProtocol.MAX_STRING_BYTES);
+        out = startResponse(out, requestId, WireProtocol.STATUS_ERROR, WireProtocol.stringBytes(text));
+        WireProtocol.putString(out, text);
+        return endResponse(out);
+    }
+
+    /**
+     * Reserves the length field, which {@link #endResponse} fills in. The start of the frame
+     * is kept in the buffer's mark.
+     */
+    private static ByteBuffer startResponse(ByteBuffer out, long requestId, byte status, int bodyBytes) {
+        out = WireProtocol.ensureRemaining(out, WireProtocol.LENGTH_BYTES + Long.BYTES + 1 + bodyBytes);
+        out.mark();
+        out.putInt(0);
+        out.putLong(requestId);
+        out.put(status);
+        return out;
+    }
+
+    private static ByteBuffer endResponse(ByteBuffer out) {
+        int end = out.position();
+        out.reset();
+        int start = out.position();
+        out.putInt(start, end - start - WireProtocol.LENGTH_BYTES);
+        out.position(end);
+        return out;
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+
+        private EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel accepted;
+                    while ((accepted = pending.poll()) != null) {
+                        Connection connection = new Connection(this, accepted);
+                        connection.key = accepted.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Connection done;
+                    while ((done = completed.poll()) != null) {
+                        try {
+                            done.collect();
+                        } catch (IOException e) {
+                            done.close();
+                        }
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read();
+                            }
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Shutting down anyway
+                }
+            }
+        }
+
+        /**
+         * Called by a worker when a response is ready; wakes the loop unless it is already due
+         * to look at the connection.
+         */
+        private void complete(Connection connection) {
+            if (connection.collectQueued.compareAndSet(false, true)) {
+                completed.add(connection);
+                selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * A response slot, queued in request order and completed by a worker.
+     */
+    private static final class PendingResponse {
+        // Read mode; null if no response could be built. Written before done is set
+        private ByteBuffer response;
+        private volatile boolean done;
+    }
+
+    private final class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final Queue<PendingResponse> responses = new ArrayDeque<>();
+        private final AtomicBoolean collectQueued = new AtomicBoolean();
+        private SelectionKey key;
+        private ByteBuffer in = WireProtocol.allocate(INITIAL_BUFFER_BYTES);
+        private ByteBuffer out = WireProtocol.allocate(INITIAL_BUFFER_BYTES);
+
+        private Connection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            dispatch();
+            flush();
+        }
+
+        /**
+         * Hands every complete buffered frame to the workers, up to the in-progress limit.
+         */
+        private void dispatch() throws IOException {
+            in.flip();
+            while (responses.size() < MAX_PENDING_FRAMES && in.remaining() >= WireProtocol.LENGTH_BYTES) {
+                int length = in.getInt(in.position());
+                if (length < WireProtocol.MIN_REQUEST_BYTES || length > maxFrameBytes) {
+                    equationMetrics.recordIllegalArgument();
+                    close();
+                    return;
+                }
+                if (in.remaining() < WireProtocol.LENGTH_BYTES + length) {
+                    break;
+                }
+                int start = in.position() + WireProtocol.LENGTH_BYTES;
+                // Copied out, since the read buffer is reused before the worker gets to it
+                ByteBuffer frame = WireProtocol.allocate(length);
+                frame.put(in.slice(start, length)).flip();
+                in.position(start + length);
+                submit(frame);
+            }
+            in.compact();
+            if (in.position() >= WireProtocol.LENGTH_BYTES) {
+                // Make room for the whole of a partially read frame
+                in = WireProtocol.ensureRemaining(in, in.getInt(0) + WireProtocol.LENGTH_BYTES - in.position());
+            }
+        }
+
+        private void submit(ByteBuffer frame) throws IOException {
+            PendingResponse pending = new PendingResponse();
+            responses.add(pending);
+            try {
+                workers.execute(() -> {
+                    // The slot must complete whatever happens, or every later response waits behind it
+                    try {
+                        pending.response = respond(frame);
+                    } finally {
+                        pending.done = true;
+                        loop.complete(this);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                throw new IOException("Server is shutting down", e);
+            }
+        }
+
+        /**
+         * Moves the responses that are ready, in request order, to the output buffer.
+         */
+        private void collect() throws IOException {
+            collectQueued.set(false);
+            if (!key.isValid()) {
+                return;
+            }
+            PendingResponse head;
+            while ((head = responses.peek()) != null && head.done) {
+                if (head.response == null) {
+                    // Not even an error frame could be built, and the client cannot be left waiting
+                    close();
+                    return;
+                }
+                out = WireProtocol.ensureRemaining(out, head.response.remaining());
+                out.put(head.response);
+                responses.poll();
+            }
+            // Frames held back by the in-progress limit may go now
+            dispatch();
+            flush();
+        }
+
+        private void flush() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            out.flip();
+            channel.write(out);
+            boolean drained = !out.hasRemaining();
+            out.compact();
+            int ops = drained ? 0 : SelectionKey.OP_WRITE;
+            if (drained && responses.size() < MAX_PENDING_FRAMES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        private void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to do for this connection
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.wire;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frame layout of the binary evaluation protocol. Every field is little-endian and every
+ * frame starts with its length, not counting the length field itself:
+ *
+ * <pre>
+ * request:  int32 length | int64 requestId | uint8 opcode (1 = evaluate)
+ *           | uint16 idBytes | equation ID (UTF-8)
+ *           | int32 rows | int32 width | float64[rows * width] values, row by row in slot order
+ * response: int32 length | int64 requestId | uint8 status
+ *   OK:     | int32 rows | float64[rows] results | uint8[rows] row codes
+ *   ERROR:  | uint16 messageBytes | message (UTF-8)
+ * </pre>
+ *
+ * Row codes are those of {@link com.example.demo.model.CompiledExpression}: 0 for a result,
+ * 1 for a division by zero (the result is NaN). Responses on a connection come back in
+ * request order; the request ID lets a client match them when it pipelines many requests.
+ */
+public final class WireProtocol {
+
+    public static final byte EVALUATE = 1;
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    static final int LENGTH_BYTES = Integer.BYTES;
+    // requestId, opcode, idBytes, rows, width
+    static final int MIN_REQUEST_BYTES = Long.BYTES + 1 + Short.BYTES + 2 * Integer.BYTES;
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private WireProtocol() {
+    }
+
+    static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns {@code buffer}, or a larger copy of it if fewer than {@code needed} bytes remain.
+     */
+    static ByteBuffer ensureRemaining(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer larger = allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    static int stringBytes(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for a frame");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Cuts {@code value} to at most {@code maxBytes} of UTF-8, on a character boundary.
+     */
+    static String truncate(String value, int maxBytes) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return value;
+        }
+        int end = maxBytes;
+        // Back up over continuation bytes to the start of the cut character
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes {@code count} doubles with one bulk copy instead of a put per value.
+     */
+    static void putDoubles(ByteBuffer buffer, double[] values, int offset, int count) {
+        buffer.asDoubleBuffer().put(values, offset, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    static void getDoubles(ByteBuffer buffer, double[] values, int offset, int count) {
+        buffer.asDoubleBuffer().get(values, offset, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EvaluationResultCacheTest {
+
+    private MeterRegistry registry;
+    private EvaluationResultCache cache;
+    private EquationServiceImpl equationService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new EvaluationResultCache(registry, true, 100, Duration.ofMinutes(1));
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        equationService = EquationServiceImpl.builder()
+                .repository(repository)
+                .metrics(new EquationMetrics(registry, repository))
+                .tieredCompiler(new TieredCompiler(false, 0))
+                .resultCache(cache)
+                .build();
+    }
+
+    @Test
+    public void testRepeatedEvaluationIsServedFromCache() {
+        String equationId = equationService.storeEquation("3x + 2y");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.0);
+        variables.put("y", 2.0);
+        variables.put("unused", 5.0);
+
+        assertEquals(7.0, equationService.evaluateEquation(equationId, variables), 0.001);
+        assertEquals(7.0, equationService.evaluateEquation(equationId, new double[] {1.0, 2.0}), 0.001);
+
+        assertEquals(1, cache.size());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", EvaluationResultCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        // Hits count as evaluations too
+        assertEquals(2, equationService.getEquationById(equationId).getEvaluationCount().sum());
+    }
+
+    @Test
+    public void testDivisionByZeroIsReplayed() {
+        String equationId = equationService.storeEquation("x / y");
+
+        for (int i = 0; i < 3; i++) {
+            ArithmeticException e = assertThrows(ArithmeticException.class,
+                    () -> equationService.evaluateEquation(equationId, new double[] {1.0, 0.0}));
+            assertEquals("Division by zero", e.getMessage());
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testKeyComparesValuesBitwise() {
+        int[] calls = new int[1];
+        cache.get("1", new double[] {0.0}, slots -> ++calls[0]);
+        cache.get("1", new double[] {-0.0}, slots -> ++calls[0]);
+        cache.get("1", new double[] {Double.NaN}, slots -> ++calls[0]);
+        cache.get("1", new double[] {Double.NaN}, slots -> ++calls[0]);
+        cache.get("2", new double[] {0.0}, slots -> ++calls[0]);
+
+        assertEquals(4, calls[0]);
+    }
+
+    @Test
+    public void testDeleteInvalidatesEntries() {
+        String equationId = equationService.storeEquation("x + 1");
+        String otherId = equationService.storeEquation("x + 2");
+        equationService.evaluateEquation(equationId, new double[] {1.0});
+        equationService.evaluateEquation(otherId, new double[] {1.0});
+
+        equationService.deleteEquation(equationId);
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysEvaluates() {
+        EvaluationResultCache disabled = EvaluationResultCache.disabled();
+        int[] calls = new int[1];
+        disabled.get("1", new double[] {1.0}, slots -> ++calls[0]);
+        disabled.get("1", new double[] {1.0}, slots -> ++calls[0]);
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(2, calls[0]);
+    }
+}
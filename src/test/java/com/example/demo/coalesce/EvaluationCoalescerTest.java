@@ -0,0 +1,205 @@
+package com.example.demo.coalesce;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EvaluationCoalescerTest {
+
+    private final CompiledExpression expression = ExpressionCompiler.compile(EquationParser.parseEquation("x / y"));
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger batchRows = new AtomicInteger();
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private BatchEvaluation batch(double[][] columns, int rows) {
+        batchCalls.incrementAndGet();
+        batchRows.addAndGet(rows);
+        double[] results = new double[rows];
+        byte[] errors = new byte[rows];
+        expression.evaluateBatch(columns, 0, rows, results, errors);
+        return new BatchEvaluation(results, errors, 0);
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> type, Future<Double> future) {
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(type, thrown.getCause());
+    }
+
+    /**
+     * Occupies the equation with a single evaluation that blocks until {@code release}, so
+     * that later callers are not alone and have to form batches.
+     */
+    private Future<Double> occupy(EvaluationCoalescer coalescer, CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        ToDoubleFunction<double[]> blocking = slots -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return expression.evaluate(slots);
+        };
+        Future<Double> future = executor.submit(() -> coalescer.evaluate("1", new double[] {1, 1}, blocking, this::batch));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneBatch() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        int callers = 32;
+        // A window long enough that only filling the batch can close it
+        EvaluationCoalescer coalescer = new EvaluationCoalescer(registry, true, 60_000_000, callers);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Double> occupant = occupy(coalescer, release);
+
+        List<Future<Double>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            double[] slots = {i, i % 8};
+            futures.add(executor.submit(() -> coalescer.evaluate("1", slots, expression::evaluate, this::batch)));
+        }
+
+        for (int i = 0; i < callers; i++) {
+            if (i % 8 == 0) {
+                assertFailsWith(ArithmeticException.class, futures.get(i));
+            } else {
+                assertEquals((double) i / (i % 8), futures.get(i).get(5, TimeUnit.SECONDS), 0.0);
+            }
+        }
+        assertEquals(1, batchCalls.get());
+        assertEquals(callers, batchRows.get());
+
+        release.countDown();
+        assertEquals(1.0, occupant.get(5, TimeUnit.SECONDS), 0.0);
+        DistributionSummary sizes = registry.get("equation.coalesce.batch.size").summary();
+        assertEquals(2, sizes.count());
+        assertEquals(callers, sizes.max(), 0.0);
+        assertEquals(callers + 1, registry.get("equation.coalesce.queue").timer().count());
+    }
+
+    @Test
+    public void testWindowEndsBatchWithoutFilling() throws Exception {
+        EvaluationCoalescer coalescer = new EvaluationCoalescer(new SimpleMeterRegistry(), true, 1_000, 1_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Double> occupant = occupy(coalescer, release);
+
+        // Nobody joins within the millisecond, so the leader runs on its own
+        Future<Double> leader = executor.submit(
+                () -> coalescer.evaluate("1", new double[] {6, 3}, expression::evaluate, this::batch));
+
+        assertEquals(2.0, leader.get(5, TimeUnit.SECONDS), 0.0);
+        assertEquals(0, batchCalls.get());
+        release.countDown();
+        occupant.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testLoneCallerDoesNotWait() {
+        EvaluationCoalescer coalescer = new EvaluationCoalescer(new SimpleMeterRegistry(), true, 60_000_000, 8);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(2.0, coalescer.evaluate("1", new double[] {2 * i, i}, expression::evaluate, this::batch), 0.0);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, batchCalls.get());
+    }
+
+    @Test
+    public void testCallersInRunningBatchDoNotHoldUpTheNext() throws Exception {
+        EvaluationCoalescer coalescer = new EvaluationCoalescer(new SimpleMeterRegistry(), true, 60_000_000, 2);
+        CountDownLatch releaseOccupant = new CountDownLatch(1);
+        Future<Double> occupant = occupy(coalescer, releaseOccupant);
+
+        // Two callers fill a batch whose evaluation blocks, so both stay in flight
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        EvaluationCoalescer.BatchFunction blocking = (columns, rows) -> {
+            batchStarted.countDown();
+            try {
+                releaseBatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return batch(columns, rows);
+        };
+        List<Future<Double>> running = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            double[] slots = {i, 1};
+            running.add(executor.submit(() -> coalescer.evaluate("1", slots, expression::evaluate, blocking)));
+        }
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+        releaseOccupant.countDown();
+        occupant.get(5, TimeUnit.SECONDS);
+
+        // Nobody else can join, so this caller must not wait out the window for them
+        Future<Double> next = executor.submit(
+                () -> coalescer.evaluate("1", new double[] {6, 3}, expression::evaluate, this::batch));
+        assertEquals(2.0, next.get(5, TimeUnit.SECONDS), 0.0);
+
+        releaseBatch.countDown();
+        assertEquals(1.0, running.get(0).get(5, TimeUnit.SECONDS), 0.0);
+        assertEquals(2.0, running.get(1).get(5, TimeUnit.SECONDS), 0.0);
+    }
+
+    @Test
+    public void testBatchFailureReachesEveryCaller() throws Exception {
+        EvaluationCoalescer coalescer = new EvaluationCoalescer(new SimpleMeterRegistry(), true, 60_000_000, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Double> occupant = occupy(coalescer, release);
+
+        List<Future<Double>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> coalescer.evaluate("1", new double[] {1, 2}, expression::evaluate,
+                    (columns, rows) -> {
+                        throw new IllegalArgumentException("Equation not found with ID: 1");
+                    })));
+        }
+        for (Future<Double> future : futures) {
+            assertFailsWith(IllegalArgumentException.class, future);
+        }
+        release.countDown();
+        occupant.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testDisabledEvaluatesDirectly() {
+        EvaluationCoalescer coalescer = EvaluationCoalescer.disabled();
+
+        assertFalse(coalescer.isEnabled());
+        assertEquals(0.5, coalescer.evaluate("1", new double[] {1, 2}, expression::evaluate, this::batch), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> new EvaluationCoalescer(new SimpleMeterRegistry(), true, 100, 0));
+    }
+}
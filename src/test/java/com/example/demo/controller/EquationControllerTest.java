@@ -4,7 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,13 +19,32 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.example.demo.dto.EquationListResponse;
+import com.example.demo.dto.EquationVariablesResponse;
+import com.example.demo.dto.EvaluateBatchRequest;
+import com.example.demo.dto.EvaluateBatchResponse;
 import com.example.demo.dto.EvaluateEquationRequest;
 import com.example.demo.dto.EvaluateEquationResponse;
+import com.example.demo.dto.EvaluateManyRequest;
+import com.example.demo.dto.EvaluateManyResponse;
+import com.example.demo.dto.EvaluateVectorRequest;
+import com.example.demo.dto.EvaluateVectorResponse;
+import com.example.demo.dto.GradientRequest;
+import com.example.demo.dto.GradientResponse;
 import com.example.demo.dto.StoreEquationRequest;
 import com.example.demo.dto.StoreEquationResponse;
+import com.example.demo.dto.ThresholdRequest;
+import com.example.demo.dto.ThresholdResponse;
+import com.example.demo.model.BatchEvaluation;
 import com.example.demo.model.Equation;
 import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.GradientEvaluation;
+import com.example.demo.model.Interval;
+import com.example.demo.model.MultiEvaluation;
+import com.example.demo.model.ThresholdSearch;
 import com.example.demo.service.EquationService;
+import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+import com.example.demo.util.IntervalSearch;
 
 public class EquationControllerTest {
 
@@ -86,7 +107,7 @@ public class EquationControllerTest {
         Equation equation = new Equation(equationId, "3x + 2y - z", new ExpressionTree());
         
         when(equationService.getEquationById(equationId)).thenReturn(equation);
-        when(equationService.evaluateEquation(equationId, variables)).thenReturn(11.0);
+        when(equationService.evaluateEquation(equation, variables)).thenReturn(11.0);
         
         ResponseEntity<EvaluateEquationResponse> response = equationController.evaluateEquation(equationId, request);
         
@@ -97,7 +118,7 @@ public class EquationControllerTest {
         assertEquals(11.0, response.getBody().getResult(), 0.001);
         
         verify(equationService).getEquationById(equationId);
-        verify(equationService).evaluateEquation(equationId, variables);
+        verify(equationService).evaluateEquation(equation, variables);
     }
     
     @Test
@@ -112,7 +133,7 @@ public class EquationControllerTest {
         Equation equation = new Equation(equationId, "3x + 2y - z", new ExpressionTree());
         
         when(equationService.getEquationById(equationId)).thenReturn(equation);
-        when(equationService.evaluateEquation(equationId, variables)).thenThrow(new IllegalArgumentException("Variable y not provided"));
+        when(equationService.evaluateEquation(equation, variables)).thenThrow(new IllegalArgumentException("Variable y not provided"));
         
         try {
             equationController.evaluateEquation(equationId, request);
@@ -122,6 +143,117 @@ public class EquationControllerTest {
         }
         
         verify(equationService).getEquationById(equationId);
-        verify(equationService).evaluateEquation(equationId, variables);
+        verify(equationService).evaluateEquation(equation, variables);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testGetVariables_Success() {
+        String equationId = "1";
+        ExpressionTree tree = EquationParser.parseEquation("3x + 2y - z");
+        Equation equation = new Equation(equationId, "3x + 2y - z", tree, ExpressionCompiler.compile(tree));
+        
+        when(equationService.getEquationById(equationId)).thenReturn(equation);
+        
+        ResponseEntity<EquationVariablesResponse> response = equationController.getVariables(equationId);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(List.of("x", "y", "z"), response.getBody().getVariables());
+    }
+    
+    @Test
+    public void testEvaluateVector_Success() {
+        String equationId = "1";
+        double[] values = {2.0, 3.0, 1.0};
+        
+        when(equationService.evaluateEquation(equationId, values)).thenReturn(11.0);
+        
+        ResponseEntity<EvaluateVectorResponse> response = equationController.evaluateVector(equationId, new EvaluateVectorRequest(values));
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(11.0, response.getBody().getResult(), 0.001);
+        
+        verify(equationService).evaluateEquation(equationId, values);
+    }
+    
+    @Test
+    public void testEvaluateBatch_ReportsErrorCodes() {
+        String equationId = "1";
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("x", new double[] {1.0, 2.0});
+        columns.put("y", new double[] {0.0, 1.0});
+        
+        BatchEvaluation batch = new BatchEvaluation(new double[] {Double.NaN, 2.0}, new byte[] {1, 0}, 1);
+        when(equationService.evaluateBatch(equationId, columns)).thenReturn(batch);
+        
+        ResponseEntity<EvaluateBatchResponse> response = equationController.evaluateBatch(equationId, new EvaluateBatchRequest(columns));
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().getRows());
+        assertEquals(1, response.getBody().getErrorCount());
+        assertArrayEquals(new int[] {1, 0}, response.getBody().getErrorCodes());
+    }
+    
+    @Test
+    public void testEvaluateEquations_SplitsResultsAndErrors() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        List<String> ids = Arrays.asList("1", "2", "9");
+        
+        MultiEvaluation evaluation = new MultiEvaluation(new String[] {"1", "2", "9"}, new double[] {4.0, 0.0, 0.0},
+                new String[] {null, "Arithmetic error: Division by zero", "Equation not found with ID: 9"}, 2);
+        when(equationService.evaluateEquations(ids, variables)).thenReturn(evaluation);
+        
+        ResponseEntity<EvaluateManyResponse> response = equationController.evaluateEquations(new EvaluateManyRequest(ids, variables));
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(3, response.getBody().getEvaluated());
+        assertEquals(Map.of("1", 4.0), response.getBody().getResults());
+        assertEquals(2, response.getBody().getErrorCount());
+        assertEquals("Arithmetic error: Division by zero", response.getBody().getErrors().get("2"));
+        assertEquals("Equation not found with ID: 9", response.getBody().getErrors().get("9"));
+    }
+    
+    @Test
+    public void testEvaluateGradient_KeysPartialsByVariable() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+        variables.put("y", 2.0);
+        
+        GradientEvaluation evaluation = new GradientEvaluation(20.0, new String[] {"x", "y"}, new double[] {12.0, 10.0});
+        when(equationService.evaluateGradient("1", variables, null)).thenReturn(evaluation);
+        
+        ResponseEntity<GradientResponse> response = equationController.evaluateGradient("1", new GradientRequest(variables, null));
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(20.0, response.getBody().getValue(), 0.0);
+        assertEquals(List.of("x", "y"), new ArrayList<>(response.getBody().getGradient().keySet()));
+        assertEquals(12.0, response.getBody().getGradient().get("x"), 0.0);
+    }
+    
+    @Test
+    public void testThreshold_ConvertsBoxAndDirection() {
+        Map<String, Interval> box = new LinkedHashMap<>();
+        box.put("x", new Interval(0.0, 1.0));
+        ThresholdSearch search = new ThresholdSearch(ThresholdSearch.Outcome.NONE, null, null, -0.5, 7);
+        when(equationService.searchThreshold("1", box, null, -1.0, false, IntervalSearch.DEFAULT_MAX_BOXES)).thenReturn(search);
+        
+        ResponseEntity<ThresholdResponse> response = equationController.threshold("1",
+                new ThresholdRequest(Map.of("x", new double[] {0.0, 1.0}), null, -1.0, "Below", null));
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("none", response.getBody().getOutcome());
+        assertEquals(-0.5, response.getBody().getBound(), 0.0);
+        assertEquals(7, response.getBody().getBoxesEvaluated());
+        
+        assertThrows(IllegalArgumentException.class, () -> equationController.threshold("1",
+                new ThresholdRequest(Map.of("x", new double[] {0.0}), null, 1.0, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> equationController.threshold("1",
+                new ThresholdRequest(Map.of("x", new double[] {0.0, 1.0}), null, 1.0, "sideways", null)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.example.demo.jit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.model.ExpressionEvaluator;
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+import com.example.demo.util.ExpressionInterner;
+import com.example.demo.util.ExpressionOptimizer;
+
+public class TieredCompilerTest {
+
+    private final TieredCompiler tieredCompiler = new TieredCompiler(true, 5);
+
+    @AfterEach
+    public void tearDown() {
+        tieredCompiler.shutdown();
+    }
+
+    private static CompiledExpression compile(String equation) {
+        ExpressionTree parsed = EquationParser.parseEquation(equation);
+        ExpressionTree canonical = new ExpressionTree();
+        canonical.setRoot(new ExpressionInterner().canonicalize(ExpressionOptimizer.optimize(parsed.getRoot())));
+        return ExpressionCompiler.compile(canonical, ExpressionCompiler.variablesInOrder(parsed));
+    }
+
+    @Test
+    public void testGeneratedCodeMatchesInterpreter() throws Exception {
+        String[] equations = {
+            "3x + 2y - z",
+            "(x + y) * (x + y) - (x + y) / 2",
+            "x ^ 3 - 2 ^ y + 5 / 4",
+            "((a + b) * (a + b) + (a + b)) / (c - 1)",
+            "x / y + 300 * x - 1000000"
+        };
+        double[][] inputs = {{1, 2, 3}, {-1.5, 4, 0.25}, {7, -3, 10}, {0.1, 0.2, 0.3}};
+
+        for (String equation : equations) {
+            CompiledExpression program = compile(equation);
+            ExpressionEvaluator evaluator = TieredCompiler.compile(program);
+            assertNotNull(evaluator, equation);
+            for (double[] input : inputs) {
+                double[] slots = Arrays.copyOf(input, program.getVariableCount());
+                assertEquals(Double.doubleToLongBits(program.evaluate(slots)),
+                        Double.doubleToLongBits(evaluator.evaluate(slots)), equation);
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedCodeThrowsOnDivisionByZero() throws Exception {
+        ExpressionEvaluator evaluator = TieredCompiler.compile(compile("x / (y - 1)"));
+
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> evaluator.evaluate(new double[] {4, 1}));
+        assertEquals("Division by zero", e.getMessage());
+        assertEquals(2.0, evaluator.evaluate(new double[] {4, 3}), 0.0001);
+    }
+
+    @Test
+    public void testOversizedProgramStaysInterpreted() throws Exception {
+        StringBuilder equation = new StringBuilder("a");
+        for (int i = 1; i < 2000; i++) {
+            equation.append(" + ").append(variable(i % 676)).append(" * ").append(variable(i * 7 % 676));
+        }
+        CompiledExpression program = compile(equation.toString());
+
+        assertTrue(program.getInstructionCount() > 4000);
+        assertNull(TieredCompiler.compile(program));
+    }
+
+    private static String variable(int index) {
+        return "" + (char) ('a' + index / 26) + (char) ('a' + index % 26);
+    }
+
+    @Test
+    public void testEquationSwitchesToCompiledTierAfterThreshold() throws Exception {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .tieredCompiler(tieredCompiler)
+                .build();
+        String equationId = service.storeEquation("2x + y");
+        Equation equation = service.getEquationById(equationId);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(7.0, service.evaluateEquation(equationId, new double[] {3, 1}), 0.0001);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (equation.getJitEvaluator() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertNotNull(equation.getJitEvaluator());
+        assertEquals(11.0, service.evaluateEquation(equationId, new double[] {4, 3}), 0.0001);
+        assertEquals(List.of("x", "y"), equation.getVariables());
+    }
+
+    @Test
+    public void testDisabledCompilerNeverQueues() {
+        TieredCompiler disabled = new TieredCompiler(false, 0);
+        Equation equation = new Equation("1", "x", new ExpressionTree(), compile("x + 1"));
+        equation.getEvaluationCount().add(100);
+
+        disabled.recordEvaluation(equation);
+
+        assertFalse(equation.getJitQueued().get());
+        disabled.shutdown();
+    }
+}
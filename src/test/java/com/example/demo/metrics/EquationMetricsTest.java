@@ -0,0 +1,112 @@
+package com.example.demo.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exception.GlobalExceptionHandler;
+import com.example.demo.model.RootSolution;
+import com.example.demo.model.SolveParameters;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.EquationService;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EquationMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private EquationMetrics equationMetrics;
+    private EquationService equationService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        equationMetrics = new EquationMetrics(registry, repository);
+        equationService = EquationServiceImpl.builder().repository(repository).metrics(equationMetrics).build();
+    }
+
+    @Test
+    public void testStoreAndEvaluate_RecordsTimersAndGauges() {
+        String id = equationService.storeEquation("3x + 2y - z");
+        equationService.storeEquation("x * y");
+
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        variables.put("y", 3.0);
+        variables.put("z", 1.0);
+        equationService.evaluateEquation(id, variables);
+        equationService.evaluateEquation(id, new double[] {2.0, 3.0, 1.0});
+
+        assertEquals(2, registry.get("equation.store").timer().count());
+        assertEquals(2, registry.get("equation.parse").timer().count());
+        assertEquals(2, registry.get("equation.evaluate").tag("mode", "single").timer().count());
+        assertEquals(2.0, registry.get("equation.stored").gauge().value(), 0.0);
+        assertTrue(registry.get("equation.heap.estimated.bytes.per.equation").gauge().value() > 0);
+    }
+
+    @Test
+    public void testDelete_ReleasesEstimatedHeapBytes() {
+        String kept = equationService.storeEquation("x + 1");
+        double keptBytes = registry.get("equation.heap.estimated.bytes").gauge().value();
+        String deleted = equationService.storeEquation("3x ^ 2 + 2y - z / 4");
+        assertTrue(registry.get("equation.heap.estimated.bytes").gauge().value() > keptBytes);
+
+        equationService.deleteEquation(deleted);
+        assertEquals(keptBytes, registry.get("equation.heap.estimated.bytes").gauge().value(), 0.0);
+        assertEquals(keptBytes, registry.get("equation.heap.estimated.bytes.per.equation").gauge().value(), 0.0);
+
+        equationService.deleteEquation(kept);
+        assertEquals(0.0, registry.get("equation.heap.estimated.bytes").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testSolve_RecordsSolveTimersNotEvaluateTimers() {
+        String id = equationService.storeEquation("x ^ 2 - 4");
+
+        RootSolution solution = equationService.solve(id, new SolveParameters("x", 0.0, 3.0, null, null, 1e-12, 50), Map.of());
+        assertThrows(IllegalArgumentException.class,
+                () -> equationService.solve(id, new SolveParameters("x", 0.0, null, 5.0, 6.0, 1e-12, 50), Map.of()));
+
+        assertEquals(1, registry.get("equation.solve").tag("outcome", "converged").timer().count());
+        assertEquals(1, registry.get("equation.solve").tag("outcome", "failed").timer().count());
+        assertEquals(solution.getIterations(), registry.get("equation.solve.iterations").summary().totalAmount(), 0.0);
+        assertEquals(0, registry.get("equation.evaluate").tag("mode", "batch").timer().count());
+        assertEquals(solution.getIterations(), equationService.getEquationById(id).getEvaluationCount().sum());
+    }
+
+    @Test
+    public void testRefreshTopEvaluations_PublishesOnlyEvaluatedEquations() {
+        String hot = equationService.storeEquation("x + 1");
+        String warm = equationService.storeEquation("x + 2");
+        equationService.storeEquation("x + 3");
+
+        for (int i = 0; i < 5; i++) {
+            equationService.evaluateEquation(hot, new double[] {1.0});
+        }
+        equationService.evaluateEquation(warm, new double[] {1.0});
+
+        equationMetrics.refreshTopEvaluations();
+
+        assertEquals(2, registry.find("equation.evaluations.top").gauges().size());
+        assertEquals(5.0, registry.get("equation.evaluations.top").tag("equationId", hot).gauge().value(), 0.0);
+        assertEquals(1.0, registry.get("equation.evaluations.top").tag("equationId", warm).gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testExceptionHandler_CountsErrorsByType() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(equationMetrics);
+
+        handler.handleIllegalArgumentException(new IllegalArgumentException("bad"));
+        handler.handleArithmeticException(new ArithmeticException("Division by zero"));
+        handler.handleArithmeticException(new ArithmeticException("Division by zero"));
+
+        assertEquals(1.0, registry.get("equation.errors").tag("type", "illegal_argument").counter().count(), 0.0);
+        assertEquals(2.0, registry.get("equation.errors").tag("type", "arithmetic").counter().count(), 0.0);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InFlightRequestFilterTest {
+
+    @Test
+    public void testTracksCurrentAndPeakRequests() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        InFlightRequestFilter filter = new InFlightRequestFilter(registry);
+        int[] seenInFlight = new int[2];
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (outerRequest, outerResponse) -> {
+            seenInFlight[0] = filter.getInFlight();
+            // A second request arriving while the first is still being processed
+            filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                    (innerRequest, innerResponse) -> seenInFlight[1] = filter.getInFlight());
+        });
+
+        assertEquals(1, seenInFlight[0]);
+        assertEquals(2, seenInFlight[1]);
+        assertEquals(0, filter.getInFlight());
+        assertEquals(2, filter.getMaxInFlight());
+        assertEquals(2.0, registry.get("equation.http.inflight.max").gauge().value());
+
+        filter.resetMaxInFlight();
+        assertEquals(0, filter.getMaxInFlight());
+    }
+}
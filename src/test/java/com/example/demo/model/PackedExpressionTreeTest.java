@@ -0,0 +1,104 @@
+package com.example.demo.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+import com.example.demo.util.ExpressionInterner;
+
+public class PackedExpressionTreeTest {
+
+    private static PackedExpressionTree pack(String equation) {
+        ExpressionTree tree = EquationParser.parseEquation(equation);
+        return PackedExpressionTree.pack(tree, ExpressionCompiler.variablesInOrder(tree));
+    }
+
+    @Test
+    public void testEvaluateMatchesExpressionTree() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        variables.put("y", 3.0);
+        variables.put("z", 4.0);
+
+        for (String equation : List.of("3x + 2y - z", "(x + y) * (x - y) / z", "2 ^ x ^ y", "x - y - z", "x / (y - 3 + z)")) {
+            ExpressionTree tree = EquationParser.parseEquation(equation);
+            assertEquals(tree.evaluate(variables), pack(equation).evaluate(variables), 1e-12, equation);
+        }
+    }
+
+    @Test
+    public void testToInfixNotationMatchesExpressionTree() {
+        for (String equation : List.of("x * (y + z)", "x - (y - z)", "(x - y) - z", "x / (y * z) ^ 2", "(x + y) ^ (z - 1)")) {
+            ExpressionTree tree = EquationParser.parseEquation(equation);
+            assertEquals(tree.toInfixNotation(), pack(equation).toInfixNotation(), equation);
+        }
+        assertEquals("3 * x + 2 * y", pack("3x + 2y").toInfixNotation());
+    }
+
+    @Test
+    public void testSharedSubtreesArePackedOnce() {
+        ExpressionTree tree = new ExpressionTree();
+        tree.setRoot(new ExpressionInterner().canonicalize(EquationParser.parseEquation("(x + y) * (x + y)").getRoot()));
+
+        PackedExpressionTree packed = PackedExpressionTree.pack(tree, List.of("x", "y"));
+
+        assertEquals(4, packed.getNodeCount());
+        assertEquals(25.0, packed.evaluate(new double[] {2, 3}), 0.0001);
+        assertEquals(packed.getNodeCount() - 2, packed.leftChild(packed.getNodeCount() - 1));
+        assertEquals(-1, packed.leftChild(0));
+    }
+
+    @Test
+    public void testDivisionByZeroAndMissingVariable() {
+        PackedExpressionTree packed = pack("x / y");
+
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> packed.evaluate(new double[] {1, 0}));
+        assertEquals("Division by zero", e.getMessage());
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.0);
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class, () -> packed.evaluate(variables));
+        assertEquals("Variable y not provided", missing.getMessage());
+    }
+
+    @Test
+    public void testEqualityIgnoresSlotOrder() {
+        ExpressionTree tree = EquationParser.parseEquation("x + y");
+
+        PackedExpressionTree xy = PackedExpressionTree.pack(tree, List.of("x", "y"));
+        PackedExpressionTree yx = PackedExpressionTree.pack(tree, List.of("y", "x"));
+
+        assertEquals(xy, yx);
+        assertEquals(xy.hashCode(), yx.hashCode());
+        assertNotEquals(xy, pack("x + z"));
+        assertNotEquals(xy, pack("x - y"));
+    }
+
+    @Test
+    public void testPackedLayoutService() {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .tieredCompiler(new TieredCompiler(false, 0))
+                .storageLayout(StorageLayout.PACKED)
+                .build();
+
+        String equationId = service.storeEquation("(x+y)^2 + 3*(x+y) - (x+y)/z");
+        Equation equation = service.getEquationById(equationId);
+
+        assertNull(equation.getExpressionTree());
+        assertNotNull(equation.getPackedTree());
+        assertEquals(10, equation.getStats().getDagNodeCount());
+        assertEquals(equation.getStats().getDagNodeCount(), equation.getPackedTree().getNodeCount());
+        assertEquals(17.0, service.evaluateEquation(equationId, new double[] {1, 2, 3}), 0.0001);
+        assertEquals(equationId, service.storeEquation("(x+y)^2 + 3*(y+x) - (y+x)/z", true));
+    }
+}
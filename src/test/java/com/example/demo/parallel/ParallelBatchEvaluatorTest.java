@@ -0,0 +1,78 @@
+package com.example.demo.parallel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.util.EquationParser;
+import com.example.demo.util.ExpressionCompiler;
+
+public class ParallelBatchEvaluatorTest {
+
+    private ParallelBatchEvaluator evaluator;
+
+    @BeforeEach
+    public void setUp() {
+        evaluator = new ParallelBatchEvaluator(4, 1000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Test
+    public void testParallelResultsMatchSequential() {
+        CompiledExpression expression = ExpressionCompiler.compile(EquationParser.parseEquation("(x + y) * x / (y - 3)"));
+        int rows = 100_003;
+        double[] x = new double[rows];
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            x[i] = i * 0.5;
+            y[i] = i % 7;
+        }
+        double[][] columns = {x, y};
+
+        double[] expected = new double[rows];
+        byte[] expectedErrors = new byte[rows];
+        expression.evaluateBatch(columns, 0, rows, expected, expectedErrors);
+
+        double[] results = new double[rows];
+        byte[] errors = new byte[rows];
+        evaluator.evaluate(expression, columns, rows, results, errors);
+
+        assertArrayEquals(expected, results);
+        assertArrayEquals(expectedErrors, errors);
+        assertEquals(CompiledExpression.ROW_DIVISION_BY_ZERO, errors[3]);
+        assertTrue(Double.isNaN(results[3]));
+    }
+
+    @Test
+    public void testLeafSizeIsBlockAlignedAndBoundsTaskCount() {
+        assertEquals(1024, evaluator.leafSize(2000));
+
+        int rows = 10_000_000;
+        int leaf = evaluator.leafSize(rows);
+        assertEquals(0, leaf % CompiledExpression.BATCH_BLOCK_SIZE);
+        assertTrue((rows + leaf - 1) / leaf <= 4 * ParallelBatchEvaluator.TASKS_PER_WORKER);
+    }
+
+    @Test
+    public void testSequentialEvaluatorRunsOnCallingThread() {
+        ParallelBatchEvaluator sequential = ParallelBatchEvaluator.sequential();
+        assertEquals(1, sequential.getParallelism());
+
+        CompiledExpression expression = ExpressionCompiler.compile(EquationParser.parseEquation("2x"));
+        double[] results = new double[20_000];
+        sequential.evaluate(expression, new double[][] {new double[20_000]}, 20_000, results, new byte[20_000]);
+        assertEquals(0.0, results[19_999]);
+    }
+
+    @Test
+    public void testRejectsNonPositiveCutoff() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelBatchEvaluator(2, 0));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.model.Equation;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+public class FileEquationPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private FileEquationPersistence persistence;
+
+    @AfterEach
+    public void tearDown() {
+        persistence.close();
+    }
+
+    private EquationServiceImpl start() {
+        if (persistence != null) {
+            persistence.close();
+        }
+        persistence = new FileEquationPersistence(directory.toString(), 1, 0);
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .tieredCompiler(new TieredCompiler(false, 0))
+                .persistence(persistence)
+                .build();
+        service.recover();
+        return service;
+    }
+
+    @Test
+    public void testRestartFromLogPreservesIds() {
+        EquationServiceImpl service = start();
+        String first = service.storeEquation("3x + 2y - z");
+        String second = service.storeEquation("(a + b) * (a + b)");
+        String third = service.storeEquation("x / y");
+        service.deleteEquation(third);
+
+        EquationServiceImpl restarted = start();
+
+        assertEquals(List.of(first, second), restarted.getAllEquations().stream().map(Equation::getEquationId).toList());
+        Equation equation = restarted.getEquationById(first);
+        assertEquals("3x + 2y - z", equation.getEquation());
+        assertEquals(List.of("x", "y", "z"), equation.getVariables());
+        assertEquals(5.0, restarted.evaluateEquation(first, new double[] {1, 2, 2}), 0.0001);
+        assertEquals(1, restarted.getEquationById(second).getCompiledExpression().getTempCount());
+        assertThrows(IllegalArgumentException.class, () -> restarted.getEquationById(third));
+        assertEquals("4", restarted.storeEquation("x + 1"));
+    }
+
+    @Test
+    public void testRestartFromSnapshotAndLog() throws IOException {
+        EquationServiceImpl service = start();
+        String first = service.storeEquation("x ^ 2 + 1");
+        String dropped = service.storeEquation("x - 1");
+        service.deleteEquation(dropped);
+        service.snapshot();
+        String afterSnapshot = service.storeEquation("2x * y");
+
+        assertEquals(1, countFiles(".snap"));
+        assertEquals(1, countFiles(".log"));
+
+        EquationServiceImpl restarted = start();
+
+        assertEquals(10.0, restarted.evaluateEquation(first, new double[] {3}), 0.0001);
+        assertEquals(12.0, restarted.evaluateEquation(afterSnapshot, new double[] {2, 3}), 0.0001);
+        assertEquals(afterSnapshot, restarted.storeEquation("(2 * x)*y", true));
+        assertEquals("4", restarted.storeEquation("x - 1"));
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        EquationServiceImpl service = start();
+        String equationId = service.storeEquation("x + y");
+        persistence.close();
+
+        Path log;
+        try (Stream<Path> files = Files.list(directory)) {
+            log = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        long validLength = Files.size(log);
+        Files.write(log, new byte[] {0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        EquationServiceImpl restarted = start();
+
+        assertEquals(3.0, restarted.evaluateEquation(equationId, new double[] {1, 2}), 0.0001);
+        assertEquals(validLength, Files.size(log));
+    }
+
+    @Test
+    public void testFailedAppendLeavesMemoryUnchanged() {
+        EquationServiceImpl service = start();
+        String equationId = service.storeEquation("x + y");
+        persistence.close();
+
+        assertThrows(RuntimeException.class, () -> service.storeEquation("x - y"));
+        assertThrows(IllegalStateException.class, () -> service.deleteEquation(equationId));
+
+        assertEquals(List.of(equationId), service.getAllEquations().stream().map(Equation::getEquationId).toList());
+        assertEquals(3.0, service.evaluateEquation(equationId, new double[] {1, 2}), 0.0001);
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).count();
+        }
+    }
+}
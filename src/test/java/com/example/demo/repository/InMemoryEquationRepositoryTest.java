@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.Equation;
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.service.EquationService;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+public class InMemoryEquationRepositoryTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int EQUATIONS_PER_WRITER = 2_000;
+
+    @Test
+    public void testFindAll_SnapshotIsSortedAndRefreshedAfterWrite() {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        repository.save(new Equation("10", "x", new ExpressionTree()));
+        repository.save(new Equation("2", "y", new ExpressionTree()));
+
+        List<Equation> first = repository.findAll();
+        assertEquals(List.of("2", "10"), first.stream().map(Equation::getEquationId).toList());
+        assertSame(first, repository.findAll());
+
+        repository.save(new Equation("1", "z", new ExpressionTree()));
+        assertEquals(List.of("1", "2", "10"), repository.findAll().stream().map(Equation::getEquationId).toList());
+        assertEquals(2, first.size());
+    }
+
+    @Test
+    public void testConcurrentStoreAndEvaluate_NoLostOrTornEntries() throws Exception {
+        EquationService service = EquationServiceImpl.builder().repository(new InMemoryEquationRepository()).build();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentHashMap<String, Integer> storedIds = new ConcurrentHashMap<>();
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < EQUATIONS_PER_WRITER; i++) {
+                    int constant = writer * EQUATIONS_PER_WRITER + i;
+                    String id = service.storeEquation("x + " + constant);
+                    assertNull(storedIds.put(id, constant), "duplicate id " + id);
+                }
+                return null;
+            }));
+        }
+
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    for (Equation equation : service.getAllEquations()) {
+                        int constant = Integer.parseInt(equation.getEquation().substring(4));
+                        double result = service.evaluateEquation(equation.getEquationId(), new double[] {1.0});
+                        assertEquals(constant + 1.0, result, 0.0);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Equation> all = service.getAllEquations();
+        assertEquals(WRITERS * EQUATIONS_PER_WRITER, all.size());
+        assertEquals(WRITERS * EQUATIONS_PER_WRITER, storedIds.size());
+
+        Set<String> listedIds = new HashSet<>();
+        for (Equation equation : all) {
+            assertTrue(listedIds.add(equation.getEquationId()));
+            assertEquals("x + " + storedIds.get(equation.getEquationId()), equation.getEquation());
+            assertSame(equation, service.getEquationById(equation.getEquationId()));
+        }
+    }
+}
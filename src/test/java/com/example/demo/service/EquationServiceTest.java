@@ -2,16 +2,46 @@ package com.example.demo.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.example.demo.cache.EvaluationResultCache;
+import com.example.demo.coalesce.EvaluationCoalescer;
+import com.example.demo.jit.TieredCompiler;
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.model.BatchEvaluation;
+import com.example.demo.model.CompiledExpression;
 import com.example.demo.model.Equation;
+import com.example.demo.model.GradientEvaluation;
+import com.example.demo.model.Interval;
+import com.example.demo.model.MultiEvaluation;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.RootSolution;
+import com.example.demo.model.SolveBatch;
+import com.example.demo.model.SolveParameters;
+import com.example.demo.model.StorageLayout;
+import com.example.demo.model.ThresholdSearch;
+import com.example.demo.parallel.ParallelBatchEvaluator;
+import com.example.demo.repository.InMemoryEquationRepository;
 import com.example.demo.service.impl.EquationServiceImpl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class EquationServiceTest {
 
     private EquationService equationService;
@@ -82,4 +112,387 @@ public class EquationServiceTest {
     public void testStoreInvalidEquation() {
         assertThrows(IllegalArgumentException.class, () -> equationService.storeEquation(""));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testEquationVariables_OrderOfAppearance() {
+        String equationId = equationService.storeEquation("3y + x - 2y * z");
+        
+        Equation equation = equationService.getEquationById(equationId);
+        assertEquals(List.of("y", "x", "z"), equation.getVariables());
+    }
+    
+    @Test
+    public void testEvaluateEquation_SlotValues() {
+        String equationId = equationService.storeEquation("3x + 2y - z");
+        
+        double result = equationService.evaluateEquation(equationId, new double[] {2.0, 3.0, 1.0});
+        assertEquals(11.0, result, 0.001);
+    }
+    
+    @Test
+    public void testEvaluateEquation_SlotValuesWrongLength() {
+        String equationId = equationService.storeEquation("x + y");
+        
+        assertThrows(IllegalArgumentException.class, () -> equationService.evaluateEquation(equationId, new double[] {1.0}));
+        assertThrows(IllegalArgumentException.class, () -> equationService.evaluateEquation(equationId, (double[]) null));
+    }
+    
+    @Test
+    public void testEvaluateBatch() {
+        String equationId = equationService.storeEquation("x / y");
+        
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("x", new double[] {6.0, 1.0, 9.0});
+        columns.put("y", new double[] {3.0, 0.0, 3.0});
+        
+        BatchEvaluation batch = equationService.evaluateBatch(equationId, columns);
+        assertEquals(3, batch.getRows());
+        assertEquals(1, batch.getErrorCount());
+        assertEquals(2.0, batch.getResults()[0], 0.001);
+        assertEquals(CompiledExpression.ROW_DIVISION_BY_ZERO, batch.getErrors()[1]);
+        assertEquals(3.0, batch.getResults()[2], 0.001);
+    }
+    
+    @Test
+    public void testEvaluateGradient() {
+        String equationId = equationService.storeEquation("x^2 * y + y");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+        variables.put("y", 2.0);
+        
+        GradientEvaluation all = equationService.evaluateGradient(equationId, variables, null);
+        assertEquals(20.0, all.getValue(), 0.0);
+        assertArrayEquals(new String[] {"x", "y"}, all.getVariables());
+        assertArrayEquals(new double[] {12.0, 10.0}, all.getGradient(), 1e-12);
+        
+        GradientEvaluation selected = equationService.evaluateGradient(equationId, variables, List.of("y", "z"));
+        assertArrayEquals(new double[] {10.0, 0.0}, selected.getGradient(), 1e-12);
+        
+        variables.remove("y");
+        assertThrows(IllegalArgumentException.class, () -> equationService.evaluateGradient(equationId, variables, null));
+    }
+    
+    @Test
+    public void testSolve() {
+        String equationId = equationService.storeEquation("x^2 * a - b");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("a", 2.0);
+        variables.put("b", 18.0);
+        
+        SolveParameters parameters = new SolveParameters("x", 0.0, 1.0, null, null, 1e-12, 50);
+        RootSolution solution = equationService.solve(equationId, parameters, variables);
+        assertTrue(solution.isConverged());
+        assertEquals(3.0, solution.getRoot(), 1e-10);
+        
+        parameters.setVariable("q");
+        assertThrows(IllegalArgumentException.class, () -> equationService.solve(equationId, parameters, variables));
+        parameters.setVariable("x");
+        variables.remove("b");
+        assertThrows(IllegalArgumentException.class, () -> equationService.solve(equationId, parameters, variables));
+    }
+    
+    @Test
+    public void testSolveBatch() {
+        String equationId = equationService.storeEquation("k * x - 10");
+        SolveParameters parameters = new SolveParameters("x", 0.0, null, -100.0, 100.0, 1e-12, 100);
+        List<Map<String, Double>> parameterSets = List.of(Map.of("k", 2.0), Map.of("k", 5.0), Map.of("k", 0.0), Map.of());
+        
+        SolveBatch batch = equationService.solveBatch(equationId, parameters, parameterSets);
+        assertEquals(2, batch.getErrorCount());
+        assertEquals(5.0, batch.getSolutions()[0].getRoot(), 1e-10);
+        assertEquals(2.0, batch.getSolutions()[1].getRoot(), 1e-10);
+        assertNull(batch.getSolutions()[2]);
+        assertTrue(batch.getErrors()[2].startsWith("No sign change"));
+        assertEquals("Variable k not provided", batch.getErrors()[3]);
+    }
+    
+    @Test
+    public void testFindRangeAndSearchThreshold() {
+        String equationId = equationService.storeEquation("x * x - k * x");
+        Map<String, Interval> box = Map.of("x", new Interval(0, 5));
+        Map<String, Double> variables = Map.of("k", 4.0);
+        
+        RangeBounds bounds = equationService.findRange(equationId, box, variables, 1e-6, 10_000);
+        assertTrue(bounds.isConverged());
+        assertEquals(-4.0, bounds.getMinimum().getUpper(), 1e-6);
+        assertEquals(5.0, bounds.getMaximum().getLower(), 1e-6);
+        
+        ThresholdSearch above = equationService.searchThreshold(equationId, box, variables, 4.0, true, 1000);
+        assertEquals(ThresholdSearch.Outcome.FOUND, above.getOutcome());
+        ThresholdSearch below = equationService.searchThreshold(equationId, box, variables, -4.5, false, 1000);
+        assertEquals(ThresholdSearch.Outcome.NONE, below.getOutcome());
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> equationService.findRange(equationId, box, Map.of(), 1e-6, 100));
+    }
+    
+    @Test
+    public void testEvaluateEquations() {
+        String sum = equationService.storeEquation("x + y");
+        String product = equationService.storeEquation("x * y");
+        String quotient = equationService.storeEquation("x / z");
+        String missing = equationService.storeEquation("x + w");
+        
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 6.0);
+        variables.put("y", 3.0);
+        variables.put("z", 0.0);
+        
+        MultiEvaluation evaluation = equationService.evaluateEquations(
+                Arrays.asList(sum, product, quotient, missing, "999"), variables);
+        assertEquals(5, evaluation.getCount());
+        assertEquals(3, evaluation.getErrorCount());
+        assertEquals(9.0, evaluation.getResults()[0], 0.001);
+        assertEquals(18.0, evaluation.getResults()[1], 0.001);
+        assertEquals("Arithmetic error: Division by zero", evaluation.getErrors()[2]);
+        assertEquals("Variable w not provided", evaluation.getErrors()[3]);
+        assertEquals("Equation not found with ID: 999", evaluation.getErrors()[4]);
+        
+        MultiEvaluation all = equationService.evaluateEquations(null, variables);
+        assertEquals(4, all.getCount());
+        assertEquals(2, all.getErrorCount());
+    }
+    
+    @Test
+    public void testEvaluateEquations_InParallel() {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        ParallelBatchEvaluator batchEvaluator = new ParallelBatchEvaluator(4, 8192);
+        try {
+            EquationServiceImpl service = EquationServiceImpl.builder()
+                    .repository(repository)
+                    .tieredCompiler(new TieredCompiler(false, 0))
+                    .batchEvaluator(batchEvaluator)
+                    .build();
+            for (int i = 0; i < 500; i++) {
+                service.storeEquation(i + " * x + y");
+            }
+            
+            Map<String, Double> variables = new HashMap<>();
+            variables.put("x", 2.0);
+            variables.put("y", 1.0);
+            MultiEvaluation evaluation = service.evaluateEquations(null, variables);
+            
+            assertEquals(500, evaluation.getCount());
+            assertEquals(0, evaluation.getErrorCount());
+            for (int i = 0; i < evaluation.getCount(); i++) {
+                String equation = service.getEquationById(evaluation.getEquationIds()[i]).getEquation();
+                double coefficient = Double.parseDouble(equation.substring(0, equation.indexOf(' ')));
+                assertEquals(coefficient * 2 + 1, evaluation.getResults()[i], 0.001);
+            }
+        } finally {
+            batchEvaluator.shutdown();
+        }
+    }
+    
+    @Test
+    public void testEvaluateEquation_Coalesced() throws Exception {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .metrics(new EquationMetrics(registry, repository))
+                .tieredCompiler(new TieredCompiler(false, 0))
+                .coalescer(new EvaluationCoalescer(registry, true, 1_000, 64))
+                .build();
+        String equationId = service.storeEquation("x / (y - 2)");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                Map<String, Double> variables = Map.of("x", (double) i, "y", (double) (i % 4));
+                results.add(executor.submit(() -> service.evaluateEquation(equationId, variables)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                if (i % 4 == 2) {
+                    Future<Double> result = results.get(i);
+                    ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+                    assertInstanceOf(ArithmeticException.class, thrown.getCause());
+                } else {
+                    assertEquals(i / (i % 4 - 2.0), results.get(i).get(), 0.0);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2000, registry.get("equation.coalesce.queue").timer().count());
+        assertEquals(2000, service.getEquationById(equationId).getEvaluationCount().sum());
+    }
+    
+    @Test
+    public void testEvaluateEquation_CacheHitsStillCount() {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EquationServiceImpl service = EquationServiceImpl.builder()
+                .repository(repository)
+                .metrics(new EquationMetrics(registry, repository))
+                .tieredCompiler(new TieredCompiler(true, 3))
+                .resultCache(new EvaluationResultCache(registry, true, 100, Duration.ofMinutes(1)))
+                .build();
+        String equationId = service.storeEquation("x * y");
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals(6.0, service.evaluateEquation(equationId, new double[] {2, 3}), 0.0);
+        }
+        
+        Equation equation = service.getEquationById(equationId);
+        assertEquals(5, equation.getEvaluationCount().sum());
+        assertEquals(5, registry.get("equation.evaluate").tag("mode", "single").timer().count());
+        assertTrue(equation.getJitQueued().get());
+    }
+    
+    @Test
+    public void testEvaluateBatch_InvalidColumns() {
+        String equationId = equationService.storeEquation("x + y");
+        
+        Map<String, double[]> missing = new HashMap<>();
+        missing.put("x", new double[] {1.0});
+        assertThrows(IllegalArgumentException.class, () -> equationService.evaluateBatch(equationId, missing));
+        
+        Map<String, double[]> ragged = new HashMap<>();
+        ragged.put("x", new double[] {1.0, 2.0});
+        ragged.put("y", new double[] {1.0});
+        assertThrows(IllegalArgumentException.class, () -> equationService.evaluateBatch(equationId, ragged));
+    }
+    
+    @Test
+    public void testStoreEquation_Deduplicate() {
+        String id1 = equationService.storeEquation("x + 2y");
+        String id2 = equationService.storeEquation("x + y * 2", true);
+        String id3 = equationService.storeEquation("x + 2y");
+        
+        assertEquals(id1, id2);
+        assertNotEquals(id1, id3);
+        assertEquals(2, equationService.getAllEquations().size());
+    }
+    
+    @Test
+    public void testStoreEquation_DeduplicateKeepsCallerSlotOrder() {
+        String xy = equationService.storeEquation("x + 2y");
+        String yx = equationService.storeEquation("2 * y+x", true);
+        
+        // Same canonical form, but slots [y, x] must not be served by an ID with slots [x, y]
+        assertNotEquals(xy, yx);
+        assertEquals(List.of("y", "x"), equationService.getEquationById(yx).getVariables());
+        assertEquals(7.0, equationService.evaluateEquation(yx, new double[] {3.0, 1.0}), 0.0);
+        assertEquals(yx, equationService.storeEquation("2y + x", true));
+    }
+    
+    @Test
+    public void testStoreEquation_DeeplySharedExpressionDeduplicatesQuickly() {
+        // Squaring rewrites to x*x, so each level shares its subtree twice: 2^40 paths, 41 nodes
+        String equation = "x";
+        for (int i = 0; i < 40; i++) {
+            equation = "(" + equation + " + 1)^2";
+        }
+        String deep = equation;
+        
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            String id = equationService.storeEquation(deep, true);
+            assertEquals(id, equationService.storeEquation(deep, true));
+            equationService.deleteEquation(id);
+            assertNotEquals(id, equationService.storeEquation(deep, true));
+        });
+    }
+    
+    @Test
+    public void testStoreEquation_CanonicalFormKeepsVariableOrder() {
+        String equationId = equationService.storeEquation("y + 2x");
+        
+        assertEquals(List.of("y", "x"), equationService.getEquationById(equationId).getVariables());
+        assertEquals(7.0, equationService.evaluateEquation(equationId, new double[] {1.0, 3.0}), 0.001);
+    }
+    
+    @Test
+    public void testStoreEquation_RecordsOptimizationStats() {
+        String equationId = equationService.storeEquation("2*3*x + 0*y + x^1");
+        
+        Equation equation = equationService.getEquationById(equationId);
+        assertEquals(13, equation.getStats().getParsedNodeCount());
+        assertEquals(9, equation.getStats().getOptimizedNodeCount());
+        
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        variables.put("y", 5.0);
+        assertEquals(14.0, equationService.evaluateEquation(equationId, variables), 0.001);
+    }
+    
+    @Test
+    public void testStoreEquation_CommonSubexpressionsShared() {
+        String equationId = equationService.storeEquation("(x+y)^2 + 3*(x+y) - (x+y)/z");
+        
+        Equation equation = equationService.getEquationById(equationId);
+        assertEquals(17, equation.getStats().getParsedNodeCount());
+        assertEquals(10, equation.getStats().getDagNodeCount());
+        assertEquals(9, equation.getStats().getEliminatedNodeCount());
+        assertEquals(1, equation.getCompiledExpression().getTempCount());
+    }
+    
+    @Test
+    public void testDeleteEquation() {
+        String equationId = equationService.storeEquation("x + 1", true);
+        
+        equationService.deleteEquation(equationId);
+        
+        assertThrows(IllegalArgumentException.class, () -> equationService.getEquationById(equationId));
+        assertThrows(IllegalArgumentException.class, () -> equationService.deleteEquation(equationId));
+        // The canonical form is forgotten too, so deduplication stores it afresh
+        assertNotEquals(equationId, equationService.storeEquation("1 + x", true));
+    }
+    
+    @Test
+    public void testEvaluateStream_WritesOneRecordPerRow() throws IOException {
+        String equationId = equationService.storeEquation("x / y");
+        String input = "{\"x\": 6, \"y\": 3}\n"
+                + "{\"x\": 1, \"y\": 0}\n"
+                + "{\"x\": 1}\n"
+                + "{\"x\": 1, \"y\": \"a\"}\n"
+                + "[1, 2]\n"
+                + "{\"y\": 4, \"x\": 2, \"z\": {\"ignored\": true}}\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        long rows = equationService.evaluateStream(equationId,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        
+        assertEquals(6, rows);
+        assertEquals(List.of(
+                "{\"row\":0,\"result\":2.0}",
+                "{\"row\":1,\"error\":\"Arithmetic error: Division by zero\"}",
+                "{\"row\":2,\"error\":\"Variable y not provided\"}",
+                "{\"row\":3,\"error\":\"Variable y must be a number\"}",
+                "{\"row\":4,\"error\":\"Row must be a JSON object of variable values\"}",
+                "{\"row\":5,\"result\":0.5}"),
+                output.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+    
+    @Test
+    public void testEvaluateStream_MalformedInputEndsStream() throws IOException {
+        String equationId = equationService.storeEquation("x + 1");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        long rows = equationService.evaluateStream(equationId,
+                new ByteArrayInputStream("{\"x\": 1}\n{\"x\": }\n{\"x\": 2}\n".getBytes(StandardCharsets.UTF_8)), output);
+        
+        List<String> records = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, rows);
+        assertEquals(2, records.size());
+        assertEquals("{\"row\":0,\"result\":2.0}", records.get(0));
+        assertTrue(records.get(1).startsWith("{\"row\":1,\"error\":\"Malformed JSON: "));
+    }
+    
+    @Test
+    public void testStoreEquation_DeeplyNestedAndLongExpressions() {
+        String nested = "(".repeat(10000) + "x + 1" + ")".repeat(10000);
+        StringBuilder sum = new StringBuilder("x");
+        for (int i = 1; i < 10000; i++) {
+            sum.append(" + x * ").append(i);
+        }
+        Map<String, Double> variables = Map.of("x", 1.0);
+        
+        for (StorageLayout layout : StorageLayout.values()) {
+            EquationService service = EquationServiceImpl.builder().storageLayout(layout).build();
+            assertEquals(2.0, service.evaluateEquation(service.storeEquation(nested), variables), 0.0, layout.name());
+            assertEquals(49995001.0, service.evaluateEquation(service.storeEquation(sum.toString()), variables), 0.0, layout.name());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.session;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.model.Equation;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EvaluationSessionTest {
+
+    private final EquationServiceImpl equationService = new EquationServiceImpl();
+
+    private EvaluationSessionStore store(DataSize maxMemory) {
+        return new EvaluationSessionStore(equationService, new SimpleMeterRegistry(), Duration.ofMinutes(1), maxMemory);
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchFullEvaluation() {
+        String equationId = equationService.storeEquation("(a + b) * c - (a + b) / d + a^2 * e");
+        EvaluationSessionStore store = store(DataSize.ofMegabytes(1));
+        Map<String, Double> bindings = new HashMap<>(Map.of("a", 1.0, "b", 2.0, "c", 3.0, "d", 4.0, "e", 5.0));
+        String sessionId = store.open(equationId, bindings).getSessionId();
+
+        Random random = new Random(7);
+        List<String> names = List.of("a", "b", "c", "d", "e");
+        for (int i = 0; i < 200; i++) {
+            Map<String, Double> delta = new HashMap<>();
+            delta.put(names.get(random.nextInt(names.size())), random.nextInt(20) + 1.0);
+            if (i % 5 == 0) {
+                delta.put(names.get(random.nextInt(names.size())), random.nextInt(20) + 1.0);
+            }
+            bindings.putAll(delta);
+
+            SessionState state = store.update(sessionId, delta);
+            assertEquals(equationService.evaluateEquation(equationId, bindings), state.getResult(), 0.0);
+            assertEquals(bindings, state.getVariables());
+        }
+    }
+
+    @Test
+    public void testOneVariableUpdateTouchesOnlyItsPath() {
+        StringBuilder equation = new StringBuilder();
+        Map<String, Double> bindings = new HashMap<>();
+        for (char first = 'a'; first <= 'e'; first++) {
+            for (char second = 'a'; second <= 'z'; second++) {
+                String name = "" + first + second;
+                equation.append(equation.length() == 0 ? "" : " + ").append(name).append(" * ").append(name);
+                bindings.put(name, 1.0);
+            }
+        }
+        String equationId = equationService.storeEquation(equation.toString());
+        Equation stored = equationService.getEquationById(equationId);
+        EvaluationSessionStore store = store(DataSize.ofMegabytes(1));
+        String sessionId = store.open(equationId, bindings).getSessionId();
+
+        SessionState state = store.update(sessionId, Map.of("ez", 3.0));
+
+        assertEquals(138.0, state.getResult(), 0.0);
+        assertTrue(state.getRecomputedNodes() <= 3, "recomputed " + state.getRecomputedNodes());
+        assertTrue(stored.getStats().getDagNodeCount() > 300);
+        assertEquals(0, store.update(sessionId, Map.of("ez", 3.0)).getRecomputedNodes());
+    }
+
+    @Test
+    public void testDivisionByZeroIsRecoverable() {
+        String equationId = equationService.storeEquation("x / (y - 2)");
+        EvaluationSessionStore store = store(DataSize.ofMegabytes(1));
+        SessionState opened = store.open(equationId, Map.of("x", 6.0, "y", 2.0));
+        assertTrue(opened.isDivisionByZero());
+
+        SessionState updated = store.update(opened.getSessionId(), Map.of("y", 5.0));
+        assertFalse(updated.isDivisionByZero());
+        assertEquals(2.0, updated.getResult(), 0.0);
+    }
+
+    @Test
+    public void testRejectedDeltaLeavesSessionUnchanged() {
+        String equationId = equationService.storeEquation("x + y");
+        EvaluationSessionStore store = store(DataSize.ofMegabytes(1));
+        String sessionId = store.open(equationId, Map.of("x", 1.0, "y", 2.0)).getSessionId();
+
+        Map<String, Double> delta = new HashMap<>();
+        delta.put("x", 10.0);
+        delta.put("z", 1.0);
+        assertThrows(IllegalArgumentException.class, () -> store.update(sessionId, delta));
+        assertEquals(3.0, store.current(sessionId).getResult(), 0.0);
+
+        assertThrows(IllegalArgumentException.class, () -> store.open(equationId, Map.of("x", 1.0)));
+    }
+
+    @Test
+    public void testMemoryBoundEvictsAndCloseRemoves() {
+        String equationId = equationService.storeEquation("x * y + x / y");
+        EvaluationSessionStore store = store(DataSize.ofBytes(2048));
+        for (int i = 0; i < 51; i++) {
+            store.open(equationId, Map.of("x", 1.0, "y", 2.0));
+        }
+        store.cleanUp();
+        assertTrue(store.size() < 51, "size " + store.size());
+
+        String last = store.open(equationId, Map.of("x", 1.0, "y", 2.0)).getSessionId();
+        store.close(last);
+        assertThrows(IllegalArgumentException.class, () -> store.current(last));
+        assertThrows(IllegalArgumentException.class, () -> store.close(last));
+    }
+
+    @Test
+    public void testSessionLargerThanMemoryBoundIsRejected() {
+        String equationId = equationService.storeEquation("x * y + x / y");
+        EvaluationSessionStore store = store(DataSize.ofBytes(64));
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> store.open(equationId, Map.of("x", 1.0, "y", 2.0)));
+        assertTrue(thrown.getMessage().contains("equation.session.max-memory"), thrown.getMessage());
+        assertEquals(0, store.size());
+    }
+}
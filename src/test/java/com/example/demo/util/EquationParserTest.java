@@ -8,6 +8,7 @@ import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import com.example.demo.exception.EquationParseException;
 import com.example.demo.model.ExpressionTree;
 
 public class EquationParserTest {
@@ -179,4 +180,48 @@ public class EquationParserTest {
         double result = tree.evaluate(variables);
         assertEquals(24.0, result, 0.001);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testParseEquation_MatchesShuntingYardTree() {
+        String[] equations = {
+            "3x + 2y - z",
+            "((x + y) * z) / (a - b)",
+            "x^y^2 + z",
+            "10 - 4 - 3 * 2 / 5",
+            "( x )",
+            "a_1 * 2"
+        };
+        
+        for (String equation : equations) {
+            ExpressionTree expected = EquationParser.buildExpressionTree(EquationParser.infixToPostfix(equation));
+            assertEquals(expected.getRoot(), EquationParser.parseEquation(equation).getRoot(), equation);
+        }
+    }
+    
+    @Test
+    public void testParseEquation_ErrorMessagesAndPositions() {
+        assertParseError("(x + y", "Unbalanced parentheses in equation", 0);
+        assertParseError("x + y)", "Unbalanced parentheses in equation", 5);
+        assertParseError("x $ y", "Equation contains invalid characters", 2);
+        assertParseError("x ++ y", "Invalid consecutive operators in equation", 3);
+        assertParseError("x + ()", "Empty parentheses in equation", 4);
+        assertParseError("x + * y", "Invalid expression: insufficient operands for operator +", 4);
+        assertParseError("x *", "Invalid expression: insufficient operands for operator *", 3);
+        assertParseError("x y", "Invalid expression: too many operands", 2);
+    }
+    
+    @Test
+    public void testParseEquation_DeepNesting() {
+        String nested = "(".repeat(10000) + "x" + ")".repeat(10000);
+        assertEquals("x", EquationParser.parseEquation(nested).getRoot().getValue());
+        
+        assertParseError("(".repeat(10000) + "x", "Unbalanced parentheses in equation", 9999);
+        assertParseError("(".repeat(10000) + "x y" + ")".repeat(10000), "Invalid expression: too many operands", 10002);
+    }
+    
+    private void assertParseError(String equation, String message, int position) {
+        EquationParseException e = assertThrows(EquationParseException.class, () -> EquationParser.parseEquation(equation));
+        assertEquals(message, e.getMessage(), equation);
+        assertEquals(position, e.getPosition(), equation);
+    }
+}
\ No newline at end of file
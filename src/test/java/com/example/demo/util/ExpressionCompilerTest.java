@@ -0,0 +1,205 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.ExpressionTree;
+
+public class ExpressionCompilerTest {
+
+    @Test
+    public void testCompile_MatchesTreeEvaluation() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        variables.put("y", 3.0);
+        variables.put("z", 4.0);
+        variables.put("a", 7.0);
+        variables.put("b", 2.0);
+
+        String[] equations = {
+            "3x + 2y - z",
+            "((x + y) * z) / (a - b)",
+            "x^y + z^2",
+            "2^3^2",
+            "10 - 4 - 3",
+            "x / y / z",
+            "1e3 * x"
+        };
+
+        for (String equation : equations) {
+            ExpressionTree tree = EquationParser.parseEquation(equation);
+            CompiledExpression compiled = ExpressionCompiler.compile(tree);
+            assertEquals(tree.evaluate(variables), compiled.evaluate(variables), 0.0, equation);
+        }
+    }
+
+    @Test
+    public void testCompile_VariableSlotsInOrderOfAppearance() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("3y + x * y - 2z"));
+        assertEquals(List.of("y", "x", "z"), compiled.getVariables());
+        assertEquals(8.0, compiled.evaluate(new double[] {2.0, 4.0, 3.0}), 0.001);
+    }
+
+    @Test
+    public void testCompile_ConstantPoolIsShared() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("2 * x + 2 * y + 2"));
+        assertEquals(2, compiled.getVariableCount());
+        assertEquals(3, compiled.getMaxStackDepth());
+
+        // Three literal 2s, one pool entry
+        assertEquals(1, compiled.getConstantCount());
+        assertEquals(2.0, compiled.constantAt(0), 0.0);
+        int constLoads = 0;
+        for (int pc = 0; pc < compiled.getInstructionCount(); pc++) {
+            if (compiled.opcodeAt(pc) == CompiledExpression.CONST) {
+                assertEquals(0, compiled.operandAt(pc));
+                constLoads++;
+            }
+        }
+        assertEquals(3, constLoads);
+    }
+
+    @Test
+    public void testEvaluate_MissingVariable() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("x + y"));
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(variables));
+        assertEquals("Variable y not provided", e.getMessage());
+    }
+
+    @Test
+    public void testEvaluate_DivisionByZero() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("x / (y - 1)"));
+
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> compiled.evaluate(new double[] {3.0, 1.0}));
+        assertEquals("Division by zero", e.getMessage());
+    }
+
+    @Test
+    public void testCompile_InvalidOperand() {
+        ExpressionTree tree = EquationParser.parseEquation("x2 + y");
+        assertThrows(IllegalArgumentException.class, () -> ExpressionCompiler.compile(tree));
+    }
+
+    @Test
+    public void testEvaluateBatch_MatchesScalarEvaluation() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("(3x + y^2) / (x - y)"));
+        int rows = 1000;
+        double[] xs = new double[rows];
+        double[] ys = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            xs[i] = i % 17;
+            ys[i] = i % 13;
+        }
+
+        double[] results = new double[rows];
+        byte[] errors = new byte[rows];
+        compiled.evaluateBatch(new double[][] {xs, ys}, 0, rows, results, errors);
+
+        for (int i = 0; i < rows; i++) {
+            if (xs[i] == ys[i]) {
+                assertEquals(CompiledExpression.ROW_DIVISION_BY_ZERO, errors[i]);
+                assertTrue(Double.isNaN(results[i]));
+            } else {
+                assertEquals(CompiledExpression.ROW_OK, errors[i]);
+                assertEquals(compiled.evaluate(new double[] {xs[i], ys[i]}), results[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateBatch_DivisionByZeroIsNotMaskedByPower() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("(x / y)^0"));
+        double[] results = new double[2];
+        byte[] errors = new byte[2];
+        compiled.evaluateBatch(new double[][] {{1.0, 1.0}, {0.0, 2.0}}, 0, 2, results, errors);
+
+        assertEquals(CompiledExpression.ROW_DIVISION_BY_ZERO, errors[0]);
+        assertTrue(Double.isNaN(results[0]));
+        assertEquals(1.0, results[1], 0.0);
+    }
+
+    @Test
+    public void testCompile_SharedSubexpressionsEvaluatedOnce() {
+        ExpressionTree parsed = EquationParser.parseEquation("(x+y)^2 + 3*(x+y) - (x+y)/z");
+        ExpressionTree dag = new ExpressionTree();
+        dag.setRoot(new ExpressionInterner().canonicalize(ExpressionOptimizer.optimize(parsed.getRoot())));
+
+        CompiledExpression compiled = ExpressionCompiler.compile(dag, ExpressionCompiler.variablesInOrder(parsed));
+        assertEquals(1, compiled.getTempCount());
+        assertEquals(List.of("x", "y", "z"), compiled.getVariables());
+
+        double[] slots = {1.5, 2.5, 4.0};
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.5);
+        variables.put("y", 2.5);
+        variables.put("z", 4.0);
+        assertEquals(parsed.evaluate(variables), compiled.evaluate(slots), 1e-12);
+
+        double[] results = new double[1];
+        compiled.evaluateBatch(new double[][] {{1.5}, {2.5}, {4.0}}, 0, 1, results, new byte[1]);
+        assertEquals(compiled.evaluate(slots), results[0], 0.0);
+    }
+
+    @Test
+    public void testEvaluateGradient_MatchesAnalyticDerivatives() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("3 * x^2 * y - x / y + 7"));
+        double x = 2.0;
+        double y = 4.0;
+        double[] gradient = new double[2];
+
+        double value = compiled.evaluateGradient(new double[] {x, y}, new int[] {0, 1}, gradient);
+
+        assertEquals(compiled.evaluate(new double[] {x, y}), value, 0.0);
+        assertEquals(6 * x * y - 1 / y, gradient[0], 1e-12);
+        assertEquals(3 * x * x + x / (y * y), gradient[1], 1e-12);
+    }
+
+    @Test
+    public void testEvaluateGradient_SharedSubexpressionsAndVariableExponent() {
+        ExpressionTree parsed = EquationParser.parseEquation("(x+y)^z + 3*(x+y) - (x+y)/z");
+        ExpressionTree dag = new ExpressionTree();
+        dag.setRoot(new ExpressionInterner().canonicalize(ExpressionOptimizer.optimize(parsed.getRoot())));
+        CompiledExpression compiled = ExpressionCompiler.compile(dag, ExpressionCompiler.variablesInOrder(parsed));
+        assertEquals(1, compiled.getTempCount());
+
+        double[] slots = {1.5, 2.5, 3.0};
+        double[] gradient = new double[3];
+        compiled.evaluateGradient(slots, new int[] {0, 1, 2}, gradient);
+
+        // Central differences agree with the exact partials to well within the step error
+        double h = 1e-6;
+        for (int i = 0; i < slots.length; i++) {
+            double[] plus = slots.clone();
+            double[] minus = slots.clone();
+            plus[i] += h;
+            minus[i] -= h;
+            double numeric = (compiled.evaluate(plus) - compiled.evaluate(minus)) / (2 * h);
+            assertEquals(numeric, gradient[i], 1e-5);
+        }
+    }
+
+    @Test
+    public void testEvaluateGradient_SelectedAndUnusedVariables() {
+        CompiledExpression compiled = ExpressionCompiler.compile(EquationParser.parseEquation("x * y + 0^2"));
+        double[] gradient = new double[2];
+
+        double value = compiled.evaluateGradient(new double[] {3.0, 5.0}, new int[] {1, -1}, gradient);
+
+        assertEquals(15.0, value, 0.0);
+        assertEquals(3.0, gradient[0], 0.0);
+        assertEquals(0.0, gradient[1], 0.0);
+
+        CompiledExpression quotient = ExpressionCompiler.compile(EquationParser.parseEquation("x / y"));
+        assertThrows(ArithmeticException.class,
+                () -> quotient.evaluateGradient(new double[] {1.0, 0.0}, new int[] {0}, gradient));
+    }
+}
\ No newline at end of file
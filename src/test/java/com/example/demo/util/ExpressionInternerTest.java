@@ -0,0 +1,64 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.TreeNode;
+
+public class ExpressionInternerTest {
+
+    private TreeNode canonical(ExpressionInterner interner, String equation) {
+        return interner.canonicalize(EquationParser.parseEquation(equation).getRoot());
+    }
+
+    @Test
+    public void testCanonicalize_CommutedOperandsShareRoot() {
+        ExpressionInterner interner = new ExpressionInterner();
+        assertSame(canonical(interner, "x+y"), canonical(interner, "y + x"));
+        assertSame(canonical(interner, "(a * b) + 2"), canonical(interner, "2 + b*a"));
+    }
+
+    @Test
+    public void testCanonicalize_NonCommutativeOperatorsKeepOrder() {
+        ExpressionInterner interner = new ExpressionInterner();
+        assertNotSame(canonical(interner, "x - y"), canonical(interner, "y - x"));
+        assertNotSame(canonical(interner, "x / y"), canonical(interner, "y / x"));
+        assertNotSame(canonical(interner, "x ^ y"), canonical(interner, "y ^ x"));
+    }
+
+    @Test
+    public void testCanonicalize_CoefficientsAndLiterals() {
+        ExpressionInterner interner = new ExpressionInterner();
+        assertSame(canonical(interner, "3x"), canonical(interner, "x * 3"));
+        assertSame(canonical(interner, "007 + x"), canonical(interner, "x + 7"));
+    }
+
+    @Test
+    public void testCanonicalize_SharedSubtrees() {
+        ExpressionInterner interner = new ExpressionInterner();
+        TreeNode root = canonical(interner, "(x + y) * (y + x)");
+        assertSame(root.getLeft(), root.getRight());
+
+        TreeNode other = canonical(interner, "(x + y) / z");
+        assertEquals(6, interner.size());
+        assertSame(root.getLeft(), other.getLeft());
+    }
+
+    @Test
+    public void testUnreferencedNodesAreReleased() throws InterruptedException {
+        ExpressionInterner interner = new ExpressionInterner();
+        TreeNode kept = canonical(interner, "x + 1");
+        canonical(interner, "(a * b) ^ (c - d)");
+        assertEquals(10, interner.size());
+
+        // Released roots free their children on later collections
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (interner.size() > 3 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(3, interner.size());
+        assertSame(kept, canonical(interner, "1 + x"));
+    }
+}
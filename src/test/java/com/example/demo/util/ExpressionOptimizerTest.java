@@ -0,0 +1,66 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.ExpressionTree;
+
+public class ExpressionOptimizerTest {
+
+    private ExpressionTree optimize(String equation) {
+        return ExpressionOptimizer.optimize(EquationParser.parseEquation(equation));
+    }
+
+    @Test
+    public void testOptimize_FoldsConstantBlocks() {
+        ExpressionTree tree = optimize("2*3*x + (4 - 1) ^ 2");
+        assertEquals("6 * x + 9", tree.toInfixNotation());
+    }
+
+    @Test
+    public void testOptimize_AppliesIdentities() {
+        assertEquals("x", optimize("x * 1 + 0").toInfixNotation());
+        assertEquals("x", optimize("1 * (x - 0) / 1").toInfixNotation());
+        assertEquals("x * x + y", optimize("x^2 + y^1").toInfixNotation());
+        assertEquals("y", optimize("0 - (0 - y)").toInfixNotation());
+    }
+
+    @Test
+    public void testOptimize_KeepsUnsafeRewrites() {
+        assertEquals("0 * y + x", optimize("0 * y + x").toInfixNotation());
+        assertEquals("x - x", optimize("x - x").toInfixNotation());
+    }
+
+    @Test
+    public void testOptimize_PreservesDivisionByZero() {
+        ExpressionTree tree = optimize("x + 1 / (2 - 2)");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.0);
+
+        assertThrows(ArithmeticException.class, () -> tree.evaluate(variables));
+    }
+
+    @Test
+    public void testOptimize_MatchesOriginalEvaluation() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.5);
+        variables.put("y", -2.0);
+
+        String[] equations = {"2*3*x + 0*y + x^1", "(x + 2^3) * (y - 1) / 4", "x^2 - 3y * 1"};
+        for (String equation : equations) {
+            double expected = EquationParser.parseEquation(equation).evaluate(variables);
+            assertEquals(expected, optimize(equation).evaluate(variables), 0.0, equation);
+        }
+    }
+
+    @Test
+    public void testCountNodes() {
+        ExpressionTree parsed = EquationParser.parseEquation("2*3*x + 0*y + x^1");
+        assertEquals(13, ExpressionOptimizer.countNodes(parsed.getRoot()));
+        assertEquals(9, ExpressionOptimizer.countNodes(ExpressionOptimizer.optimize(parsed).getRoot()));
+    }
+}
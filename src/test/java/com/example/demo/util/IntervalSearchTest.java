@@ -0,0 +1,178 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.Interval;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.RangeBounds;
+import com.example.demo.model.ThresholdSearch;
+
+public class IntervalSearchTest {
+
+    private static PackedExpressionTree pack(String equation) {
+        ExpressionTree parsed = EquationParser.parseEquation(equation);
+        return PackedExpressionTree.pack(parsed, ExpressionCompiler.variablesInOrder(parsed));
+    }
+
+    private static IntervalSearch plan(String equation, Map<String, Interval> box, Map<String, Double> fixed) {
+        ExpressionTree parsed = EquationParser.parseEquation(equation);
+        CompiledExpression compiled = ExpressionCompiler.compile(parsed);
+        return IntervalSearch.plan(PackedExpressionTree.pack(parsed, compiled.getVariables()), compiled, box, fixed);
+    }
+
+    @Test
+    public void testBoundsContainEverySampledValue() {
+        String[] equations = {"x * y - x / (y + 3)", "(x - y) ^ 2 - x ^ 3", "x ^ y + 2 * x", "(x + 1) / (x - y) * y",
+                "(x * x - y) ^ (3 / 2) - 2 ^ y * x"};
+        Random random = new Random(42);
+        for (String equation : equations) {
+            PackedExpressionTree tree = pack(equation);
+            IntervalEvaluator evaluator = new IntervalEvaluator(tree);
+            for (int trial = 0; trial < 200; trial++) {
+                double[] lower = new double[2];
+                double[] upper = new double[2];
+                for (int i = 0; i < 2; i++) {
+                    double a = random.nextDouble() * 8 - 4;
+                    double b = random.nextDouble() * 8 - 4;
+                    lower[i] = Math.min(a, b);
+                    upper[i] = Math.max(a, b);
+                }
+                double[] center = {(lower[0] + upper[0]) / 2, (lower[1] + upper[1]) / 2};
+                boolean defined = trial % 2 == 0
+                        ? evaluator.evaluate(lower, upper)
+                        : evaluator.evaluateCentered(lower, upper, center, new int[] {0, 1});
+                if (!defined) {
+                    continue;
+                }
+                for (int sample = 0; sample < 20; sample++) {
+                    double[] point = {
+                            lower[0] + random.nextDouble() * (upper[0] - lower[0]),
+                            lower[1] + random.nextDouble() * (upper[1] - lower[1])
+                    };
+                    double value;
+                    try {
+                        value = tree.evaluate(point);
+                    } catch (ArithmeticException e) {
+                        continue;
+                    }
+                    if (!Double.isNaN(value)) {
+                        assertTrue(value >= evaluator.getLower() && value <= evaluator.getUpper(),
+                                equation + " at " + point[0] + ", " + point[1] + " = " + value + " outside ["
+                                        + evaluator.getLower() + ", " + evaluator.getUpper() + "]");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCenteredFormTightensRepeatedVariables() {
+        IntervalEvaluator evaluator = new IntervalEvaluator(pack("x * x - 4 * x"));
+        double[] lower = {1.9};
+        double[] upper = {2.1};
+
+        assertTrue(evaluator.evaluate(lower, upper));
+        double plainWidth = evaluator.getUpper() - evaluator.getLower();
+        assertTrue(evaluator.evaluateCentered(lower, upper, new double[] {2.0}, new int[] {0}));
+        assertTrue(evaluator.getLower() <= -4.0 && evaluator.getUpper() >= -3.99);
+        assertTrue(evaluator.getUpper() - evaluator.getLower() < plainWidth / 10);
+    }
+
+    @Test
+    public void testDivisionByRangeContainingZero() {
+        IntervalEvaluator evaluator = new IntervalEvaluator(pack("1 / x"));
+
+        assertTrue(evaluator.evaluate(new double[] {0}, new double[] {2}));
+        assertEquals(0.5, evaluator.getLower(), 1e-12);
+        assertEquals(Double.POSITIVE_INFINITY, evaluator.getUpper());
+
+        assertTrue(evaluator.evaluate(new double[] {-4}, new double[] {0}));
+        assertEquals(Double.NEGATIVE_INFINITY, evaluator.getLower());
+        assertEquals(-0.25, evaluator.getUpper(), 1e-12);
+
+        assertTrue(evaluator.evaluate(new double[] {-1}, new double[] {1}));
+        assertEquals(Double.NEGATIVE_INFINITY, evaluator.getLower());
+        assertEquals(Double.POSITIVE_INFINITY, evaluator.getUpper());
+
+        // Undefined at every point of the box
+        assertFalse(evaluator.evaluate(new double[] {0}, new double[] {0}));
+    }
+
+    @Test
+    public void testRangeEnclosesMinimumAndMaximum() {
+        IntervalSearch search = plan("(x - 1)^2 + (y + 2)^2 + c",
+                Map.of("x", new Interval(-3, 3), "y", new Interval(-3, 3)), Map.of("c", 5.0));
+
+        RangeBounds bounds = search.range(1e-6, 20_000);
+
+        assertTrue(bounds.isConverged());
+        assertTrue(bounds.getMinimum().getLower() <= 5.0 && bounds.getMinimum().getUpper() >= 5.0);
+        assertEquals(5.0, bounds.getMinimum().getUpper(), 1e-6);
+        assertEquals(46.0, bounds.getMaximum().getLower(), 1e-6);
+        assertTrue(bounds.getMaximum().getUpper() >= 46.0);
+        assertEquals(1.0, bounds.getMinimumAt().get("x"), 1e-3);
+        assertEquals(-2.0, bounds.getMinimumAt().get("y"), 1e-3);
+        assertEquals(5.0, bounds.getMinimumAt().get("c"), 0.0);
+        assertTrue(bounds.getBoxesEvaluated() < 20_000);
+    }
+
+    @Test
+    public void testThresholdFoundOrProvenAbsent() {
+        Map<String, Interval> box = Map.of("x", new Interval(0, 1));
+
+        ThresholdSearch found = plan("x * (1 - x)", box, null).threshold(0.24, true, 1000);
+        assertEquals(ThresholdSearch.Outcome.FOUND, found.getOutcome());
+        assertTrue(found.getValue() > 0.24);
+        double x = found.getWitness().get("x");
+        assertEquals(found.getValue(), x * (1 - x), 0.0);
+
+        // The interval bound of x * (1 - x) over [0, 1] is [0, 1]; bisection tightens it below 0.26
+        ThresholdSearch none = plan("x * (1 - x)", box, null).threshold(0.26, true, 1000);
+        assertEquals(ThresholdSearch.Outcome.NONE, none.getOutcome());
+        assertTrue(none.getBound() <= 0.26 && none.getBound() >= 0.25);
+        assertNull(none.getWitness());
+
+        ThresholdSearch below = plan("x * (1 - x)", box, null).threshold(-0.01, false, 1000);
+        assertEquals(ThresholdSearch.Outcome.NONE, below.getOutcome());
+    }
+
+    @Test
+    public void testThresholdUnknownWhenBudgetRunsOut() {
+        // The supremum is exactly the threshold, which bounds can approach but never prove
+        ThresholdSearch search = plan("x * (1 - x)", Map.of("x", new Interval(0, 1)), null).threshold(0.25, true, 64);
+
+        assertEquals(ThresholdSearch.Outcome.UNKNOWN, search.getOutcome());
+        assertTrue(search.getBound() > 0.25);
+        assertTrue(search.getBoxesEvaluated() <= 64);
+    }
+
+    @Test
+    public void testPoleInsideBoxIsUnbounded() {
+        RangeBounds bounds = plan("1 / x", Map.of("x", new Interval(-1, 1)), null).range(1e-6, 200);
+
+        assertFalse(bounds.isConverged());
+        assertEquals(Double.NEGATIVE_INFINITY, bounds.getMinimum().getLower());
+        assertEquals(Double.POSITIVE_INFINITY, bounds.getMaximum().getUpper());
+    }
+
+    @Test
+    public void testRejectsInvalidBoxes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> plan("x + y", Map.of("x", new Interval(0, 1)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> plan("x", Map.of("x", new Interval(1, 0)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> plan("x", Map.of("z", new Interval(0, 1)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> plan("x", Map.of("x", new Interval(0, Double.POSITIVE_INFINITY)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> plan("1 / x", Map.of("x", new Interval(0, 0)), null).range(1e-6, 100));
+    }
+}
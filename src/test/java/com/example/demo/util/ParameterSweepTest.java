@@ -0,0 +1,144 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.ExpressionTree;
+import com.example.demo.model.PackedExpressionTree;
+import com.example.demo.model.SweepAxis;
+import com.example.demo.model.SweepFormat;
+
+public class ParameterSweepTest {
+
+    private static PackedExpressionTree pack(String equation) {
+        ExpressionTree parsed = EquationParser.parseEquation(equation);
+        ExpressionTree dag = new ExpressionTree();
+        dag.setRoot(new ExpressionInterner().canonicalize(parsed.getRoot()));
+        return PackedExpressionTree.pack(dag, ExpressionCompiler.variablesInOrder(parsed));
+    }
+
+    private static List<Double> collect(ParameterSweep sweep) throws IOException {
+        List<Double> points = new ArrayList<>();
+        sweep.run(new ParameterSweep.Sink() {
+            @Override
+            public void startRow(int[] outerIndex) {
+            }
+
+            @Override
+            public void block(double[] results, boolean[] failed, int count) {
+                for (int i = 0; i < count; i++) {
+                    points.add(failed[i] ? null : results[i]);
+                }
+            }
+
+            @Override
+            public void endRow() {
+            }
+
+            @Override
+            public void finish() {
+            }
+        });
+        return points;
+    }
+
+    @Test
+    public void testGridMatchesPointwiseEvaluation() throws IOException {
+        PackedExpressionTree tree = pack("(a + x)^2 / 4 + x * y - y / 3");
+        SweepAxis xAxis = new SweepAxis("x", -1, 2, 7);
+        SweepAxis yAxis = new SweepAxis("y", 0, 10, 300);
+        ParameterSweep sweep = ParameterSweep.plan(tree, List.of(xAxis, yAxis), Map.of("a", 1.5));
+
+        List<Double> points = collect(sweep);
+
+        assertEquals(2100, sweep.getPointCount());
+        assertEquals(2100, points.size());
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 300; j++) {
+                double expected = tree.evaluate(Map.of("a", 1.5, "x", xAxis.valueAt(i), "y", yAxis.valueAt(j)));
+                assertEquals(expected, points.get(i * 300 + j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testOuterSubtreesAreHoisted() {
+        // Only y and the two nodes combining it with the x-only subtree are evaluated per point
+        PackedExpressionTree tree = pack("(x^2 + 3 * x) * y + y");
+        ParameterSweep sweep = ParameterSweep.plan(tree, List.of(new SweepAxis("x", 0, 1, 10), new SweepAxis("y", 0, 1, 10)), null);
+
+        assertEquals(3, sweep.getInnerNodeCount());
+        assertTrue(tree.getNodeCount() > 6);
+    }
+
+    @Test
+    public void testDivisionByZeroFailsOnlyAffectedPoints() throws IOException {
+        PackedExpressionTree tree = pack("1 / x + 1 / (y - 1)");
+        ParameterSweep sweep = ParameterSweep.plan(tree, List.of(new SweepAxis("x", 0, 1, 2), new SweepAxis("y", 0, 2, 3)), null);
+
+        List<Double> points = collect(sweep);
+
+        // x = 0 fails its whole row; y = 1 fails one point in the other row
+        assertEquals(6, points.size());
+        assertNull(points.get(0));
+        assertNull(points.get(1));
+        assertNull(points.get(2));
+        assertEquals(0.0, points.get(3), 0.0);
+        assertNull(points.get(4));
+        assertEquals(2.0, points.get(5), 0.0);
+    }
+
+    @Test
+    public void testOutputFormats() throws IOException {
+        PackedExpressionTree tree = pack("x * y");
+        ParameterSweep sweep = ParameterSweep.plan(tree, List.of(new SweepAxis("x", 1, 2, 2), new SweepAxis("y", 0, 1, 3)), null);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        sweep.write(SweepFormat.BINARY, binary);
+        ByteBuffer buffer = ByteBuffer.wrap(binary.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(6 * Double.BYTES, buffer.remaining());
+        double[] expected = {0, 0.5, 1, 0, 1, 2};
+        for (double value : expected) {
+            assertEquals(value, buffer.getDouble(), 0.0);
+        }
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        sweep.write(SweepFormat.NDJSON, ndjson);
+        assertEquals("{\"index\":[0],\"results\":[0.0,0.5,1.0]}\n{\"index\":[1],\"results\":[0.0,1.0,2.0]}\n",
+                ndjson.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRootIndependentOfInnerAxis() throws IOException {
+        PackedExpressionTree tree = pack("x + 1 + 0 * y");
+        ParameterSweep sweep = ParameterSweep.plan(tree, List.of(new SweepAxis("y", 0, 1, 2), new SweepAxis("x", 5, 6, 2)), null);
+        assertEquals(List.of(6.0, 7.0, 6.0, 7.0), collect(sweep));
+
+        ParameterSweep outerOnly = ParameterSweep.plan(pack("2 * x + y"), List.of(new SweepAxis("x", 1, 2, 2)), Map.of("y", 1.0));
+        assertEquals(List.of(3.0, 5.0), collect(outerOnly));
+    }
+
+    @Test
+    public void testInvalidSweeps() {
+        PackedExpressionTree tree = pack("x + y");
+        assertThrows(IllegalArgumentException.class, () -> ParameterSweep.plan(tree, List.of(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.plan(tree, List.of(new SweepAxis("x", 0, 1, 2)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.plan(tree, List.of(new SweepAxis("z", 0, 1, 2)), Map.of("x", 1.0, "y", 1.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.plan(tree, List.of(new SweepAxis("x", 0, 1, 0)), Map.of("y", 1.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.plan(tree, List.of(new SweepAxis("x", 0, 1, 100_000), new SweepAxis("y", 0, 1, 100_000)), null));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.RootSolution;
+
+public class RootFinderTest {
+
+    private static CompiledExpression compile(String equation) {
+        return ExpressionCompiler.compile(EquationParser.parseEquation(equation));
+    }
+
+    @Test
+    public void testNewtonFromInitialGuess() {
+        RootSolution solution = RootFinder.solve(compile("x^2 - 2"), new double[1], 0, 0, 1.0, null, null, 1e-12, 50);
+
+        assertTrue(solution.isConverged());
+        assertEquals(RootFinder.NEWTON, solution.getMethod());
+        assertEquals(Math.sqrt(2), solution.getRoot(), 1e-12);
+        assertTrue(solution.getIterations() <= 8, "iterations: " + solution.getIterations());
+    }
+
+    @Test
+    public void testTargetAndFixedVariables() {
+        // a * 2^x = 24 with a = 3 gives x = 3
+        CompiledExpression compiled = compile("a * 2^x");
+        double[] slots = {3.0, 0.0};
+
+        RootSolution solution = RootFinder.solve(compiled, slots, 1, 24, null, 0.0, 10.0, 1e-10, 100);
+
+        assertTrue(solution.isConverged());
+        assertEquals(RootFinder.BRACKETED, solution.getMethod());
+        assertEquals(3.0, solution.getRoot(), 1e-9);
+        assertTrue(Math.abs(solution.getResidual()) <= 1e-10);
+    }
+
+    @Test
+    public void testFallsBackToBracketWhenDerivativeVanishes() {
+        // f'(0) = 0, so the first Newton step is infinite
+        RootSolution solution = RootFinder.solve(compile("x^2 - 4"), new double[1], 0, 0, 0.0, null, null, 1e-10, 200);
+
+        assertTrue(solution.isConverged());
+        assertEquals(RootFinder.BRACKETED, solution.getMethod());
+        assertEquals(2.0, Math.abs(solution.getRoot()), 1e-9);
+    }
+
+    @Test
+    public void testBracketedSolveSurvivesBadNewtonSteps() {
+        // Newton from the midpoint overshoots far outside [0, 3]; bisection keeps it inside
+        RootSolution solution = RootFinder.solve(compile("x^9 - 1"), new double[1], 0, 0, null, 0.0, 3.0, 1e-12, 200);
+
+        assertTrue(solution.isConverged());
+        assertEquals(1.0, solution.getRoot(), 1e-12);
+    }
+
+    @Test
+    public void testNoRootReportsNotConverged() {
+        RootSolution solution = RootFinder.solve(compile("x^2 + 1"), new double[1], 0, 0, 1.0, null, null, 1e-10, 100);
+
+        assertFalse(solution.isConverged());
+        assertTrue(solution.getIterations() <= 100);
+        assertTrue(solution.getResidual() >= 1.0);
+    }
+
+    @Test
+    public void testInvalidInputs() {
+        CompiledExpression compiled = compile("x - 1");
+        assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.solve(compiled, new double[1], 0, 0, null, null, null, 1e-10, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.solve(compiled, new double[1], 0, 0, null, 2.0, null, 1e-10, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.solve(compiled, new double[1], 0, 0, null, 2.0, 3.0, 1e-10, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.solve(compiled, new double[1], 0, 0, null, 3.0, 2.0, 1e-10, 100));
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.demo.wire;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.metrics.EquationMetrics;
+import com.example.demo.model.CompiledExpression;
+import com.example.demo.model.Equation;
+import com.example.demo.repository.InMemoryEquationRepository;
+import com.example.demo.service.impl.EquationServiceImpl;
+
+public class BinaryProtocolServerTest {
+
+    private EquationServiceImpl equationService;
+    private BinaryProtocolServer server;
+    private BinaryProtocolClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        InMemoryEquationRepository repository = new InMemoryEquationRepository();
+        EquationMetrics metrics = new EquationMetrics(repository);
+        equationService = EquationServiceImpl.builder().repository(repository).metrics(metrics).build();
+        server = new BinaryProtocolServer(equationService, metrics, "127.0.0.1", 0, 2, 4, DataSize.ofMegabytes(1));
+        client = new BinaryProtocolClient("127.0.0.1", server.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void testSinglePointMatchesService() throws IOException {
+        String id = equationService.storeEquation("x * y + 2");
+
+        assertEquals(14.0, client.evaluate(id, 3, 4), 0.0);
+        assertTrue(Double.isNaN(client.evaluate(equationService.storeEquation("1 / x"), 0)));
+    }
+
+    @Test
+    public void testPipelinedResponsesComeBackInOrder() throws IOException {
+        String id = equationService.storeEquation("x ^ 2 - y");
+        int requests = 2000;
+        for (int i = 0; i < requests; i++) {
+            client.send(i, id, new double[][] {{i, 1}});
+        }
+
+        for (int i = 0; i < requests; i++) {
+            BinaryProtocolClient.Response response = client.receive();
+            assertEquals(i, response.getRequestId());
+            assertNull(response.getError());
+            assertEquals((double) i * i - 1, response.getResults()[0], 0.0);
+        }
+    }
+
+    @Test
+    public void testBatchFrameReportsRowCodes() throws IOException {
+        String id = equationService.storeEquation("(x + y) / (y - 3)");
+        int rows = 10_000;
+        double[][] values = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            values[i] = new double[] {i, i % 5};
+        }
+
+        client.send(7, id, values);
+        BinaryProtocolClient.Response response = client.receive();
+
+        assertEquals(7, response.getRequestId());
+        assertEquals(rows, response.getResults().length);
+        for (int i = 0; i < rows; i++) {
+            if (i % 5 == 3) {
+                assertEquals(CompiledExpression.ROW_DIVISION_BY_ZERO, response.getRowCodes()[i]);
+                assertTrue(Double.isNaN(response.getResults()[i]));
+            } else {
+                assertEquals(CompiledExpression.ROW_OK, response.getRowCodes()[i]);
+                assertEquals((i + i % 5) / (i % 5 - 3.0), response.getResults()[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testErrorsAnswerWithoutClosingConnection() throws IOException {
+        String id = equationService.storeEquation("x + y");
+
+        client.send(1, "missing", new double[][] {{1, 2}});
+        client.send(2, id, new double[][] {{1, 2, 3}, {4, 5, 6}});
+        client.send(3, id, new double[][] {{1}});
+        client.send(4, id, new double[][] {{1, 2}, {3, 4}});
+
+        BinaryProtocolClient.Response missing = client.receive();
+        assertEquals(1, missing.getRequestId());
+        assertEquals("Equation not found with ID: missing", missing.getError());
+        assertTrue(client.receive().getError().startsWith("Expected 2 columns"));
+        assertTrue(client.receive().getError().startsWith("Expected 2 variable values"));
+        BinaryProtocolClient.Response batch = client.receive();
+        assertEquals(4, batch.getRequestId());
+        assertArrayEquals(new double[] {3, 7}, batch.getResults(), 0.0);
+    }
+
+    @Test
+    public void testOversizedIdIsAnsweredAndLaterRequestsStillServed() throws IOException {
+        String id = equationService.storeEquation("x + y");
+        // The longest ID a frame can carry, which the not-found message then exceeds
+        String longId = "a".repeat(0xFFFF);
+
+        client.send(1, longId, new double[][] {{1, 2}});
+        client.send(2, id, new double[][] {{1, 2}});
+
+        // A lost response would leave receive() blocked for good
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            BinaryProtocolClient.Response missing = client.receive();
+            assertEquals(1, missing.getRequestId());
+            assertTrue(missing.getError().startsWith("Equation not found with ID: aaa"));
+            BinaryProtocolClient.Response next = client.receive();
+            assertEquals(2, next.getRequestId());
+            assertArrayEquals(new double[] {3}, next.getResults(), 0.0);
+        });
+    }
+
+    @Test
+    public void testZeroRowFrameWithHugeWidthIsRejected() {
+        String id = equationService.storeEquation("x + y");
+        ByteBuffer frame = WireProtocol.allocate(64);
+        frame.putLong(9).put(WireProtocol.EVALUATE);
+        WireProtocol.putString(frame, id);
+        frame.putInt(0).putInt(Integer.MAX_VALUE).flip();
+
+        ByteBuffer response = server.handle(frame, WireProtocol.allocate(64)).flip();
+
+        response.position(WireProtocol.LENGTH_BYTES);
+        assertEquals(9, response.getLong());
+        assertEquals(WireProtocol.STATUS_ERROR, response.get());
+        assertTrue(WireProtocol.getString(response).startsWith("Expected 2 columns"));
+    }
+
+    @Test
+    public void testSlowEvaluationDoesNotStallItsEventLoop() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Looking up equation 1 blocks, which holds up every evaluation of it
+        InMemoryEquationRepository repository = new InMemoryEquationRepository() {
+            @Override
+            public Optional<Equation> findById(String equationId) {
+                if (equationId.equals("1")) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(equationId);
+            }
+        };
+        EquationMetrics metrics = new EquationMetrics(repository);
+        EquationServiceImpl blockingService = EquationServiceImpl.builder().repository(repository).metrics(metrics).build();
+        String slowId = blockingService.storeEquation("x * 2");
+        String fastId = blockingService.storeEquation("x * 3");
+        // One event loop, so both connections share it
+        BinaryProtocolServer oneLoop = new BinaryProtocolServer(blockingService, metrics, "127.0.0.1", 0, 1, 2,
+                DataSize.ofMegabytes(1));
+        try (BinaryProtocolClient slow = new BinaryProtocolClient("127.0.0.1", oneLoop.getPort());
+                BinaryProtocolClient fast = new BinaryProtocolClient("127.0.0.1", oneLoop.getPort())) {
+            slow.send(1, slowId, new double[][] {{1}});
+            slow.send(2, fastId, new double[][] {{5}});
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertEquals(9.0, fast.evaluate(fastId, 3), 0.0);
+
+            release.countDown();
+            assertEquals(2.0, slow.receive().getResults()[0], 0.0);
+            assertEquals(15.0, slow.receive().getResults()[0], 0.0);
+        } finally {
+            release.countDown();
+            oneLoop.shutdown();
+        }
+    }
+
+    @Test
+    public void testOversizedFrameClosesConnection() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+            ByteBuffer frame = WireProtocol.allocate(WireProtocol.LENGTH_BYTES);
+            frame.putInt(Integer.MAX_VALUE).flip();
+            channel.write(frame);
+
+            assertEquals(-1, channel.read(ByteBuffer.allocate(16)));
+        }
+    }
+}